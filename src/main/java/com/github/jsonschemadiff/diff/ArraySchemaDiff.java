@@ -8,7 +8,6 @@ import com.github.jsonschemadiff.schema.Schema;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 
 import static com.github.jsonschemadiff.diff.Difference.Type.ADDITIONAL_ITEMS_ADDED;
 import static com.github.jsonschemadiff.diff.Difference.Type.ADDITIONAL_ITEMS_EXTENDED;
@@ -46,12 +45,12 @@ class ArraySchemaDiff {
 
   private static void compareAttributes(
       final Context ctx, final ArraySchema original, final ArraySchema update) {
-    Integer origMaxItems = original.getMaxItems();
-    Integer updMaxItems = update.getMaxItems();
-    if (!Objects.equals(origMaxItems, updMaxItems)) {
-      if (origMaxItems == null) {
+    int origMaxItems = original.getMaxItemsAsInt();
+    int updMaxItems = update.getMaxItemsAsInt();
+    if (original.hasMaxItems() != update.hasMaxItems() || origMaxItems != updMaxItems) {
+      if (!original.hasMaxItems()) {
         ctx.addDifference("maxItems", MAX_ITEMS_ADDED);
-      } else if (updMaxItems == null) {
+      } else if (!update.hasMaxItems()) {
         ctx.addDifference("maxItems", MAX_ITEMS_REMOVED);
       } else if (origMaxItems < updMaxItems) {
         ctx.addDifference("maxItems", MAX_ITEMS_INCREASED);
@@ -60,12 +59,12 @@ class ArraySchemaDiff {
       }
     }
 
-    Integer origMinItems = original.getMinItems();
-    Integer updMinItems = update.getMinItems();
-    if (!Objects.equals(origMinItems, updMinItems)) {
-      if (origMinItems == null) {
+    int origMinItems = original.getMinItemsAsInt();
+    int updMinItems = update.getMinItemsAsInt();
+    if (original.hasMinItems() != update.hasMinItems() || origMinItems != updMinItems) {
+      if (!original.hasMinItems()) {
         ctx.addDifference("minItems", MIN_ITEMS_ADDED);
-      } else if (updMinItems == null) {
+      } else if (!update.hasMinItems()) {
         ctx.addDifference("minItems", MIN_ITEMS_REMOVED);
       } else if (origMinItems < updMinItems) {
         ctx.addDifference("minItems", MIN_ITEMS_INCREASED);
@@ -125,21 +124,21 @@ class ArraySchemaDiff {
     final Iterator<Schema> updateIterator = updateSchemas.iterator();
     int index = 0;
     while (originalIterator.hasNext() && index < Math.min(originalSize, updateSize)) {
-      try (Context.PathScope pathScope = ctx.enterPath("items/" + index)) {
+      try (Context.PathScope pathScope = ctx.enterPath("items", index)) {
         SchemaDiff.compare(ctx, originalIterator.next(), updateIterator.next());
       }
       index++;
     }
     while (originalIterator.hasNext()) {
-      try (Context.PathScope pathScope = ctx.enterPath("items/" + index)) {
+      try (Context.PathScope pathScope = ctx.enterPath("items", index)) {
         Schema originalSchema = originalIterator.next();
         if (isOpenContentModelForItems(update)) {
           ctx.addDifference(ITEM_REMOVED_FROM_OPEN_CONTENT_MODEL);
         } else {
           Schema schemaFromPartial = update.getSchemaOfAdditionalItems();
           if (schemaFromPartial != null) {
-            final Context subctx = ctx.getSubcontext();
-            SchemaDiff.compare(subctx, originalSchema, schemaFromPartial);
+            final Context subctx =
+                SchemaDiff.compareInSubcontext(ctx, originalSchema, schemaFromPartial);
             ctx.addDifferences(subctx.getDifferences());
             if (subctx.isCompatible()) {
               ctx.addDifference(ITEM_REMOVED_IS_COVERED_BY_PARTIALLY_OPEN_CONTENT_MODEL);
@@ -158,7 +157,7 @@ class ArraySchemaDiff {
       index++;
     }
     while (updateIterator.hasNext()) {
-      try (Context.PathScope pathScope = ctx.enterPath("items/" + index)) {
+      try (Context.PathScope pathScope = ctx.enterPath("items", index)) {
         Schema updateSchema = updateIterator.next();
         if (isOpenContentModelForItems(original)) {
           if (updateSchema instanceof EmptySchema) {
@@ -169,8 +168,8 @@ class ArraySchemaDiff {
         } else {
           Schema schemaFromPartial = original.getSchemaOfAdditionalItems();
           if (schemaFromPartial != null) {
-            final Context subctx = ctx.getSubcontext();
-            SchemaDiff.compare(subctx, schemaFromPartial, updateSchema);
+            final Context subctx =
+                SchemaDiff.compareInSubcontext(ctx, schemaFromPartial, updateSchema);
             ctx.addDifferences(subctx.getDifferences());
             if (subctx.isCompatible()) {
               ctx.addDifference(ITEM_ADDED_IS_COVERED_BY_PARTIALLY_OPEN_CONTENT_MODEL);
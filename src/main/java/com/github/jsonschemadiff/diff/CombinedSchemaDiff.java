@@ -8,7 +8,6 @@ import com.github.jsonschemadiff.utils.MaximumCardinalityMatch;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -61,22 +60,32 @@ class CombinedSchemaDiff {
         }
       }
 
+      // Edges between subschemas of the same type come first, so that among equally
+      // large matchings the initial greedy pass pairs like with like
       int index = 0;
-      Set<Edge<SchemaWrapper, List<Difference>>> compatibleEdges = new HashSet<>();
+      List<Edge<SchemaWrapper, List<Difference>>> sameTypeEdges = new ArrayList<>();
+      List<Edge<SchemaWrapper, List<Difference>>> otherEdges = new ArrayList<>();
       for (SchemaWrapper origSub : originalSubset) {
-        try (Context.PathScope pathScope = ctx.enterPath(
-            origCriterion.getKeyword() + "/" + index)) {
+        try (Context.PathScope pathScope = ctx.enterPath(origCriterion.getKeyword(), index)) {
           for (SchemaWrapper updSub : updateSubset) {
-            final Context subctx = ctx.getSubcontext();
-            SchemaDiff.compare(subctx, origSub.getSchema(), updSub.getSchema());
+            final Context subctx =
+                SchemaDiff.compareInSubcontext(ctx, origSub.getSchema(), updSub.getSchema());
             if (subctx.isCompatible()) {
-              compatibleEdges.add(
-                  new Edge<>(origSub, updSub, subctx.getDifferences()));
+              Edge<SchemaWrapper, List<Difference>> edge =
+                  new Edge<>(origSub, updSub, subctx.getDifferences());
+              if (origSub.getSchema().getClass() == updSub.getSchema().getClass()) {
+                sameTypeEdges.add(edge);
+              } else {
+                otherEdges.add(edge);
+              }
             }
           }
         }
         index++;
       }
+      Set<Edge<SchemaWrapper, List<Difference>>> compatibleEdges =
+          new LinkedHashSet<>(sameTypeEdges);
+      compatibleEdges.addAll(otherEdges);
 
       MaximumCardinalityMatch<SchemaWrapper, List<Difference>> match =
           new MaximumCardinalityMatch<>(compatibleEdges, originalSubset, updateSubset);
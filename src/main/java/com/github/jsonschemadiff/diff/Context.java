@@ -2,69 +2,151 @@ package com.github.jsonschemadiff.diff;
 
 import com.github.jsonschemadiff.schema.Schema;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * The state of one comparison: the JSON path and the schemas being compared
+ * along it, and the differences found.
+ *
+ * The path is a node in a trie of the paths entered so far, shared with the
+ * subcontexts, and the schemas being compared are an immutable linked list
+ * from the innermost entry outwards. Entering a path segment or a schema moves
+ * to a node and leaving it moves back, and a subcontext starts from the same
+ * nodes as its parent, so creating one takes constant time and memory however
+ * deep the comparison is. Entering a path seen before allocates nothing, and a
+ * difference keeps its path node and renders it only when asked.
+ *
+ * A fail-fast context, used when only the verdict is wanted, throws
+ * {@link Incompatible} at its first incompatible difference to abandon the
+ * comparison. {@code SchemaDiff} ends a subcontext that does so as it is, as
+ * its verdict is already known.
+ */
 public class Context {
 
   private final Set<Difference.Type> compatibleChanges;
-  private final Set<Schema> schemas;
-  private final Deque<String> jsonPath;
   private final List<Difference> diffs;
+  private final DiffCache cache;
+  private final boolean failFast;
+  private final PathScope pathScope = new PathScope();
+  private PathNode path;
+  private Visit visiting;
+  // Verdict of a cached comparison, until another difference is added
+  private Boolean compatible;
 
   public Context(Set<Difference.Type> compatibleChanges) {
+    this(compatibleChanges, null);
+  }
+
+  /**
+   * A context whose subcontext comparisons go through {@code cache}, which
+   * may be {@code null}.
+   */
+  public Context(Set<Difference.Type> compatibleChanges, DiffCache cache) {
+    this(compatibleChanges, cache, false);
+  }
+
+  Context(Set<Difference.Type> compatibleChanges, DiffCache cache, boolean failFast) {
     this.compatibleChanges = compatibleChanges;
-    this.schemas = Collections.newSetFromMap(new IdentityHashMap<>());
-    this.jsonPath = new ArrayDeque<>();
     this.diffs = new ArrayList<>();
+    this.cache = cache;
+    this.failFast = failFast;
+    this.path = PathNode.root();
   }
 
   public Context getSubcontext() {
-    Context ctx = new Context(this.compatibleChanges);
-    ctx.schemas.addAll(this.schemas);
-    ctx.jsonPath.addAll(this.jsonPath);
+    Context ctx = new Context(this.compatibleChanges, this.cache, this.failFast);
+    ctx.path = this.path;
+    ctx.visiting = this.visiting;
     return ctx;
   }
 
+  private static final class Visit {
+    final Schema schema;
+    final Visit parent;
+
+    Visit(Schema schema, Visit parent) {
+      this.schema = schema;
+      this.parent = parent;
+    }
+  }
+
   public SchemaScope enterSchema(final Schema schema) {
-    return !schemas.contains(schema) ? new SchemaScope(schema) : null;
+    return enterSchema(schema, true);
+  }
+
+  /**
+   * Enters {@code schema}, or returns {@code null} if it is already being
+   * compared. Only a schema that holds a reference or a cycle
+   * ({@link Schema#hasReferences()}) can be reached again inside itself, so
+   * the list is searched only if {@code revisitable}; see
+   * {@code SchemaDiff.mayHoldReferences}.
+   */
+  SchemaScope enterSchema(final Schema schema, boolean revisitable) {
+    if (revisitable) {
+      for (Visit visit = visiting; visit != null; visit = visit.parent) {
+        if (visit.schema == schema) {
+          return null;
+        }
+      }
+    }
+    return new SchemaScope(schema);
   }
 
   public class SchemaScope implements AutoCloseable {
-    private final Schema schema;
+    private final Visit previous;
 
     public SchemaScope(final Schema schema) {
-      this.schema = schema;
-      schemas.add(schema);
+      previous = visiting;
+      visiting = new Visit(schema, previous);
     }
 
     @Override
     public void close() {
-      schemas.remove(schema);
+      visiting = previous;
     }
   }
 
-  public PathScope enterPath(final String path) {
-    return new PathScope(path);
+  public PathScope enterPath(final String segment) {
+    path = path.child(segment);
+    return pathScope;
   }
 
+  /**
+   * Enters {@code segment/index}, such as {@code items/0}.
+   */
+  public PathScope enterPath(final String segment, final int index) {
+    path = path.child(segment, index);
+    return pathScope;
+  }
+
+  /**
+   * Leaves the path entered last. A context has one scope, returned by every
+   * {@code enterPath} and closed once for each, in reverse order.
+   */
   public class PathScope implements AutoCloseable {
-    public PathScope(final String path) {
-      jsonPath.addLast(path);
+    private PathScope() {
     }
 
     @Override
     public void close() {
-      jsonPath.removeLast();
+      path = path.parent;
     }
   }
 
+  Set<Difference.Type> getCompatibleChanges() {
+    return compatibleChanges;
+  }
+
+  DiffCache getCache() {
+    return cache;
+  }
+
   public boolean isCompatible() {
+    if (compatible != null) {
+      return compatible;
+    }
     boolean notCompatible = getDifferences().stream()
         .map(Difference::getType)
         .anyMatch(t -> !compatibleChanges.contains(t));
@@ -76,20 +158,73 @@ public class Context {
   }
 
   public void addDifference(final Difference.Type type) {
-    diffs.add(new Difference(type, jsonPathString(jsonPath)));
+    compatible = null;
+    Difference difference = new Difference(type, path);
+    diffs.add(difference);
+    if (failFast && !compatibleChanges.contains(type)) {
+      throw new Incompatible(difference);
+    }
   }
 
   public void addDifference(final String attribute, final Difference.Type type) {
-    jsonPath.addLast(attribute);
-    addDifference(type);
-    jsonPath.removeLast();
+    try (PathScope pathScope = enterPath(attribute)) {
+      addDifference(type);
+    }
   }
 
   public void addDifferences(final List<Difference> differences) {
+    compatible = null;
     diffs.addAll(differences);
+    if (failFast) {
+      for (Difference difference : differences) {
+        if (!compatibleChanges.contains(difference.getType())) {
+          throw new Incompatible(difference);
+        }
+      }
+    }
+  }
+
+  /**
+   * The differences, with paths relative to the current path.
+   */
+  List<Difference> getRelativeDifferences() {
+    // Every path is the current path, then "/" and any segments below it
+    int prefix = path.isRoot() ? 2 : path.render().length() + 1;
+    List<Difference> relative = new ArrayList<>(diffs.size());
+    for (Difference diff : diffs) {
+      String jsonPath = diff.getJsonPath();
+      String below = jsonPath.length() > prefix ? jsonPath.substring(prefix) : "";
+      relative.add(new Difference(diff.getType(), "#/" + below));
+    }
+    return relative;
   }
 
-  private static String jsonPathString(final Deque<String> jsonPath) {
-    return "#/" + String.join("/", jsonPath);
+  /**
+   * Adds the result of a cached comparison at the current path.
+   */
+  void addCachedResult(final DiffCache.Result result) {
+    for (Difference diff : result.getDifferences()) {
+      diffs.add(new Difference(diff.getType(), path.resolve(diff.getJsonPath())));
+    }
+    compatible = diffs.size() == result.getDifferences().size() ? result.isCompatible() : null;
+  }
+
+  /**
+   * Thrown by a fail-fast context at its first incompatible difference. It
+   * carries no stack trace, so that abandoning a comparison costs little.
+   */
+  static final class Incompatible extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Difference difference;
+
+    Incompatible(Difference difference) {
+      super(null, null, false, false);
+      this.difference = difference;
+    }
+
+    Difference getDifference() {
+      return difference;
+    }
   }
 }
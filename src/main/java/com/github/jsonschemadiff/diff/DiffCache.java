@@ -0,0 +1,127 @@
+package com.github.jsonschemadiff.diff;
+
+import com.github.jsonschemadiff.schema.Schema;
+import com.github.jsonschemadiff.utils.LruCache;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Results of comparing pairs of subschemas, so that a pair the diff engine
+ * tries again (each pair of combined subschemas, each branch of the
+ * combined/non-combined routing, each property checked against an
+ * {@code additionalProperties} schema) is compared once.
+ *
+ * A result holds the pair's differences with paths relative to where the pair
+ * was compared, and whether they were all compatible; a hit re-roots them at
+ * the current path. Pairs are looked up by structural hash and matched by
+ * identity or, failing that, by {@link Schema#equals}, so a cache shared
+ * across {@code SchemaDiff.compare} calls also serves equal subtrees of other
+ * loads. Pairs holding a {@code ReferenceSchema} are not cached, as their
+ * result depends on the schemas being compared around them, and neither are
+ * lazily loaded pairs that have not been hashed.
+ *
+ * The cache is bounded and thread-safe. It keeps the schemas of the pairs it
+ * holds reachable until they are evicted or the cache is cleared.
+ */
+public final class DiffCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+  private final LruCache<Key, Result> entries;
+
+  public DiffCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  public DiffCache(int maxEntries) {
+    this.entries = new LruCache<>(maxEntries);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public long getHitCount() {
+    return entries.getHitCount();
+  }
+
+  public long getMissCount() {
+    return entries.getMissCount();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  static boolean accepts(Schema original, Schema update) {
+    return original != null && update != null
+        && !SchemaDiff.mayHoldReferences(original) && !SchemaDiff.mayHoldReferences(update);
+  }
+
+  Result get(Set<Difference.Type> compatibleChanges, Schema original, Schema update) {
+    return entries.get(new Key(compatibleChanges, original, update));
+  }
+
+  void put(Set<Difference.Type> compatibleChanges, Schema original, Schema update,
+      Result result) {
+    entries.put(new Key(compatibleChanges, original, update), result);
+  }
+
+  static final class Result {
+    private final List<Difference> differences;
+    private final boolean compatible;
+
+    Result(List<Difference> differences, boolean compatible) {
+      this.differences = differences;
+      this.compatible = compatible;
+    }
+
+    /**
+     * The differences, with paths relative to the compared pair.
+     */
+    List<Difference> getDifferences() {
+      return differences;
+    }
+
+    boolean isCompatible() {
+      return compatible;
+    }
+  }
+
+  private static final class Key {
+    private final Set<Difference.Type> compatibleChanges;
+    private final Schema original;
+    private final Schema update;
+    private final int hash;
+
+    Key(Set<Difference.Type> compatibleChanges, Schema original, Schema update) {
+      this.compatibleChanges = compatibleChanges;
+      this.original = original;
+      this.update = update;
+      this.hash = 31 * (31 * compatibleChanges.hashCode() + original.hashCode())
+          + update.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key that = (Key) o;
+      return hash == that.hash
+          && same(original, that.original)
+          && same(update, that.update)
+          && (compatibleChanges == that.compatibleChanges
+              || compatibleChanges.equals(that.compatibleChanges));
+    }
+
+    private static boolean same(Schema a, Schema b) {
+      return a == b || a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
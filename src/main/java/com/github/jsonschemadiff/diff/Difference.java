@@ -63,7 +63,9 @@ public class Difference {
     NOT_TYPE_EXTENDED, NOT_TYPE_NARROWED
   }
 
-  private final String jsonPath;
+  // Rendered from the path node when first asked for
+  private String jsonPath;
+  private final PathNode path;
   private final Type type;
 
   private static final Set<Type> KEYWORD_ADDED_OR_REMOVED = new HashSet<>(Arrays.asList(
@@ -99,6 +101,7 @@ public class Difference {
       Type.NOT_TYPE_EXTENDED));
 
   private String error() {
+    String jsonPath = getJsonPath();
     String message;
     if (KEYWORD_ADDED_OR_REMOVED.contains(type)) {
       message = "The keyword at path '" + jsonPath + "' in the %s schema is not present in "
@@ -161,11 +164,22 @@ public class Difference {
 
   public Difference(final Type type, final String jsonPath) {
     this.jsonPath = jsonPath;
+    this.path = null;
+    this.type = type;
+  }
+
+  Difference(final Type type, final PathNode path) {
+    this.path = path;
     this.type = type;
   }
 
   public String getJsonPath() {
-    return jsonPath;
+    String result = jsonPath;
+    if (result == null) {
+      result = path.render();
+      jsonPath = result;
+    }
+    return result;
   }
 
   public Type getType() {
@@ -181,12 +195,14 @@ public class Difference {
       return false;
     }
     Difference that = (Difference) o;
-    return Objects.equals(jsonPath, that.jsonPath) && type == that.type;
+    return type == that.type
+        && (path != null && path == that.path
+            || Objects.equals(getJsonPath(), that.getJsonPath()));
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(jsonPath, type);
+    return Objects.hash(getJsonPath(), type);
   }
 
   @Override
@@ -9,8 +9,8 @@ class NotSchemaDiff {
 
   static void compare(final Context ctx, final NotSchema original, final NotSchema update) {
     try (Context.PathScope pathScope = ctx.enterPath("not")) {
-      final Context subctx = ctx.getSubcontext();
-      SchemaDiff.compare(subctx, update.getMustNotMatch(), original.getMustNotMatch());
+      final Context subctx =
+          SchemaDiff.compareInSubcontext(ctx, update.getMustNotMatch(), original.getMustNotMatch());
       if (subctx.isCompatible()) {
         ctx.addDifference(NOT_TYPE_NARROWED);
       } else {
@@ -1,6 +1,7 @@
 package com.github.jsonschemadiff.diff;
 
 import com.github.jsonschemadiff.schema.NumberSchema;
+import com.github.jsonschemadiff.schema.NumberSchema.Limit;
 
 import java.math.BigDecimal;
 import java.util.Objects;
@@ -28,69 +29,66 @@ import static com.github.jsonschemadiff.diff.Difference.Type.MULTIPLE_OF_REDUCED
 import static com.github.jsonschemadiff.diff.Difference.Type.MULTIPLE_OF_REMOVED;
 import static com.github.jsonschemadiff.diff.Difference.Type.TYPE_EXTENDED;
 import static com.github.jsonschemadiff.diff.Difference.Type.TYPE_NARROWED;
+import static com.github.jsonschemadiff.schema.NumberSchema.Limit.EXCLUSIVE_MAXIMUM;
+import static com.github.jsonschemadiff.schema.NumberSchema.Limit.EXCLUSIVE_MINIMUM;
+import static com.github.jsonschemadiff.schema.NumberSchema.Limit.MAXIMUM;
+import static com.github.jsonschemadiff.schema.NumberSchema.Limit.MINIMUM;
+import static com.github.jsonschemadiff.schema.NumberSchema.Limit.MULTIPLE_OF;
 
 class NumberSchemaDiff {
 
   static void compare(final Context ctx, final NumberSchema original, final NumberSchema update) {
-    BigDecimal origMax = toBigDecimal(original.getMaximum());
-    BigDecimal updMax = toBigDecimal(update.getMaximum());
-    if (!Objects.equals(origMax, updMax)) {
-      if (origMax == null) {
+    if (!sameLimit(original, update, MAXIMUM)) {
+      if (!original.hasLimit(MAXIMUM)) {
         ctx.addDifference("maximum", MAXIMUM_ADDED);
-      } else if (updMax == null) {
+      } else if (!update.hasLimit(MAXIMUM)) {
         ctx.addDifference("maximum", MAXIMUM_REMOVED);
-      } else if (origMax.compareTo(updMax) < 0) {
+      } else if (compareLimit(original, update, MAXIMUM) < 0) {
         ctx.addDifference("maximum", MAXIMUM_INCREASED);
       } else {
         ctx.addDifference("maximum", MAXIMUM_DECREASED);
       }
     }
 
-    BigDecimal origMin = toBigDecimal(original.getMinimum());
-    BigDecimal updMin = toBigDecimal(update.getMinimum());
-    if (!Objects.equals(origMin, updMin)) {
-      if (origMin == null) {
+    if (!sameLimit(original, update, MINIMUM)) {
+      if (!original.hasLimit(MINIMUM)) {
         ctx.addDifference("minimum", MINIMUM_ADDED);
-      } else if (updMin == null) {
+      } else if (!update.hasLimit(MINIMUM)) {
         ctx.addDifference("minimum", MINIMUM_REMOVED);
-      } else if (origMin.compareTo(updMin) < 0) {
+      } else if (compareLimit(original, update, MINIMUM) < 0) {
         ctx.addDifference("minimum", MINIMUM_INCREASED);
       } else {
         ctx.addDifference("minimum", MINIMUM_DECREASED);
       }
     }
 
-    BigDecimal origExMax = toBigDecimal(original.getExclusiveMaximumLimit());
-    BigDecimal updExMax = toBigDecimal(update.getExclusiveMaximumLimit());
-    if (!Objects.equals(origExMax, updExMax)) {
-      if (origExMax == null) {
+    if (!sameLimit(original, update, EXCLUSIVE_MAXIMUM)) {
+      if (!original.hasLimit(EXCLUSIVE_MAXIMUM)) {
         ctx.addDifference("exclusiveMaximum", EXCLUSIVE_MAXIMUM_ADDED);
-      } else if (updExMax == null) {
+      } else if (!update.hasLimit(EXCLUSIVE_MAXIMUM)) {
         ctx.addDifference("exclusiveMaximum", EXCLUSIVE_MAXIMUM_REMOVED);
-      } else if (origExMax.compareTo(updExMax) < 0) {
+      } else if (compareLimit(original, update, EXCLUSIVE_MAXIMUM) < 0) {
         ctx.addDifference("exclusiveMaximum", EXCLUSIVE_MAXIMUM_INCREASED);
       } else {
         ctx.addDifference("exclusiveMaximum", EXCLUSIVE_MAXIMUM_DECREASED);
       }
     }
 
-    BigDecimal origExMin = toBigDecimal(original.getExclusiveMinimumLimit());
-    BigDecimal updExMin = toBigDecimal(update.getExclusiveMinimumLimit());
-    if (!Objects.equals(origExMin, updExMin)) {
-      if (origExMin == null) {
+    if (!sameLimit(original, update, EXCLUSIVE_MINIMUM)) {
+      if (!original.hasLimit(EXCLUSIVE_MINIMUM)) {
         ctx.addDifference("exclusiveMinimum", EXCLUSIVE_MINIMUM_ADDED);
-      } else if (updExMin == null) {
+      } else if (!update.hasLimit(EXCLUSIVE_MINIMUM)) {
         ctx.addDifference("exclusiveMinimum", EXCLUSIVE_MINIMUM_REMOVED);
-      } else if (origExMin.compareTo(updExMin) < 0) {
+      } else if (compareLimit(original, update, EXCLUSIVE_MINIMUM) < 0) {
         ctx.addDifference("exclusiveMinimum", EXCLUSIVE_MINIMUM_INCREASED);
       } else {
         ctx.addDifference("exclusiveMinimum", EXCLUSIVE_MINIMUM_DECREASED);
       }
     }
 
-    BigDecimal origMultipleOf = toBigDecimal(original.getMultipleOf());
-    BigDecimal updMultipleOf = toBigDecimal(update.getMultipleOf());
-    if (!Objects.equals(origMultipleOf, updMultipleOf)) {
+    if (!sameLimit(original, update, MULTIPLE_OF)) {
+      BigDecimal origMultipleOf = toBigDecimal(original.getMultipleOf());
+      BigDecimal updMultipleOf = toBigDecimal(update.getMultipleOf());
       if (origMultipleOf == null) {
         ctx.addDifference("multipleOf", MULTIPLE_OF_ADDED);
       } else if (updMultipleOf == null) {
@@ -117,6 +115,36 @@ class NumberSchemaDiff {
     }
   }
 
+  /**
+   * Whether the limit is absent from both schemas or equal in both. Integral
+   * limits are compared as {@code long}s and {@code double} limits as
+   * {@code double}s, without boxing; any other pair is compared as
+   * {@code BigDecimal}s (so {@code 5} and {@code 5.0} differ).
+   */
+  private static boolean sameLimit(NumberSchema original, NumberSchema update, Limit limit) {
+    if (original.isLongLimit(limit) && update.isLongLimit(limit)) {
+      return original.getLongLimit(limit) == update.getLongLimit(limit);
+    }
+    if (original.isDoubleLimit(limit) && update.isDoubleLimit(limit)) {
+      return original.getDoubleLimit(limit) == update.getDoubleLimit(limit);
+    }
+    return Objects.equals(
+        toBigDecimal(original.getLimit(limit)), toBigDecimal(update.getLimit(limit)));
+  }
+
+  /**
+   * Orders two present limits, with the same fast paths as {@link #sameLimit}.
+   */
+  private static int compareLimit(NumberSchema original, NumberSchema update, Limit limit) {
+    if (original.isLongLimit(limit) && update.isLongLimit(limit)) {
+      return Long.compare(original.getLongLimit(limit), update.getLongLimit(limit));
+    }
+    if (original.isDoubleLimit(limit) && update.isDoubleLimit(limit)) {
+      return Double.compare(original.getDoubleLimit(limit), update.getDoubleLimit(limit));
+    }
+    return toBigDecimal(original.getLimit(limit)).compareTo(toBigDecimal(update.getLimit(limit)));
+  }
+
   private static BigDecimal toBigDecimal(Number n) {
     if (n == null) return null;
     if (n instanceof BigDecimal) return (BigDecimal) n;
@@ -3,13 +3,13 @@ package com.github.jsonschemadiff.diff;
 import com.github.jsonschemadiff.schema.EmptySchema;
 import com.github.jsonschemadiff.schema.FalseSchema;
 import com.github.jsonschemadiff.schema.ObjectSchema;
+import com.github.jsonschemadiff.schema.PropertyTable;
 import com.github.jsonschemadiff.schema.Schema;
+import com.github.jsonschemadiff.utils.PatternCache;
 
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import static com.github.jsonschemadiff.diff.Difference.Type.ADDITIONAL_PROPERTIES_ADDED;
 import static com.github.jsonschemadiff.diff.Difference.Type.ADDITIONAL_PROPERTIES_EXTENDED;
@@ -58,12 +58,13 @@ class ObjectSchemaDiff {
 
   private static void compareAttributes(
       final Context ctx, final ObjectSchema original, final ObjectSchema update) {
-    Integer origMaxProps = original.getMaxProperties();
-    Integer updMaxProps = update.getMaxProperties();
-    if (!Objects.equals(origMaxProps, updMaxProps)) {
-      if (origMaxProps == null) {
+    int origMaxProps = original.getMaxPropertiesAsInt();
+    int updMaxProps = update.getMaxPropertiesAsInt();
+    if (original.hasMaxProperties() != update.hasMaxProperties()
+        || origMaxProps != updMaxProps) {
+      if (!original.hasMaxProperties()) {
         ctx.addDifference("maxProperties", MAX_PROPERTIES_ADDED);
-      } else if (updMaxProps == null) {
+      } else if (!update.hasMaxProperties()) {
         ctx.addDifference("maxProperties", MAX_PROPERTIES_REMOVED);
       } else if (origMaxProps < updMaxProps) {
         ctx.addDifference("maxProperties", MAX_PROPERTIES_INCREASED);
@@ -72,12 +73,13 @@ class ObjectSchemaDiff {
       }
     }
 
-    Integer origMinProps = original.getMinProperties();
-    Integer updMinProps = update.getMinProperties();
-    if (!Objects.equals(origMinProps, updMinProps)) {
-      if (origMinProps == null) {
+    int origMinProps = original.getMinPropertiesAsInt();
+    int updMinProps = update.getMinPropertiesAsInt();
+    if (original.hasMinProperties() != update.hasMinProperties()
+        || origMinProps != updMinProps) {
+      if (!original.hasMinProperties()) {
         ctx.addDifference("minProperties", MIN_PROPERTIES_ADDED);
-      } else if (updMinProps == null) {
+      } else if (!update.hasMinProperties()) {
         ctx.addDifference("minProperties", MIN_PROPERTIES_REMOVED);
       } else if (origMinProps < updMinProps) {
         ctx.addDifference("minProperties", MIN_PROPERTIES_INCREASED);
@@ -167,17 +169,18 @@ class ObjectSchemaDiff {
   private static void compareProperties(
       final Context ctx, final ObjectSchema original, final ObjectSchema update) {
     try (Context.PathScope pathScope = ctx.enterPath("properties")) {
-      Map<String, Schema> origProps = original.getPropertySchemas();
-      Map<String, Schema> updProps = update.getPropertySchemas();
-      Set<String> updRequired = update.getRequiredProperties();
+      PropertyTable origProps = original.getPropertyTable();
+      PropertyTable updProps = update.getPropertyTable();
 
-      Set<String> propertyKeys = new HashSet<>(origProps.keySet());
-      propertyKeys.addAll(updProps.keySet());
+      Set<String> propertyKeys = new HashSet<>(original.getPropertySchemas().keySet());
+      propertyKeys.addAll(update.getPropertySchemas().keySet());
 
       for (String propertyKey : propertyKeys) {
         try (Context.PathScope pathScope2 = ctx.enterPath(propertyKey)) {
-          Schema originalSchema = origProps.get(propertyKey);
-          Schema updateSchema = updProps.get(propertyKey);
+          int origIndex = origProps.indexOfName(propertyKey);
+          int updIndex = updProps.indexOfName(propertyKey);
+          Schema originalSchema = origIndex >= 0 ? origProps.schema(origIndex) : null;
+          Schema updateSchema = updIndex >= 0 ? updProps.schema(updIndex) : null;
           if (updateSchema == null) {
             if (isOpenContentModel(update)) {
               ctx.addDifference(PROPERTY_REMOVED_FROM_OPEN_CONTENT_MODEL);
@@ -185,8 +188,8 @@ class ObjectSchemaDiff {
               Schema schemaFromPartial = schemaFromPartiallyOpenContentModel(
                   update, propertyKey);
               if (schemaFromPartial != null) {
-                final Context subctx = ctx.getSubcontext();
-                SchemaDiff.compare(subctx, originalSchema, schemaFromPartial);
+                final Context subctx =
+                    SchemaDiff.compareInSubcontext(ctx, originalSchema, schemaFromPartial);
                 ctx.addDifferences(subctx.getDifferences());
                 if (subctx.isCompatible()) {
                   ctx.addDifference(
@@ -214,8 +217,8 @@ class ObjectSchemaDiff {
               Schema schemaFromPartial = schemaFromPartiallyOpenContentModel(
                   original, propertyKey);
               if (schemaFromPartial != null) {
-                final Context subctx = ctx.getSubcontext();
-                SchemaDiff.compare(subctx, schemaFromPartial, updateSchema);
+                final Context subctx =
+                    SchemaDiff.compareInSubcontext(ctx, schemaFromPartial, updateSchema);
                 ctx.addDifferences(subctx.getDifferences());
                 if (subctx.isCompatible()) {
                   ctx.addDifference(
@@ -225,7 +228,7 @@ class ObjectSchemaDiff {
                       PROPERTY_ADDED_NOT_COVERED_BY_PARTIALLY_OPEN_CONTENT_MODEL);
                 }
               }
-              if (updRequired.contains(propertyKey)) {
+              if (updProps.isRequired(updIndex)) {
                 if (updateSchema.hasDefaultValue()) {
                   ctx.addDifference(
                       REQUIRED_PROPERTY_WITH_DEFAULT_ADDED_TO_UNOPEN_CONTENT_MODEL);
@@ -247,25 +250,33 @@ class ObjectSchemaDiff {
   private static void compareRequired(
       final Context ctx, final ObjectSchema original, final ObjectSchema update) {
     try (Context.PathScope pathScope = ctx.enterPath("required")) {
-      Map<String, Schema> origProps = original.getPropertySchemas();
-      Map<String, Schema> updProps = update.getPropertySchemas();
-      Set<String> origRequired = original.getRequiredProperties();
-      Set<String> updRequired = update.getRequiredProperties();
+      if (original.getRequiredProperties().isEmpty()
+          && update.getRequiredProperties().isEmpty()) {
+        return;
+      }
+      // Properties are matched by a binary search over names; required is a bit per property
+      PropertyTable origProps = original.getPropertyTable();
+      PropertyTable updProps = update.getPropertyTable();
 
-      for (String propertyKey : origProps.keySet()) {
-        if (updProps.containsKey(propertyKey)) {
-          try (Context.PathScope pathScope2 = ctx.enterPath(propertyKey)) {
-            boolean originalRequired = origRequired.contains(propertyKey);
-            boolean updateRequired = updRequired.contains(propertyKey);
-            if (originalRequired && !updateRequired) {
-              ctx.addDifference(REQUIRED_ATTRIBUTE_REMOVED);
-            } else if (!originalRequired && updateRequired) {
-              Schema updPropSchema = updProps.get(propertyKey);
-              if (updPropSchema != null && updPropSchema.hasDefaultValue()) {
-                ctx.addDifference(REQUIRED_ATTRIBUTE_WITH_DEFAULT_ADDED);
-              } else {
-                ctx.addDifference(REQUIRED_ATTRIBUTE_ADDED);
-              }
+      for (int i = 0; i < origProps.size(); i++) {
+        int j = updProps.indexOfName(origProps.name(i));
+        if (j < 0) {
+          continue;
+        }
+        boolean originalRequired = origProps.isRequired(i);
+        boolean updateRequired = updProps.isRequired(j);
+        if (originalRequired == updateRequired) {
+          continue;
+        }
+        try (Context.PathScope pathScope2 = ctx.enterPath(origProps.name(i))) {
+          if (originalRequired) {
+            ctx.addDifference(REQUIRED_ATTRIBUTE_REMOVED);
+          } else {
+            Schema updPropSchema = updProps.schema(j);
+            if (updPropSchema != null && updPropSchema.hasDefaultValue()) {
+              ctx.addDifference(REQUIRED_ATTRIBUTE_WITH_DEFAULT_ADDED);
+            } else {
+              ctx.addDifference(REQUIRED_ATTRIBUTE_ADDED);
             }
           }
         }
@@ -274,16 +285,16 @@ class ObjectSchemaDiff {
   }
 
   private static boolean isOpenContentModel(ObjectSchema schema) {
-    return schema.getPatternProperties().isEmpty()
+    return schema.getPatternPropertySchemas().isEmpty()
         && schema.getSchemaOfAdditionalProperties() == null
         && schema.permitsAdditionalProperties();
   }
 
   private static Schema schemaFromPartiallyOpenContentModel(
       final ObjectSchema schema, final String propertyKey) {
-    Map<Pattern, Schema> patternProps = schema.getPatternProperties();
-    for (Map.Entry<Pattern, Schema> entry : patternProps.entrySet()) {
-      if (entry.getKey().matcher(propertyKey).find()) {
+    Map<String, Schema> patternProps = schema.getPatternPropertySchemas();
+    for (Map.Entry<String, Schema> entry : patternProps.entrySet()) {
+      if (PatternCache.compile(entry.getKey()).matcher(propertyKey).find()) {
         return entry.getValue();
       }
     }
@@ -0,0 +1,106 @@
+package com.github.jsonschemadiff.diff;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A JSON path in the trie of the paths a comparison has entered. Each path is
+ * one node, shared by every scope that enters it and every {@link Difference}
+ * reported at it, so entering a path seen before allocates nothing. The
+ * rendered string is built once, when it is first asked for.
+ *
+ * A trie belongs to one top-level {@link Context} and its subcontexts, which
+ * run on one thread; it grows with the distinct paths of that comparison only.
+ */
+final class PathNode {
+
+  private static final String ROOT = "#/";
+
+  final String name;
+  final PathNode parent;
+  private Map<String, PathNode> children;
+  private PathNode[] indexed;
+  private String rendered;
+
+  private PathNode(String name, PathNode parent) {
+    this.name = name;
+    this.parent = parent;
+  }
+
+  static PathNode root() {
+    return new PathNode(null, null);
+  }
+
+  boolean isRoot() {
+    return parent == null;
+  }
+
+  PathNode child(String name) {
+    if (children == null) {
+      children = new HashMap<>();
+    }
+    PathNode child = children.get(name);
+    if (child == null) {
+      child = new PathNode(name, this);
+      children.put(name, child);
+    }
+    return child;
+  }
+
+  /**
+   * The child {@code name/index}, for an array or subschema position. It is
+   * one node, kept by position under the child {@code name}, so that entering
+   * it again builds no string and leaving it is one step back.
+   */
+  PathNode child(String name, int index) {
+    PathNode holder = child(name);
+    PathNode[] positions = holder.indexed;
+    if (positions == null || index >= positions.length) {
+      int length = positions == null ? 4 : positions.length * 2;
+      positions = positions == null
+          ? new PathNode[Math.max(index + 1, length)]
+          : Arrays.copyOf(positions, Math.max(index + 1, length));
+      holder.indexed = positions;
+    }
+    PathNode child = positions[index];
+    if (child == null) {
+      child = new PathNode(name + "/" + index, this);
+      positions[index] = child;
+    }
+    return child;
+  }
+
+  /**
+   * The node {@code relative} (a rendered path such as {@code #/a/b}) below
+   * this one.
+   */
+  PathNode resolve(String relative) {
+    PathNode node = this;
+    int start = ROOT.length();
+    while (start < relative.length()) {
+      int end = relative.indexOf('/', start);
+      if (end < 0) {
+        end = relative.length();
+      }
+      node = node.child(relative.substring(start, end));
+      start = end + 1;
+    }
+    return node;
+  }
+
+  String render() {
+    String result = rendered;
+    if (result == null) {
+      if (parent == null) {
+        result = ROOT;
+      } else if (parent.parent == null) {
+        result = ROOT + name;
+      } else {
+        result = parent.render() + "/" + name;
+      }
+      rendered = result;
+    }
+    return result;
+  }
+}
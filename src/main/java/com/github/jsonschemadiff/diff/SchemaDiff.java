@@ -12,11 +12,16 @@ import com.github.jsonschemadiff.schema.FalseSchema;
 import com.github.jsonschemadiff.schema.NotSchema;
 import com.github.jsonschemadiff.schema.NumberSchema;
 import com.github.jsonschemadiff.schema.ObjectSchema;
+import com.github.jsonschemadiff.schema.ReferenceSchema;
 import com.github.jsonschemadiff.schema.Schema;
 import com.github.jsonschemadiff.schema.JsonSchemaVersion;
 import com.github.jsonschemadiff.schema.SchemaLoader;
 import com.github.jsonschemadiff.schema.StringSchema;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -116,7 +121,17 @@ public class SchemaDiff {
 
   public static List<Difference> compare(
       Set<Difference.Type> compatibleChanges, final Schema original, final Schema update) {
-    final Context ctx = new Context(compatibleChanges);
+    return compare(compatibleChanges, original, update, new DiffCache());
+  }
+
+  /**
+   * Compares through {@code cache}, which can be shared by calls (also
+   * concurrent ones) that compare overlapping schemas, such as successive
+   * versions of one schema.
+   */
+  public static List<Difference> compare(Set<Difference.Type> compatibleChanges,
+      final Schema original, final Schema update, DiffCache cache) {
+    final Context ctx = new Context(compatibleChanges, cache);
     compare(ctx, original, update);
     return ctx.getDifferences();
   }
@@ -125,6 +140,41 @@ public class SchemaDiff {
     return compare(COMPATIBLE_CHANGES_STRICT, original, update);
   }
 
+  /**
+   * Whether every difference between {@code original} and {@code update} is in
+   * {@code compatibleChanges}. The comparison stops at the first one that is
+   * not, so a rejected update costs far less than {@link #compare}.
+   */
+  public static boolean isCompatible(
+      Set<Difference.Type> compatibleChanges, final Schema original, final Schema update) {
+    return findIncompatibleDifference(compatibleChanges, original, update) == null;
+  }
+
+  /**
+   * The first difference between {@code original} and {@code update} that is
+   * not in {@code compatibleChanges}, or {@code null} if they are compatible.
+   * The comparison stops there.
+   */
+  public static Difference findIncompatibleDifference(
+      Set<Difference.Type> compatibleChanges, final Schema original, final Schema update) {
+    return findIncompatibleDifference(compatibleChanges, original, update, new DiffCache());
+  }
+
+  /**
+   * Like {@link #findIncompatibleDifference(Set, Schema, Schema)}, through
+   * {@code cache}; see {@link #compare(Set, Schema, Schema, DiffCache)}.
+   */
+  public static Difference findIncompatibleDifference(Set<Difference.Type> compatibleChanges,
+      final Schema original, final Schema update, DiffCache cache) {
+    final Context ctx = new Context(compatibleChanges, cache, true);
+    try {
+      compare(ctx, original, update);
+    } catch (Context.Incompatible e) {
+      return e.getDifference();
+    }
+    return null;
+  }
+
   // Convenience: accept JsonNode and parse via SchemaLoader
   public static List<Difference> compare(
       Set<Difference.Type> compatibleChanges, final JsonNode original, final JsonNode update) {
@@ -147,6 +197,26 @@ public class SchemaDiff {
     }
   }
 
+  // Convenience: bytes, buffers, streams and files, parsed without decoding to a String
+
+  public static List<Difference> compare(final byte[] original, final byte[] update) {
+    return compare(SchemaLoader.load(original), SchemaLoader.load(update));
+  }
+
+  public static List<Difference> compare(final ByteBuffer original, final ByteBuffer update) {
+    return compare(SchemaLoader.load(original), SchemaLoader.load(update));
+  }
+
+  public static List<Difference> compare(final InputStream original, final InputStream update)
+      throws IOException {
+    return compare(SchemaLoader.load(original), SchemaLoader.load(update));
+  }
+
+  public static List<Difference> compare(final Path original, final Path update)
+      throws IOException {
+    return compare(SchemaLoader.load(original), SchemaLoader.load(update));
+  }
+
   // --- Version-aware overloads ---
 
   public static List<Difference> compare(
@@ -201,6 +271,10 @@ public class SchemaDiff {
       return;
     }
 
+    if (isUnchanged(original, update)) {
+      return;
+    }
+
     // Handle combined vs non-combined asymmetry
     boolean origIsCombined = original instanceof CombinedSchema;
     boolean updIsCombined = update instanceof CombinedSchema;
@@ -209,8 +283,7 @@ public class SchemaDiff {
       CombinedSchema updCombined = (CombinedSchema) update;
       List<Schema> updateSubs = new ArrayList<>(updCombined.getSubschemas());
       if (updateSubs.size() == 1) {
-        final Context subctx = ctx.getSubcontext();
-        compare(subctx, original, updateSubs.get(0));
+        final Context subctx = compareInSubcontext(ctx, original, updateSubs.get(0));
         if (subctx.isCompatible()) {
           ctx.addDifferences(subctx.getDifferences());
           return;
@@ -220,8 +293,7 @@ public class SchemaDiff {
         if (criterion == CombinedSchema.ANY_CRITERION
             || criterion == CombinedSchema.ONE_CRITERION) {
           for (Schema subschema : updateSubs) {
-            final Context subctx = ctx.getSubcontext();
-            compare(subctx, original, subschema);
+            final Context subctx = compareInSubcontext(ctx, original, subschema);
             if (subctx.isCompatible()) {
               ctx.addDifferences(subctx.getDifferences());
               ctx.addDifference(Type.SUM_TYPE_EXTENDED);
@@ -234,8 +306,7 @@ public class SchemaDiff {
       CombinedSchema origCombined = (CombinedSchema) original;
       List<Schema> originalSubs = new ArrayList<>(origCombined.getSubschemas());
       if (originalSubs.size() == 1) {
-        final Context subctx = ctx.getSubcontext();
-        compare(subctx, originalSubs.get(0), update);
+        final Context subctx = compareInSubcontext(ctx, originalSubs.get(0), update);
         if (subctx.isCompatible()) {
           ctx.addDifferences(subctx.getDifferences());
           return;
@@ -243,8 +314,7 @@ public class SchemaDiff {
       }
       if (origCombined.getCriterion() == CombinedSchema.ALL_CRITERION) {
         for (Schema subschema : originalSubs) {
-          final Context subctx = ctx.getSubcontext();
-          compare(subctx, subschema, update);
+          final Context subctx = compareInSubcontext(ctx, subschema, update);
           if (subctx.isCompatible()) {
             ctx.addDifferences(subctx.getDifferences());
             ctx.addDifference(Type.PRODUCT_TYPE_NARROWED);
@@ -254,6 +324,12 @@ public class SchemaDiff {
       }
     }
 
+    // Follow recursive references to their already-built targets. This happens
+    // after the routing above so that a reference cannot re-enter it forever;
+    // target identity lets enterSchema() stop the walk once the cycle closes.
+    original = dereference(original);
+    update = dereference(update);
+
     if (!schemaTypesEqual(original, update)) {
       if (original instanceof FalseSchema || update instanceof EmptySchema) {
         return;
@@ -269,7 +345,7 @@ public class SchemaDiff {
       return;
     }
 
-    try (Context.SchemaScope schemaScope = ctx.enterSchema(original)) {
+    try (Context.SchemaScope schemaScope = ctx.enterSchema(original, mayHoldReferences(original))) {
       if (schemaScope != null) {
         if (!Objects.equals(original.getId(), update.getId())) {
           ctx.addDifference(Type.ID_CHANGED);
@@ -305,6 +381,81 @@ public class SchemaDiff {
     }
   }
 
+  /**
+   * Whether {@code update} is {@code original} or has the same structure, so
+   * that comparing them would find no differences. Unequal subtrees almost
+   * always differ in their structural hashes, so this costs a full walk only
+   * for subtrees that it then skips. A subtree holding a reference is skipped
+   * only if it is the same instance, as equal references may lead to
+   * different targets, and so is one not hashed yet.
+   */
+  private static boolean isUnchanged(Schema original, Schema update) {
+    if (original == update) {
+      return true;
+    }
+    return !mayHoldReferences(original)
+        && update.isStructuralHashComputed()
+        && original.getStructuralHash() == update.getStructuralHash()
+        && original.equals(update);
+  }
+
+  /**
+   * Whether {@code schema} may hold a reference or a cycle. One not hashed yet,
+   * i.e. loaded lazily, is assumed to: hashing it to find out would build the
+   * whole lazy subtree, however little of it the comparison reaches.
+   */
+  static boolean mayHoldReferences(Schema schema) {
+    return !schema.isStructuralHashComputed() || schema.hasReferences();
+  }
+
+  /**
+   * Compares {@code original} with {@code update} in a new subcontext of
+   * {@code ctx}, taking the result from the context's {@link DiffCache} when
+   * the pair has been compared before.
+   */
+  static Context compareInSubcontext(final Context ctx, Schema original, Schema update) {
+    final Context subctx = ctx.getSubcontext();
+    DiffCache cache = ctx.getCache();
+    if (cache == null || !DiffCache.accepts(original, update)) {
+      compareToEnd(subctx, original, update);
+      return subctx;
+    }
+    Set<Difference.Type> compatibleChanges = ctx.getCompatibleChanges();
+    DiffCache.Result cached = cache.get(compatibleChanges, original, update);
+    if (cached != null) {
+      subctx.addCachedResult(cached);
+      return subctx;
+    }
+    if (compareToEnd(subctx, original, update)) {
+      cache.put(compatibleChanges, original, update,
+          new DiffCache.Result(subctx.getRelativeDifferences(), subctx.isCompatible()));
+    }
+    return subctx;
+  }
+
+  /**
+   * Compares in {@code subctx}, returning whether the comparison ran to the
+   * end. A fail-fast subcontext that stops at an incompatible difference keeps
+   * the differences found so far; it is incompatible either way, and it is up
+   * to its caller whether that ends the comparison of the parent.
+   */
+  private static boolean compareToEnd(final Context subctx, Schema original, Schema update) {
+    try {
+      compare(subctx, original, update);
+      return true;
+    } catch (Context.Incompatible e) {
+      return false;
+    }
+  }
+
+  private static Schema dereference(Schema schema) {
+    if (schema instanceof ReferenceSchema) {
+      Schema referred = ((ReferenceSchema) schema).getReferredSchema();
+      return referred != null ? referred : schema;
+    }
+    return schema;
+  }
+
   private static boolean schemaTypesEqual(Schema s1, Schema s2) {
     if (s1 instanceof CombinedSchema && s2 instanceof CombinedSchema) {
       return true;
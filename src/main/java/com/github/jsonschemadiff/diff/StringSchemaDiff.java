@@ -2,8 +2,6 @@ package com.github.jsonschemadiff.diff;
 
 import com.github.jsonschemadiff.schema.StringSchema;
 
-import java.util.Objects;
-
 import static com.github.jsonschemadiff.diff.Difference.Type.MAX_LENGTH_ADDED;
 import static com.github.jsonschemadiff.diff.Difference.Type.MAX_LENGTH_DECREASED;
 import static com.github.jsonschemadiff.diff.Difference.Type.MAX_LENGTH_INCREASED;
@@ -19,12 +17,12 @@ import static com.github.jsonschemadiff.diff.Difference.Type.PATTERN_REMOVED;
 class StringSchemaDiff {
 
   static void compare(final Context ctx, final StringSchema original, final StringSchema update) {
-    Integer origMaxLength = original.getMaxLength();
-    Integer updMaxLength = update.getMaxLength();
-    if (!Objects.equals(origMaxLength, updMaxLength)) {
-      if (origMaxLength == null) {
+    int origMaxLength = original.getMaxLengthAsInt();
+    int updMaxLength = update.getMaxLengthAsInt();
+    if (original.hasMaxLength() != update.hasMaxLength() || origMaxLength != updMaxLength) {
+      if (!original.hasMaxLength()) {
         ctx.addDifference("maxLength", MAX_LENGTH_ADDED);
-      } else if (updMaxLength == null) {
+      } else if (!update.hasMaxLength()) {
         ctx.addDifference("maxLength", MAX_LENGTH_REMOVED);
       } else if (origMaxLength < updMaxLength) {
         ctx.addDifference("maxLength", MAX_LENGTH_INCREASED);
@@ -33,12 +31,12 @@ class StringSchemaDiff {
       }
     }
 
-    Integer origMinLength = original.getMinLength();
-    Integer updMinLength = update.getMinLength();
-    if (!Objects.equals(origMinLength, updMinLength)) {
-      if (origMinLength == null) {
+    int origMinLength = original.getMinLengthAsInt();
+    int updMinLength = update.getMinLengthAsInt();
+    if (original.hasMinLength() != update.hasMinLength() || origMinLength != updMinLength) {
+      if (!original.hasMinLength()) {
         ctx.addDifference("minLength", MIN_LENGTH_ADDED);
-      } else if (updMinLength == null) {
+      } else if (!update.hasMinLength()) {
         ctx.addDifference("minLength", MIN_LENGTH_REMOVED);
       } else if (origMinLength < updMinLength) {
         ctx.addDifference("minLength", MIN_LENGTH_INCREASED);
@@ -47,8 +45,8 @@ class StringSchemaDiff {
       }
     }
 
-    String origPattern = original.getPattern() != null ? original.getPattern().pattern() : null;
-    String updPattern = update.getPattern() != null ? update.getPattern().pattern() : null;
+    String origPattern = original.getPatternString();
+    String updPattern = update.getPatternString();
     if (origPattern == null && updPattern != null) {
       ctx.addDifference("pattern", PATTERN_ADDED);
     } else if (origPattern != null && updPattern == null) {
@@ -2,32 +2,58 @@ package com.github.jsonschemadiff.schema;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * Limits and flags are stored as primitives with a presence bitmask; the boxed
+ * getters return {@code null} for an absent limit.
+ */
 public class ArraySchema extends Schema {
 
-  private final Schema allItemSchema;
+  private static final byte PERMITS_ADDITIONAL_ITEMS = 1;
+  private static final byte NEEDS_UNIQUE_ITEMS = 2;
+  private static final byte MAX_ITEMS = 4;
+  private static final byte MIN_ITEMS = 8;
+
+  // Schema, or Lazy<Schema> in lazy mode
+  private final Object allItemSchema;
   private final List<Schema> itemSchemas;
-  private final boolean permitsAdditionalItems;
-  private final Schema schemaOfAdditionalItems;
-  private final Integer maxItems;
-  private final Integer minItems;
-  private final boolean needsUniqueItems;
+  // Schema, or Lazy<Schema> in lazy mode
+  private final Object schemaOfAdditionalItems;
+  private final int maxItems;
+  private final int minItems;
+  private final byte flags;
 
   private ArraySchema(Builder builder) {
     super(builder);
-    this.allItemSchema = builder.allItemSchema;
-    this.itemSchemas = builder.itemSchemas != null
-        ? Collections.unmodifiableList(builder.itemSchemas)
-        : null;
-    this.permitsAdditionalItems = builder.permitsAdditionalItems;
-    this.schemaOfAdditionalItems = builder.schemaOfAdditionalItems;
-    this.maxItems = builder.maxItems;
-    this.minItems = builder.minItems;
-    this.needsUniqueItems = builder.needsUniqueItems;
+    this.allItemSchema = builder.lazyAllItemSchema != null
+        ? builder.lazyAllItemSchema
+        : builder.allItemSchema;
+    if (builder.lazyItemSchemas != null) {
+      this.itemSchemas = new LazySchemaList(builder.lazyItemSchemas);
+    } else {
+      this.itemSchemas = builder.itemSchemas != null
+          ? Collections.unmodifiableList(builder.itemSchemas)
+          : null;
+    }
+    this.schemaOfAdditionalItems = builder.lazySchemaOfAdditionalItems != null
+        ? builder.lazySchemaOfAdditionalItems
+        : builder.schemaOfAdditionalItems;
+    this.maxItems = builder.maxItems != null ? builder.maxItems : 0;
+    this.minItems = builder.minItems != null ? builder.minItems : 0;
+    this.flags = (byte) ((builder.permitsAdditionalItems ? PERMITS_ADDITIONAL_ITEMS : 0)
+        | (builder.needsUniqueItems ? NEEDS_UNIQUE_ITEMS : 0)
+        | (builder.maxItems != null ? MAX_ITEMS : 0)
+        | (builder.minItems != null ? MIN_ITEMS : 0));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Schema resolve(Object value) {
+    return value instanceof Lazy ? ((Lazy<Schema>) value).get() : (Schema) value;
   }
 
   public Schema getAllItemSchema() {
-    return allItemSchema;
+    return resolve(allItemSchema);
   }
 
   public List<Schema> getItemSchemas() {
@@ -35,23 +61,65 @@ public class ArraySchema extends Schema {
   }
 
   public boolean permitsAdditionalItems() {
-    return permitsAdditionalItems;
+    return (flags & PERMITS_ADDITIONAL_ITEMS) != 0;
   }
 
   public Schema getSchemaOfAdditionalItems() {
-    return schemaOfAdditionalItems;
+    return resolve(schemaOfAdditionalItems);
   }
 
   public Integer getMaxItems() {
-    return maxItems;
+    return hasMaxItems() ? Integer.valueOf(maxItems) : null;
   }
 
   public Integer getMinItems() {
+    return hasMinItems() ? Integer.valueOf(minItems) : null;
+  }
+
+  public boolean hasMaxItems() {
+    return (flags & MAX_ITEMS) != 0;
+  }
+
+  public boolean hasMinItems() {
+    return (flags & MIN_ITEMS) != 0;
+  }
+
+  /**
+   * {@code maxItems}, or 0 if it is absent.
+   */
+  public int getMaxItemsAsInt() {
+    return maxItems;
+  }
+
+  /**
+   * {@code minItems}, or 0 if it is absent.
+   */
+  public int getMinItemsAsInt() {
     return minItems;
   }
 
   public boolean needsUniqueItems() {
-    return needsUniqueItems;
+    return (flags & NEEDS_UNIQUE_ITEMS) != 0;
+  }
+
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(flags).add(maxItems).add(minItems)
+        .add(getAllItemSchema())
+        .addAll(itemSchemas)
+        .add(getSchemaOfAdditionalItems());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    ArraySchema that = (ArraySchema) o;
+    return flags == that.flags
+        && maxItems == that.maxItems
+        && minItems == that.minItems
+        && Objects.equals(getAllItemSchema(), that.getAllItemSchema())
+        && Objects.equals(itemSchemas, that.itemSchemas)
+        && Objects.equals(getSchemaOfAdditionalItems(), that.getSchemaOfAdditionalItems());
   }
 
   public static Builder builder() {
@@ -66,6 +134,10 @@ public class ArraySchema extends Schema {
     private Integer maxItems;
     private Integer minItems;
     private boolean needsUniqueItems;
+    // Lazy-mode children, used by SchemaLoader instead of (never alongside) the above
+    private Lazy<Schema> lazyAllItemSchema;
+    private List<Lazy<Schema>> lazyItemSchemas;
+    private Lazy<Schema> lazySchemaOfAdditionalItems;
 
     public Builder allItemSchema(Schema schema) {
       this.allItemSchema = schema;
@@ -102,6 +174,21 @@ public class ArraySchema extends Schema {
       return this;
     }
 
+    Builder allItemSchema(Lazy<Schema> schema) {
+      this.lazyAllItemSchema = schema;
+      return this;
+    }
+
+    Builder lazyItemSchemas(List<Lazy<Schema>> schemas) {
+      this.lazyItemSchemas = schemas;
+      return this;
+    }
+
+    Builder schemaOfAdditionalItems(Lazy<Schema> schema) {
+      this.lazySchemaOfAdditionalItems = schema;
+      return this;
+    }
+
     public ArraySchema build() {
       return new ArraySchema(this);
     }
@@ -0,0 +1,224 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads many schema files concurrently, e.g. every {@code *.json} file of a
+ * schema repository. Reading, parsing and {@link Schema} construction for each
+ * file run as one task on a thread pool; a file that fails to load is reported
+ * in {@link Result#getErrors()} and does not affect the others.
+ *
+ * A directory is walked recursively and its schemas are named by their path
+ * relative to it, with {@code /} separators. A {@code .zip} or {@code .jar}
+ * archive is treated like a directory. Individual files are named by their path
+ * as given.
+ */
+public class BulkSchemaLoader {
+
+  private final int parallelism;
+  private final ExecutorService executor;
+  private final String suffix;
+  private final JsonSchemaVersion version;
+  private final SchemaInterner interner;
+
+  private BulkSchemaLoader(Builder builder) {
+    this.parallelism = builder.parallelism;
+    this.executor = builder.executor;
+    this.suffix = builder.suffix;
+    this.version = builder.version;
+    this.interner = builder.interner;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Loads every matching file under {@code root}, a directory or a zip archive.
+   * Any other regular file is loaded on its own.
+   */
+  public Result load(Path root) throws IOException {
+    if (Files.isRegularFile(root) && !isArchive(root)) {
+      return load(Collections.singletonList(root));
+    }
+    if (Files.isRegularFile(root)) {
+      try (FileSystem archive = FileSystems.newFileSystem(root, (ClassLoader) null)) {
+        List<Path> roots = new ArrayList<>();
+        archive.getRootDirectories().forEach(roots::add);
+        Map<String, Path> files = new LinkedHashMap<>();
+        for (Path dir : roots) {
+          files.putAll(collect(dir));
+        }
+        return load(files);
+      }
+    }
+    return load(collect(root));
+  }
+
+  /**
+   * Loads the given files, each named by its path as given.
+   */
+  public Result load(Collection<Path> files) {
+    Map<String, Path> named = new LinkedHashMap<>();
+    for (Path file : files) {
+      named.put(file.toString(), file);
+    }
+    return load(named);
+  }
+
+  private Map<String, Path> collect(Path root) throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      return paths
+          .filter(Files::isRegularFile)
+          .filter(p -> p.getFileName().toString().endsWith(suffix))
+          .sorted()
+          .collect(Collectors.toMap(
+              p -> root.relativize(p).toString().replace(p.getFileSystem().getSeparator(), "/"),
+              p -> p,
+              (a, b) -> a,
+              LinkedHashMap::new));
+    }
+  }
+
+  private Result load(Map<String, Path> files) {
+    ExecutorService pool = executor != null ? executor : Executors.newFixedThreadPool(
+        Math.max(1, Math.min(parallelism, files.size())));
+    try {
+      Map<String, Future<Schema>> futures = new LinkedHashMap<>();
+      for (Map.Entry<String, Path> file : files.entrySet()) {
+        futures.put(file.getKey(), pool.submit(() -> loadFile(file.getValue())));
+      }
+
+      SortedMap<String, Schema> schemas = new TreeMap<>();
+      SortedMap<String, Exception> errors = new TreeMap<>();
+      for (Map.Entry<String, Future<Schema>> future : futures.entrySet()) {
+        try {
+          schemas.put(future.getKey(), future.getValue().get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          errors.put(future.getKey(), (Exception) cause);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          futures.values().forEach(f -> f.cancel(true));
+          throw new IllegalStateException("Interrupted while loading schemas", e);
+        }
+      }
+      return new Result(schemas, errors);
+    } finally {
+      if (executor == null) {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  private Schema loadFile(Path file) throws IOException {
+    JsonNode node = SchemaLoader.readTree(file);
+    if (node == null) {
+      throw new IOException("Empty schema file: " + file);
+    }
+    return SchemaLoader.builder(node).version(version).interner(interner).build().load();
+  }
+
+  private static boolean isArchive(Path file) {
+    String name = file.getFileName().toString();
+    return name.endsWith(".zip") || name.endsWith(".jar");
+  }
+
+  public static class Result {
+    private final SortedMap<String, Schema> schemas;
+    private final SortedMap<String, Exception> errors;
+
+    Result(SortedMap<String, Schema> schemas, SortedMap<String, Exception> errors) {
+      this.schemas = Collections.unmodifiableSortedMap(schemas);
+      this.errors = Collections.unmodifiableSortedMap(errors);
+    }
+
+    /**
+     * Successfully loaded schemas by name, in name order.
+     */
+    public SortedMap<String, Schema> getSchemas() {
+      return schemas;
+    }
+
+    /**
+     * The failure of each file that could not be read or loaded, by name.
+     */
+    public SortedMap<String, Exception> getErrors() {
+      return errors;
+    }
+  }
+
+  public static class Builder {
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor;
+    private String suffix = ".json";
+    private JsonSchemaVersion version;
+    private SchemaInterner interner;
+
+    /**
+     * Number of threads in the pool created for each load; defaults to the
+     * number of available processors.
+     */
+    public Builder parallelism(int parallelism) {
+      if (parallelism <= 0) {
+        throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+      }
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Runs the load tasks on {@code executor} instead of a pool of its own. The
+     * executor is not shut down.
+     */
+    public Builder executor(ExecutorService executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * File name suffix of schema files when walking a directory; defaults to {@code .json}.
+     */
+    public Builder suffix(String suffix) {
+      this.suffix = suffix;
+      return this;
+    }
+
+    public Builder version(JsonSchemaVersion version) {
+      this.version = version;
+      return this;
+    }
+
+    public Builder interner(SchemaInterner interner) {
+      this.interner = interner;
+      return this;
+    }
+
+    public BulkSchemaLoader build() {
+      return new BulkSchemaLoader(this);
+    }
+  }
+}
@@ -34,12 +34,24 @@ public class CombinedSchema extends Schema {
 
   private final ValidationCriterion criterion;
   private final Set<Schema> subschemas;
+  // In lazy mode, the subschemas as loaded and the set built from them
+  private final Lazy<Collection<Schema>> lazyList;
+  private final Lazy<Set<Schema>> lazySubschemas;
 
   private CombinedSchema(Builder builder) {
     super(builder);
     this.criterion = builder.criterion;
-    this.subschemas = builder.subschemas != null
-        ? Collections.unmodifiableSet(new LinkedHashSet<>(builder.subschemas))
+    Lazy<Collection<Schema>> lazy = builder.lazySubschemas;
+    this.subschemas = lazy == null ? subschemaSet(builder.subschemas) : null;
+    this.lazyList = lazy;
+    this.lazySubschemas = lazy != null
+        ? new Lazy<>(lazy.lock(), () -> subschemaSet(lazy.get()))
+        : null;
+  }
+
+  private static Set<Schema> subschemaSet(Collection<Schema> subschemas) {
+    return subschemas != null
+        ? Collections.unmodifiableSet(new LinkedHashSet<>(subschemas))
         : Collections.emptySet();
   }
 
@@ -48,7 +60,25 @@ public class CombinedSchema extends Schema {
   }
 
   public Collection<Schema> getSubschemas() {
-    return subschemas;
+    return lazySubschemas != null ? lazySubschemas.get() : subschemas;
+  }
+
+  /**
+   * Hashes the subschemas as a set, from the list they were loaded as when
+   * the set is built lazily: building the set hashes the subschemas, and a
+   * subschema may lead back to this one.
+   */
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(criterion.ordinal()).addSet(lazyList != null ? lazyList.get() : subschemas);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    CombinedSchema that = (CombinedSchema) o;
+    return criterion == that.criterion
+        && getSubschemas().equals(that.getSubschemas());
   }
 
   public static Builder builder() {
@@ -58,6 +88,7 @@ public class CombinedSchema extends Schema {
   public static class Builder extends Schema.Builder<Builder> {
     private ValidationCriterion criterion;
     private Collection<Schema> subschemas;
+    private Lazy<Collection<Schema>> lazySubschemas;
 
     public Builder criterion(ValidationCriterion criterion) {
       this.criterion = criterion;
@@ -69,6 +100,11 @@ public class CombinedSchema extends Schema {
       return this;
     }
 
+    Builder subschemas(Lazy<Collection<Schema>> subschemas) {
+      this.lazySubschemas = subschemas;
+      return this;
+    }
+
     public CombinedSchema build() {
       return new CombinedSchema(this);
     }
@@ -1,5 +1,7 @@
 package com.github.jsonschemadiff.schema;
 
+import java.util.Objects;
+
 public class ConstSchema extends Schema {
 
   private final Object permittedValue;
@@ -13,6 +15,17 @@ public class ConstSchema extends Schema {
     return permittedValue;
   }
 
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(permittedValue);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    return Objects.equals(permittedValue, ((ConstSchema) o).permittedValue);
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -0,0 +1,202 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The graph of {@code $ref}s between the top-level {@code definitions}/{@code $defs}
+ * of a document, used to load independent definitions in parallel.
+ *
+ * Only definitions whose whole reference closure is acyclic and made of whole
+ * definitions are scheduled: what a cyclic group loads to (where its
+ * {@link ReferenceSchema}s end up) depends on which member is reached first,
+ * and a reference into the middle of a definition may be shared with another
+ * task. Everything else is left to the sequential pass, so the loaded tree is
+ * the same as without preloading.
+ */
+final class DefinitionGraph {
+
+  private static final String[] CONTAINERS = {"definitions", "$defs"};
+
+  // Schedulable definitions in dependency order, with their resolved targets
+  private final Map<String, JsonNode> targets = new LinkedHashMap<>();
+  private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+  private DefinitionGraph() {
+  }
+
+  /**
+   * Scans {@code root}; {@code resolver} maps a definition pointer to the node a
+   * {@code $ref} to it loads, or {@code null} if the reference does not resolve,
+   * and {@code refPointer} maps a node to the pointer its reference resolves to.
+   */
+  static DefinitionGraph scan(JsonNode root, Function<String, JsonNode> resolver,
+      Function<JsonNode, String> refPointer) {
+    DefinitionGraph graph = new DefinitionGraph();
+    if (root == null || !root.isObject()) {
+      return graph;
+    }
+    Set<String> referenced = collectRefs(root, refPointer);
+
+    Map<String, JsonNode> candidates = new LinkedHashMap<>();
+    for (String container : CONTAINERS) {
+      JsonNode defs = root.get(container);
+      if (defs == null || !defs.isObject()) {
+        continue;
+      }
+      Iterator<String> names = defs.fieldNames();
+      while (names.hasNext()) {
+        String pointer = "/" + container + "/" + escape(names.next());
+        if (referenced.contains(pointer)) {
+          JsonNode target = resolver.apply(pointer);
+          if (target != null) {
+            candidates.put(pointer, target);
+          }
+        }
+      }
+    }
+
+    Map<String, Set<String>> edges = new HashMap<>();
+    Set<String> unsafe = new HashSet<>();
+    for (Map.Entry<String, JsonNode> candidate : candidates.entrySet()) {
+      Set<String> deps = new LinkedHashSet<>();
+      for (String ref : collectRefs(candidate.getValue(), refPointer)) {
+        if (candidates.containsKey(ref)) {
+          deps.add(ref);
+        } else {
+          unsafe.add(candidate.getKey());
+        }
+      }
+      edges.put(candidate.getKey(), deps);
+    }
+
+    // Components come out of Tarjan's algorithm dependencies-first
+    Set<String> safe = new HashSet<>();
+    for (List<String> component : stronglyConnectedComponents(candidates.keySet(), edges)) {
+      String pointer = component.get(0);
+      Set<String> deps = edges.get(pointer);
+      if (component.size() == 1 && !deps.contains(pointer)
+          && !unsafe.contains(pointer) && safe.containsAll(deps)) {
+        safe.add(pointer);
+        graph.targets.put(pointer, candidates.get(pointer));
+        graph.dependencies.put(pointer, deps);
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Schedulable definition pointers, each after all of its dependencies.
+   */
+  Set<String> pointers() {
+    return targets.keySet();
+  }
+
+  JsonNode target(String pointer) {
+    return targets.get(pointer);
+  }
+
+  Set<String> dependencies(String pointer) {
+    return dependencies.get(pointer);
+  }
+
+  private static Set<String> collectRefs(JsonNode root, Function<JsonNode, String> refPointer) {
+    Set<String> refs = new HashSet<>();
+    Deque<JsonNode> stack = new ArrayDeque<>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      JsonNode node = stack.pop();
+      String pointer = refPointer.apply(node);
+      if (pointer != null) {
+        refs.add(pointer);
+      }
+      for (JsonNode child : node) {
+        if (child.isContainerNode()) {
+          stack.push(child);
+        }
+      }
+    }
+    return refs;
+  }
+
+  private static String escape(String name) {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+
+  /**
+   * Iterative Tarjan; returns components in reverse topological order, i.e. every
+   * component after the components it depends on.
+   */
+  private static List<List<String>> stronglyConnectedComponents(
+      Set<String> vertices, Map<String, Set<String>> edges) {
+    Map<String, Integer> index = new HashMap<>();
+    Map<String, Integer> lowLink = new HashMap<>();
+    Deque<String> stack = new ArrayDeque<>();
+    Set<String> onStack = new HashSet<>();
+    List<List<String>> components = new ArrayList<>();
+
+    for (String start : vertices) {
+      if (index.containsKey(start)) {
+        continue;
+      }
+      Deque<String> callStack = new ArrayDeque<>();
+      Deque<Iterator<String>> iterators = new ArrayDeque<>();
+      visit(start, index, lowLink, stack, onStack);
+      callStack.push(start);
+      iterators.push(edges.get(start).iterator());
+
+      while (!callStack.isEmpty()) {
+        String v = callStack.peek();
+        Iterator<String> it = iterators.peek();
+        if (it.hasNext()) {
+          String w = it.next();
+          if (!index.containsKey(w)) {
+            visit(w, index, lowLink, stack, onStack);
+            callStack.push(w);
+            iterators.push(edges.get(w).iterator());
+          } else if (onStack.contains(w)) {
+            lowLink.put(v, Math.min(lowLink.get(v), index.get(w)));
+          }
+          continue;
+        }
+        callStack.pop();
+        iterators.pop();
+        if (!callStack.isEmpty()) {
+          String parent = callStack.peek();
+          lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(v)));
+        }
+        if (lowLink.get(v).equals(index.get(v))) {
+          List<String> component = new ArrayList<>();
+          String w;
+          do {
+            w = stack.pop();
+            onStack.remove(w);
+            component.add(w);
+          } while (!w.equals(v));
+          components.add(component);
+        }
+      }
+    }
+    return components;
+  }
+
+  private static void visit(String v, Map<String, Integer> index, Map<String, Integer> lowLink,
+      Deque<String> stack, Set<String> onStack) {
+    index.put(v, index.size());
+    lowLink.put(v, index.get(v));
+    stack.push(v);
+    onStack.add(v);
+  }
+}
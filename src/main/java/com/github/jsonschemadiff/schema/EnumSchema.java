@@ -19,6 +19,17 @@ public class EnumSchema extends Schema {
     return possibleValues;
   }
 
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(possibleValues);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    return possibleValues.equals(((EnumSchema) o).possibleValues);
+  }
+
   public static Builder builder() {
     return new Builder();
   }
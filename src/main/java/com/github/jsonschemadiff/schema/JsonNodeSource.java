@@ -0,0 +1,91 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A {@link SchemaSource} over a Jackson tree. {@link SchemaLoader} loads the
+ * wrapped node directly.
+ */
+final class JsonNodeSource implements SchemaSource {
+
+  private final JsonNode node;
+
+  JsonNodeSource(JsonNode node) {
+    this.node = node;
+  }
+
+  JsonNode node() {
+    return node;
+  }
+
+  @Override
+  public Kind kind() {
+    switch (node.getNodeType()) {
+      case OBJECT:
+      case POJO:
+        return Kind.OBJECT;
+      case ARRAY:
+        return Kind.ARRAY;
+      case STRING:
+      case BINARY:
+        return Kind.STRING;
+      case NUMBER:
+        return Kind.NUMBER;
+      case BOOLEAN:
+        return Kind.BOOLEAN;
+      default:
+        return Kind.NULL;
+    }
+  }
+
+  @Override
+  public int size() {
+    return node.size();
+  }
+
+  @Override
+  public Iterator<Map.Entry<String, SchemaSource>> fields() {
+    if (!node.isObject()) {
+      return Collections.emptyIterator();
+    }
+    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return fields.hasNext();
+      }
+
+      @Override
+      public Map.Entry<String, SchemaSource> next() {
+        Map.Entry<String, JsonNode> field = fields.next();
+        return new AbstractMap.SimpleImmutableEntry<>(
+            field.getKey(), new JsonNodeSource(field.getValue()));
+      }
+    };
+  }
+
+  @Override
+  public SchemaSource get(int index) {
+    return new JsonNodeSource(node.get(index));
+  }
+
+  @Override
+  public String textValue() {
+    return node.asText();
+  }
+
+  @Override
+  public Number numberValue() {
+    return node.numberValue();
+  }
+
+  @Override
+  public boolean booleanValue() {
+    return node.booleanValue();
+  }
+}
@@ -0,0 +1,101 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JSON Schema keywords the loader knows about, each with its own bit so a
+ * set of keywords fits in a {@code long} (see {@link KeywordScan}). Fields that
+ * are not listed here are kept as unprocessed properties.
+ */
+enum Keyword {
+  ID("$id"),
+  LEGACY_ID("id"),
+  SCHEMA("$schema"),
+  REF("$ref"),
+  TITLE("title"),
+  DESCRIPTION("description"),
+  DEFAULT("default"),
+  TYPE("type"),
+  PROPERTIES("properties"),
+  REQUIRED("required"),
+  ADDITIONAL_PROPERTIES("additionalProperties"),
+  PATTERN_PROPERTIES("patternProperties"),
+  DEPENDENCIES("dependencies"),
+  DEPENDENT_REQUIRED("dependentRequired"),
+  DEPENDENT_SCHEMAS("dependentSchemas"),
+  MAX_PROPERTIES("maxProperties"),
+  MIN_PROPERTIES("minProperties"),
+  ITEMS("items"),
+  PREFIX_ITEMS("prefixItems"),
+  ADDITIONAL_ITEMS("additionalItems"),
+  MAX_ITEMS("maxItems"),
+  MIN_ITEMS("minItems"),
+  UNIQUE_ITEMS("uniqueItems"),
+  MAX_LENGTH("maxLength"),
+  MIN_LENGTH("minLength"),
+  PATTERN("pattern"),
+  MAXIMUM("maximum"),
+  MINIMUM("minimum"),
+  EXCLUSIVE_MAXIMUM("exclusiveMaximum"),
+  EXCLUSIVE_MINIMUM("exclusiveMinimum"),
+  MULTIPLE_OF("multipleOf"),
+  ALL_OF("allOf"),
+  ANY_OF("anyOf"),
+  ONE_OF("oneOf"),
+  NOT("not"),
+  ENUM("enum"),
+  CONST("const"),
+  DEFINITIONS("definitions"),
+  DEFS("$defs"),
+  FORMAT("format"),
+  IF("if"),
+  THEN("then"),
+  ELSE("else"),
+  READ_ONLY("readOnly"),
+  WRITE_ONLY("writeOnly"),
+  CONTENT_MEDIA_TYPE("contentMediaType"),
+  CONTENT_ENCODING("contentEncoding");
+
+  private static final Map<String, Keyword> BY_NAME = new HashMap<>();
+
+  static {
+    for (Keyword keyword : values()) {
+      BY_NAME.put(keyword.jsonName, keyword);
+    }
+  }
+
+  private final String jsonName;
+  private final long bit;
+
+  Keyword(String jsonName) {
+    this.jsonName = jsonName;
+    this.bit = 1L << ordinal();
+  }
+
+  /**
+   * The keyword spelled {@code name}, or {@code null} if it is not a standard keyword.
+   */
+  static Keyword of(String name) {
+    return BY_NAME.get(name);
+  }
+
+  /**
+   * The union of the given keywords' bits.
+   */
+  static long bits(Keyword... keywords) {
+    long bits = 0;
+    for (Keyword keyword : keywords) {
+      bits |= keyword.bit;
+    }
+    return bits;
+  }
+
+  String jsonName() {
+    return jsonName;
+  }
+
+  long bit() {
+    return bit;
+  }
+}
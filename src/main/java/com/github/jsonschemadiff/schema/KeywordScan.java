@@ -0,0 +1,118 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The fields of one schema object node, read in a single pass: a bitmask of the
+ * {@link Keyword}s present, their values in a slot array indexed by ordinal, and
+ * the remaining (unprocessed) fields in document order. The loader classifies
+ * and builds a node from its scan alone instead of looking keywords up in the
+ * node one by one.
+ *
+ * The variants a node is split into (one per entry of a {@code type} array, or
+ * the parts of an implicit {@code allOf}) are derived scans with some slots
+ * replaced or cleared; the node and its subtree are not copied.
+ */
+final class KeywordScan {
+
+  private static final int SLOTS = Keyword.values().length;
+
+  private final long mask;
+  private final JsonNode[] slots;
+  private final Map<String, JsonNode> unprocessed;
+
+  private KeywordScan(long mask, JsonNode[] slots, Map<String, JsonNode> unprocessed) {
+    this.mask = mask;
+    this.slots = slots;
+    this.unprocessed = unprocessed;
+  }
+
+  static KeywordScan of(JsonNode node) {
+    long mask = 0;
+    JsonNode[] slots = new JsonNode[SLOTS];
+    Map<String, JsonNode> unprocessed = null;
+    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      Keyword keyword = Keyword.of(field.getKey());
+      if (keyword != null) {
+        mask |= keyword.bit();
+        slots[keyword.ordinal()] = field.getValue();
+      } else {
+        if (unprocessed == null) {
+          unprocessed = new LinkedHashMap<>();
+        }
+        unprocessed.put(field.getKey(), field.getValue());
+      }
+    }
+    return new KeywordScan(mask, slots,
+        unprocessed != null ? Collections.unmodifiableMap(unprocessed) : null);
+  }
+
+  boolean has(Keyword keyword) {
+    return (mask & keyword.bit()) != 0;
+  }
+
+  /**
+   * Whether any of the keywords in {@code bits} (see {@link Keyword#bits}) is present.
+   */
+  boolean hasAny(long bits) {
+    return (mask & bits) != 0;
+  }
+
+  JsonNode get(Keyword keyword) {
+    return slots[keyword.ordinal()];
+  }
+
+  /**
+   * The keyword's value if it is a string, otherwise {@code null}.
+   */
+  String text(Keyword keyword) {
+    JsonNode value = slots[keyword.ordinal()];
+    return value != null && value.isTextual() ? value.asText() : null;
+  }
+
+  /**
+   * The fields that are not standard keywords, or {@code null} if there are none.
+   */
+  Map<String, JsonNode> unprocessed() {
+    return unprocessed;
+  }
+
+  /**
+   * This scan with {@code keyword} set to {@code value}.
+   */
+  KeywordScan with(Keyword keyword, JsonNode value) {
+    JsonNode[] copy = slots.clone();
+    copy[keyword.ordinal()] = value;
+    return new KeywordScan(mask | keyword.bit(), copy, unprocessed);
+  }
+
+  /**
+   * This scan without the keywords in {@code bits}.
+   */
+  KeywordScan without(long bits) {
+    return retain(mask & ~bits, unprocessed);
+  }
+
+  /**
+   * Only the keywords in {@code bits}, with no unprocessed fields.
+   */
+  KeywordScan only(long bits) {
+    return retain(mask & bits, null);
+  }
+
+  private KeywordScan retain(long bits, Map<String, JsonNode> unprocessed) {
+    JsonNode[] copy = new JsonNode[SLOTS];
+    for (long rest = bits; rest != 0; rest &= rest - 1) {
+      int slot = Long.numberOfTrailingZeros(rest);
+      copy[slot] = slots[slot];
+    }
+    return new KeywordScan(bits, copy, unprocessed);
+  }
+}
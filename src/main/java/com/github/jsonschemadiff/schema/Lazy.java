@@ -0,0 +1,41 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.function.Supplier;
+
+/**
+ * A value built on first access and memoized, used for the children of schemas
+ * loaded in lazy mode. All values of one document share the loader as their
+ * lock: building one child may resolve a {@code $ref} into another subtree of
+ * the same document, and the loader's state is not thread-safe on its own.
+ */
+final class Lazy<T> implements Supplier<T> {
+
+  private final Object lock;
+  private Supplier<? extends T> loader;
+  private volatile T value;
+
+  Lazy(Object lock, Supplier<? extends T> loader) {
+    this.lock = lock;
+    this.loader = loader;
+  }
+
+  Object lock() {
+    return lock;
+  }
+
+  @Override
+  public T get() {
+    T result = value;
+    if (result == null) {
+      synchronized (lock) {
+        result = value;
+        if (result == null) {
+          result = loader.get();
+          value = result;
+          loader = null;
+        }
+      }
+    }
+    return result;
+  }
+}
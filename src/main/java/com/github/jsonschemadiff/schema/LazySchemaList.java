@@ -0,0 +1,27 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list whose schemas are built on first access to each element.
+ */
+final class LazySchemaList extends AbstractList<Schema> implements RandomAccess {
+
+  private final List<Lazy<Schema>> elements;
+
+  LazySchemaList(List<Lazy<Schema>> elements) {
+    this.elements = elements;
+  }
+
+  @Override
+  public Schema get(int index) {
+    return elements.get(index).get();
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+}
@@ -0,0 +1,68 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only map whose schemas are built on first access to each entry.
+ */
+final class LazySchemaMap extends AbstractMap<String, Schema> {
+
+  private final Map<String, Lazy<Schema>> entries;
+
+  LazySchemaMap(Map<String, Lazy<Schema>> entries) {
+    this.entries = entries;
+  }
+
+  @Override
+  public Schema get(Object key) {
+    Lazy<Schema> schema = entries.get(key);
+    return schema != null ? schema.get() : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public Set<Entry<String, Schema>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, Schema>> iterator() {
+        Iterator<Entry<String, Lazy<Schema>>> it = entries.entrySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return it.hasNext();
+          }
+
+          @Override
+          public Entry<String, Schema> next() {
+            Entry<String, Lazy<Schema>> entry = it.next();
+            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get());
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return entries.size();
+      }
+    };
+  }
+}
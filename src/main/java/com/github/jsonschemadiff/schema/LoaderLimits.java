@@ -0,0 +1,146 @@
+package com.github.jsonschemadiff.schema;
+
+/**
+ * Bounds on the work one {@link SchemaLoader} may do, for loading schemas from
+ * untrusted sources. A load that crosses a bound stops at that point with a
+ * {@link SchemaLimitExceededException} instead of running on.
+ *
+ * <ul>
+ *   <li>{@link Limit#DEPTH}: how deeply subschemas may nest.</li>
+ *   <li>{@link Limit#NODES}: how many schema nodes may be built in total,
+ *       counting each alternative of a {@code type} array separately.</li>
+ *   <li>{@link Limit#REF_EXPANSIONS}: how many {@code $ref} targets may be
+ *       loaded; a target shared by several references is loaded once.</li>
+ *   <li>{@link Limit#PATTERN_LENGTH}: the longest {@code pattern} or
+ *       {@code patternProperties} key accepted.</li>
+ * </ul>
+ *
+ * Every bound defaults to unlimited, which is what loaders use unless given
+ * other limits (see {@link SchemaLoader.Builder#limits(LoaderLimits)}).
+ */
+public final class LoaderLimits {
+
+  public enum Limit {
+    DEPTH("depth"),
+    NODES("schema nodes"),
+    REF_EXPANSIONS("$ref expansions"),
+    PATTERN_LENGTH("pattern length");
+
+    private final String description;
+
+    Limit(String description) {
+      this.description = description;
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+
+  public static final LoaderLimits NONE = builder().build();
+
+  private final int maxDepth;
+  private final int maxNodes;
+  private final int maxRefExpansions;
+  private final int maxPatternLength;
+
+  private LoaderLimits(Builder builder) {
+    this.maxDepth = builder.maxDepth;
+    this.maxNodes = builder.maxNodes;
+    this.maxRefExpansions = builder.maxRefExpansions;
+    this.maxPatternLength = builder.maxPatternLength;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public int getMaxNodes() {
+    return maxNodes;
+  }
+
+  public int getMaxRefExpansions() {
+    return maxRefExpansions;
+  }
+
+  public int getMaxPatternLength() {
+    return maxPatternLength;
+  }
+
+  /**
+   * Throws if {@code value} is over the bound for {@code limit}.
+   */
+  void check(Limit limit, int value) {
+    int max = get(limit);
+    if (value > max) {
+      throw new SchemaLimitExceededException(limit, max);
+    }
+  }
+
+  int get(Limit limit) {
+    switch (limit) {
+      case DEPTH:
+        return maxDepth;
+      case NODES:
+        return maxNodes;
+      case REF_EXPANSIONS:
+        return maxRefExpansions;
+      default:
+        return maxPatternLength;
+    }
+  }
+
+  public static class Builder {
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxNodes = Integer.MAX_VALUE;
+    private int maxRefExpansions = Integer.MAX_VALUE;
+    private int maxPatternLength = Integer.MAX_VALUE;
+
+    private Builder() {
+    }
+
+    public Builder maxDepth(int maxDepth) {
+      this.maxDepth = positive(maxDepth, Limit.DEPTH);
+      return this;
+    }
+
+    public Builder maxNodes(int maxNodes) {
+      this.maxNodes = positive(maxNodes, Limit.NODES);
+      return this;
+    }
+
+    public Builder maxRefExpansions(int maxRefExpansions) {
+      this.maxRefExpansions = nonNegative(maxRefExpansions, Limit.REF_EXPANSIONS);
+      return this;
+    }
+
+    public Builder maxPatternLength(int maxPatternLength) {
+      this.maxPatternLength = nonNegative(maxPatternLength, Limit.PATTERN_LENGTH);
+      return this;
+    }
+
+    private static int positive(int value, Limit limit) {
+      if (value < 1) {
+        throw new IllegalArgumentException("Maximum " + limit + " must be positive: " + value);
+      }
+      return value;
+    }
+
+    private static int nonNegative(int value, Limit limit) {
+      if (value < 0) {
+        throw new IllegalArgumentException(
+            "Maximum " + limit + " must not be negative: " + value);
+      }
+      return value;
+    }
+
+    public LoaderLimits build() {
+      return new LoaderLimits(this);
+    }
+  }
+}
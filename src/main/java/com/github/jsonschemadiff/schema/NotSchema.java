@@ -1,16 +1,31 @@
 package com.github.jsonschemadiff.schema;
 
+import java.util.Objects;
+
 public class NotSchema extends Schema {
 
   private final Schema mustNotMatch;
+  private final Lazy<Schema> lazyMustNotMatch;
 
   private NotSchema(Builder builder) {
     super(builder);
     this.mustNotMatch = builder.mustNotMatch;
+    this.lazyMustNotMatch = builder.lazyMustNotMatch;
   }
 
   public Schema getMustNotMatch() {
-    return mustNotMatch;
+    return lazyMustNotMatch != null ? lazyMustNotMatch.get() : mustNotMatch;
+  }
+
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(getMustNotMatch());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    return Objects.equals(getMustNotMatch(), ((NotSchema) o).getMustNotMatch());
   }
 
   public static Builder builder() {
@@ -19,12 +34,18 @@ public class NotSchema extends Schema {
 
   public static class Builder extends Schema.Builder<Builder> {
     private Schema mustNotMatch;
+    private Lazy<Schema> lazyMustNotMatch;
 
     public Builder mustNotMatch(Schema mustNotMatch) {
       this.mustNotMatch = mustNotMatch;
       return this;
     }
 
+    Builder mustNotMatch(Lazy<Schema> mustNotMatch) {
+      this.lazyMustNotMatch = mustNotMatch;
+      return this;
+    }
+
     public NotSchema build() {
       return new NotSchema(this);
     }
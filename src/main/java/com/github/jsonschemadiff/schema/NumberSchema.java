@@ -1,48 +1,224 @@
 package com.github.jsonschemadiff.schema;
 
-import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Objects;
 
+/**
+ * The numeric limits are stored unboxed: a presence-and-kind code per
+ * {@link Limit} packed into one {@code int}, and the values of the first two
+ * present limits in two {@code long} slots ({@code double}s by their raw bits),
+ * with any further ones in an overflow array. Limits that are neither
+ * {@code Integer}, {@code Long} nor {@code Double} (e.g. {@code BigDecimal}) keep
+ * all values boxed in the overflow array instead. The {@code Number} getters
+ * return the value with its original type.
+ */
 public class NumberSchema extends Schema {
 
-  private final Number maximum;
-  private final Number minimum;
-  private final Number exclusiveMaximumLimit;
-  private final Number exclusiveMinimumLimit;
-  private final Number multipleOf;
-  private final boolean requiresInteger;
+  /**
+   * The numeric keywords of a number schema, in diff order.
+   */
+  public enum Limit {
+    MAXIMUM, MINIMUM, EXCLUSIVE_MAXIMUM, EXCLUSIVE_MINIMUM, MULTIPLE_OF
+  }
+
+  private static final Limit[] LIMITS = Limit.values();
+
+  private static final int ABSENT = 0;
+  private static final int INT = 1;
+  private static final int LONG = 2;
+  private static final int DOUBLE = 3;
+  private static final int BOXED = 4;
+  private static final int KIND_BITS = 3;
+  private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+  private static final int REQUIRES_INTEGER = 1 << (KIND_BITS * 5);
+
+  private final int kinds;
+  private final long first;
+  private final long second;
+  // long[] of the third and later values, or Number[] of all values if any is BOXED
+  private final Object rest;
 
   private NumberSchema(Builder builder) {
     super(builder);
-    this.maximum = builder.maximum;
-    this.minimum = builder.minimum;
-    this.exclusiveMaximumLimit = builder.exclusiveMaximumLimit;
-    this.exclusiveMinimumLimit = builder.exclusiveMinimumLimit;
-    this.multipleOf = builder.multipleOf;
-    this.requiresInteger = builder.requiresInteger;
+    Number[] limits = {
+        builder.maximum, builder.minimum, builder.exclusiveMaximumLimit,
+        builder.exclusiveMinimumLimit, builder.multipleOf
+    };
+    int kinds = builder.requiresInteger ? REQUIRES_INTEGER : 0;
+    int count = 0;
+    boolean boxed = false;
+    for (int i = 0; i < limits.length; i++) {
+      int kind = kindOf(limits[i]);
+      kinds |= kind << (i * KIND_BITS);
+      if (kind != ABSENT) {
+        count++;
+      }
+      boxed |= kind == BOXED;
+    }
+    this.kinds = kinds;
+
+    if (boxed) {
+      Number[] values = new Number[count];
+      int n = 0;
+      for (Number limit : limits) {
+        if (limit != null) {
+          values[n++] = limit;
+        }
+      }
+      this.first = 0;
+      this.second = 0;
+      this.rest = values;
+      return;
+    }
+    long[] bits = new long[Math.max(count, 2)];
+    int n = 0;
+    for (Number limit : limits) {
+      if (limit != null) {
+        bits[n++] = toBits(limit);
+      }
+    }
+    this.first = bits[0];
+    this.second = bits[1];
+    this.rest = count > 2 ? Arrays.copyOfRange(bits, 2, count) : null;
+  }
+
+  private static int kindOf(Number value) {
+    if (value == null) {
+      return ABSENT;
+    }
+    if (value instanceof Integer) {
+      return INT;
+    }
+    if (value instanceof Long) {
+      return LONG;
+    }
+    return value instanceof Double ? DOUBLE : BOXED;
+  }
+
+  private static long toBits(Number value) {
+    return value instanceof Double
+        ? Double.doubleToRawLongBits(value.doubleValue())
+        : value.longValue();
+  }
+
+  private int kind(Limit limit) {
+    return (kinds >>> (limit.ordinal() * KIND_BITS)) & KIND_MASK;
+  }
+
+  // The position of the limit's value among the present limits
+  private int slot(Limit limit) {
+    int slot = 0;
+    for (int i = 0; i < limit.ordinal(); i++) {
+      if (kind(LIMITS[i]) != ABSENT) {
+        slot++;
+      }
+    }
+    return slot;
+  }
+
+  private long bits(Limit limit) {
+    int slot = slot(limit);
+    if (rest instanceof Number[]) {
+      return toBits(((Number[]) rest)[slot]);
+    }
+    if (slot == 0) {
+      return first;
+    }
+    return slot == 1 ? second : ((long[]) rest)[slot - 2];
+  }
+
+  public boolean hasLimit(Limit limit) {
+    return kind(limit) != ABSENT;
+  }
+
+  /**
+   * The limit with its original {@code Number} type, or {@code null} if it is absent.
+   */
+  public Number getLimit(Limit limit) {
+    switch (kind(limit)) {
+      case ABSENT:
+        return null;
+      case INT:
+        return (int) bits(limit);
+      case LONG:
+        return bits(limit);
+      case DOUBLE:
+        return Double.longBitsToDouble(bits(limit));
+      default:
+        return ((Number[]) rest)[slot(limit)];
+    }
+  }
+
+  /**
+   * Whether the limit is present and is an {@code Integer} or {@code Long}.
+   */
+  public boolean isLongLimit(Limit limit) {
+    int kind = kind(limit);
+    return kind == INT || kind == LONG;
+  }
+
+  /**
+   * The limit as a {@code long}; only meaningful if {@link #isLongLimit} holds.
+   */
+  public long getLongLimit(Limit limit) {
+    return bits(limit);
+  }
+
+  /**
+   * Whether the limit is present and is a {@code Double}.
+   */
+  public boolean isDoubleLimit(Limit limit) {
+    return kind(limit) == DOUBLE;
+  }
+
+  /**
+   * The limit as a {@code double}; only meaningful if {@link #isDoubleLimit} holds.
+   */
+  public double getDoubleLimit(Limit limit) {
+    return Double.longBitsToDouble(bits(limit));
   }
 
   public Number getMaximum() {
-    return maximum;
+    return getLimit(Limit.MAXIMUM);
   }
 
   public Number getMinimum() {
-    return minimum;
+    return getLimit(Limit.MINIMUM);
   }
 
   public Number getExclusiveMaximumLimit() {
-    return exclusiveMaximumLimit;
+    return getLimit(Limit.EXCLUSIVE_MAXIMUM);
   }
 
   public Number getExclusiveMinimumLimit() {
-    return exclusiveMinimumLimit;
+    return getLimit(Limit.EXCLUSIVE_MINIMUM);
   }
 
   public Number getMultipleOf() {
-    return multipleOf;
+    return getLimit(Limit.MULTIPLE_OF);
   }
 
   public boolean requiresInteger() {
-    return requiresInteger;
+    return (kinds & REQUIRES_INTEGER) != 0;
+  }
+
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(requiresInteger());
+    for (Limit limit : LIMITS) {
+      hash.add(getLimit(limit));
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    NumberSchema that = (NumberSchema) o;
+    if (requiresInteger() != that.requiresInteger()) return false;
+    for (Limit limit : LIMITS) {
+      if (!Objects.equals(getLimit(limit), that.getLimit(limit))) return false;
+    }
+    return true;
   }
 
   public static Builder builder() {
@@ -1,64 +1,123 @@
 package com.github.jsonschemadiff.schema;
 
+import com.github.jsonschemadiff.utils.PatternCache;
+
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.Objects;
 
 public class ObjectSchema extends Schema {
 
-  private final Map<String, Schema> propertySchemas;
-  private final Set<String> requiredProperties;
-  private final boolean permitsAdditionalProperties;
-  private final Schema schemaOfAdditionalProperties;
-  private final Map<Pattern, Schema> patternProperties;
+  private static final byte PERMITS_ADDITIONAL_PROPERTIES = 1;
+  private static final byte MAX_PROPERTIES = 2;
+  private static final byte MIN_PROPERTIES = 4;
+
+  private final PropertyTable properties;
+  // Schema, or Lazy<Schema> in lazy mode
+  private final Object schemaOfAdditionalProperties;
+  private final Map<String, Schema> patternProperties;
+  private volatile Map<Pattern, Schema> compiledPatternProperties;
   private final Map<String, Set<String>> propertyDependencies;
   private final Map<String, Schema> schemaDependencies;
-  private final Integer maxProperties;
-  private final Integer minProperties;
+  private final int maxProperties;
+  private final int minProperties;
+  private final byte flags;
 
   private ObjectSchema(Builder builder) {
     super(builder);
-    this.propertySchemas = builder.propertySchemas != null
-        ? Collections.unmodifiableMap(builder.propertySchemas)
-        : Collections.emptyMap();
-    this.requiredProperties = builder.requiredProperties != null
-        ? Collections.unmodifiableSet(builder.requiredProperties)
-        : Collections.emptySet();
-    this.permitsAdditionalProperties = builder.permitsAdditionalProperties;
-    this.schemaOfAdditionalProperties = builder.schemaOfAdditionalProperties;
-    this.patternProperties = builder.patternProperties != null
-        ? Collections.unmodifiableMap(builder.patternProperties)
-        : Collections.emptyMap();
+    this.properties = propertyTable(builder);
+    this.schemaOfAdditionalProperties = builder.lazySchemaOfAdditionalProperties != null
+        ? builder.lazySchemaOfAdditionalProperties
+        : builder.schemaOfAdditionalProperties;
+    this.patternProperties = schemaMap(builder.patternProperties, builder.lazyPatternProperties);
     this.propertyDependencies = builder.propertyDependencies != null
         ? Collections.unmodifiableMap(builder.propertyDependencies)
         : Collections.emptyMap();
-    this.schemaDependencies = builder.schemaDependencies != null
-        ? Collections.unmodifiableMap(builder.schemaDependencies)
-        : Collections.emptyMap();
-    this.maxProperties = builder.maxProperties;
-    this.minProperties = builder.minProperties;
+    this.schemaDependencies = schemaMap(builder.schemaDependencies, builder.lazySchemaDependencies);
+    this.maxProperties = builder.maxProperties != null ? builder.maxProperties : 0;
+    this.minProperties = builder.minProperties != null ? builder.minProperties : 0;
+    this.flags = (byte) ((builder.permitsAdditionalProperties ? PERMITS_ADDITIONAL_PROPERTIES : 0)
+        | (builder.maxProperties != null ? MAX_PROPERTIES : 0)
+        | (builder.minProperties != null ? MIN_PROPERTIES : 0));
+  }
+
+  private static PropertyTable propertyTable(Builder builder) {
+    Map<String, ?> schemas = builder.lazyPropertySchemas != null
+        ? builder.lazyPropertySchemas
+        : builder.propertySchemas;
+    if (schemas == null && builder.requiredProperties == null) {
+      return PropertyTable.EMPTY;
+    }
+    if (schemas == null) {
+      schemas = Collections.emptyMap();
+    }
+    return new PropertyTable(
+        schemas.keySet().toArray(new String[0]),
+        schemas.values().toArray(),
+        builder.requiredProperties != null ? builder.requiredProperties : Collections.emptySet());
+  }
+
+  private static Map<String, Schema> schemaMap(
+      Map<String, Schema> schemas, Map<String, Lazy<Schema>> lazySchemas) {
+    if (lazySchemas != null) {
+      return new LazySchemaMap(lazySchemas);
+    }
+    return schemas != null ? Collections.unmodifiableMap(schemas) : Collections.emptyMap();
   }
 
   public Map<String, Schema> getPropertySchemas() {
-    return propertySchemas;
+    return properties.schemas();
   }
 
+  /**
+   * The required property names: required declared properties in declaration
+   * order, then any other required names.
+   */
   public Set<String> getRequiredProperties() {
-    return requiredProperties;
+    return properties.requiredNames();
+  }
+
+  /**
+   * {@code properties} and {@code required} in the compact form the diff engine
+   * compares; {@link #getPropertySchemas()} and {@link #getRequiredProperties()}
+   * are views of it.
+   */
+  public PropertyTable getPropertyTable() {
+    return properties;
   }
 
   public boolean permitsAdditionalProperties() {
-    return permitsAdditionalProperties;
+    return (flags & PERMITS_ADDITIONAL_PROPERTIES) != 0;
   }
 
+  @SuppressWarnings("unchecked")
   public Schema getSchemaOfAdditionalProperties() {
-    return schemaOfAdditionalProperties;
+    Object value = schemaOfAdditionalProperties;
+    return value instanceof Lazy ? ((Lazy<Schema>) value).get() : (Schema) value;
   }
 
+  /**
+   * Returns {@code patternProperties} keyed by compiled pattern, compiling the
+   * patterns through {@link PatternCache} on first use.
+   */
   public Map<Pattern, Schema> getPatternProperties() {
+    Map<Pattern, Schema> compiled = compiledPatternProperties;
+    if (compiled == null) {
+      Map<Pattern, Schema> map = new LinkedHashMap<>();
+      for (Map.Entry<String, Schema> entry : patternProperties.entrySet()) {
+        map.put(PatternCache.compile(entry.getKey()), entry.getValue());
+      }
+      compiled = Collections.unmodifiableMap(map);
+      compiledPatternProperties = compiled;
+    }
+    return compiled;
+  }
+
+  public Map<String, Schema> getPatternPropertySchemas() {
     return patternProperties;
   }
 
@@ -71,13 +130,61 @@ public class ObjectSchema extends Schema {
   }
 
   public Integer getMaxProperties() {
-    return maxProperties;
+    return hasMaxProperties() ? Integer.valueOf(maxProperties) : null;
   }
 
   public Integer getMinProperties() {
+    return hasMinProperties() ? Integer.valueOf(minProperties) : null;
+  }
+
+  public boolean hasMaxProperties() {
+    return (flags & MAX_PROPERTIES) != 0;
+  }
+
+  public boolean hasMinProperties() {
+    return (flags & MIN_PROPERTIES) != 0;
+  }
+
+  /**
+   * {@code maxProperties}, or 0 if it is absent.
+   */
+  public int getMaxPropertiesAsInt() {
+    return maxProperties;
+  }
+
+  /**
+   * {@code minProperties}, or 0 if it is absent.
+   */
+  public int getMinPropertiesAsInt() {
     return minProperties;
   }
 
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.addAll(getPropertySchemas()).add(getRequiredProperties())
+        .add(flags).add(maxProperties).add(minProperties)
+        .add(getSchemaOfAdditionalProperties())
+        .addAll(patternProperties)
+        .add(propertyDependencies)
+        .addAll(schemaDependencies);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    ObjectSchema that = (ObjectSchema) o;
+    return flags == that.flags
+        && maxProperties == that.maxProperties
+        && minProperties == that.minProperties
+        && getRequiredProperties().equals(that.getRequiredProperties())
+        && propertyDependencies.equals(that.propertyDependencies)
+        && getPropertySchemas().equals(that.getPropertySchemas())
+        && Objects.equals(getSchemaOfAdditionalProperties(),
+            that.getSchemaOfAdditionalProperties())
+        && patternProperties.equals(that.patternProperties)
+        && schemaDependencies.equals(that.schemaDependencies);
+  }
+
   public static Builder builder() {
     return new Builder();
   }
@@ -87,11 +194,16 @@ public class ObjectSchema extends Schema {
     private Set<String> requiredProperties;
     private boolean permitsAdditionalProperties = true;
     private Schema schemaOfAdditionalProperties;
-    private Map<Pattern, Schema> patternProperties;
+    private Map<String, Schema> patternProperties;
     private Map<String, Set<String>> propertyDependencies;
     private Map<String, Schema> schemaDependencies;
     private Integer maxProperties;
     private Integer minProperties;
+    // Lazy-mode children, used by SchemaLoader instead of (never alongside) the above
+    private Map<String, Lazy<Schema>> lazyPropertySchemas;
+    private Lazy<Schema> lazySchemaOfAdditionalProperties;
+    private Map<String, Lazy<Schema>> lazyPatternProperties;
+    private Map<String, Lazy<Schema>> lazySchemaDependencies;
 
     public Builder addPropertySchema(String name, Schema schema) {
       if (this.propertySchemas == null) {
@@ -120,6 +232,10 @@ public class ObjectSchema extends Schema {
     }
 
     public Builder addPatternProperty(Pattern pattern, Schema schema) {
+      return addPatternProperty(pattern.pattern(), schema);
+    }
+
+    public Builder addPatternProperty(String pattern, Schema schema) {
       if (this.patternProperties == null) {
         this.patternProperties = new LinkedHashMap<>();
       }
@@ -153,6 +269,35 @@ public class ObjectSchema extends Schema {
       return this;
     }
 
+    Builder addPropertySchema(String name, Lazy<Schema> schema) {
+      if (this.lazyPropertySchemas == null) {
+        this.lazyPropertySchemas = new LinkedHashMap<>();
+      }
+      this.lazyPropertySchemas.put(name, schema);
+      return this;
+    }
+
+    Builder schemaOfAdditionalProperties(Lazy<Schema> schema) {
+      this.lazySchemaOfAdditionalProperties = schema;
+      return this;
+    }
+
+    Builder addPatternProperty(String pattern, Lazy<Schema> schema) {
+      if (this.lazyPatternProperties == null) {
+        this.lazyPatternProperties = new LinkedHashMap<>();
+      }
+      this.lazyPatternProperties.put(pattern, schema);
+      return this;
+    }
+
+    Builder addSchemaDependency(String property, Lazy<Schema> schema) {
+      if (this.lazySchemaDependencies == null) {
+        this.lazySchemaDependencies = new LinkedHashMap<>();
+      }
+      this.lazySchemaDependencies.put(property, schema);
+      return this;
+    }
+
     public ObjectSchema build() {
       return new ObjectSchema(this);
     }
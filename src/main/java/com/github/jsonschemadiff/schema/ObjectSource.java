@@ -0,0 +1,101 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SchemaSource} over a tree of plain Java values: {@code Map}s with
+ * string keys, {@code List}s, {@code CharSequence}s, {@code Number}s,
+ * {@code Boolean}s and {@code null}s, as produced by most YAML and
+ * configuration libraries.
+ */
+final class ObjectSource implements SchemaSource {
+
+  private final Object value;
+  private final Kind kind;
+
+  private ObjectSource(Object value, Kind kind) {
+    this.value = value;
+    this.kind = kind;
+  }
+
+  static ObjectSource of(Object value) {
+    if (value == null) {
+      return new ObjectSource(null, Kind.NULL);
+    }
+    if (value instanceof Map) {
+      return new ObjectSource(value, Kind.OBJECT);
+    }
+    if (value instanceof List) {
+      return new ObjectSource(value, Kind.ARRAY);
+    }
+    if (value instanceof CharSequence) {
+      return new ObjectSource(value.toString(), Kind.STRING);
+    }
+    if (value instanceof Number) {
+      return new ObjectSource(value, Kind.NUMBER);
+    }
+    if (value instanceof Boolean) {
+      return new ObjectSource(value, Kind.BOOLEAN);
+    }
+    throw new IllegalArgumentException(
+        "Unsupported schema value type: " + value.getClass().getName());
+  }
+
+  @Override
+  public Kind kind() {
+    return kind;
+  }
+
+  @Override
+  public int size() {
+    if (kind == Kind.OBJECT) {
+      return ((Map<?, ?>) value).size();
+    }
+    return kind == Kind.ARRAY ? ((List<?>) value).size() : 0;
+  }
+
+  @Override
+  public Iterator<Map.Entry<String, SchemaSource>> fields() {
+    if (kind != Kind.OBJECT) {
+      return Collections.emptyIterator();
+    }
+    Iterator<? extends Map.Entry<?, ?>> fields = ((Map<?, ?>) value).entrySet().iterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return fields.hasNext();
+      }
+
+      @Override
+      public Map.Entry<String, SchemaSource> next() {
+        Map.Entry<?, ?> field = fields.next();
+        return new AbstractMap.SimpleImmutableEntry<>(
+            String.valueOf(field.getKey()), of(field.getValue()));
+      }
+    };
+  }
+
+  @Override
+  public SchemaSource get(int index) {
+    return of(((List<?>) value).get(index));
+  }
+
+  @Override
+  public String textValue() {
+    return kind == Kind.NULL ? "null" : value.toString();
+  }
+
+  @Override
+  public Number numberValue() {
+    return kind == Kind.NUMBER ? (Number) value : null;
+  }
+
+  @Override
+  public boolean booleanValue() {
+    return kind == Kind.BOOLEAN && (Boolean) value;
+  }
+}
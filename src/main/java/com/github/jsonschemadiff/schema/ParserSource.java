@@ -0,0 +1,89 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A {@link SchemaSource} reading the next value of a {@link JsonParser}.
+ * {@link SchemaLoader} loads it from the token stream; any other navigation
+ * reads the value into a {@link JsonNode} tree once and delegates to it.
+ */
+final class ParserSource implements SchemaSource {
+
+  private final JsonParser parser;
+  private JsonNodeSource tree;
+
+  ParserSource(JsonParser parser) {
+    this.parser = parser;
+  }
+
+  JsonParser parser() {
+    return parser;
+  }
+
+  /**
+   * Whether the value has already been read into a tree, so that the parser
+   * can no longer be streamed from.
+   */
+  synchronized boolean isBuffered() {
+    return tree != null;
+  }
+
+  synchronized JsonNode node() {
+    if (tree == null) {
+      try {
+        JsonNode node = SchemaFormat.JSON.mapper().readTree(parser);
+        tree = new JsonNodeSource(node != null ? node : MissingNode.getInstance());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return tree.node();
+  }
+
+  private JsonNodeSource tree() {
+    node();
+    return tree;
+  }
+
+  @Override
+  public Kind kind() {
+    return tree().kind();
+  }
+
+  @Override
+  public int size() {
+    return tree().size();
+  }
+
+  @Override
+  public Iterator<Map.Entry<String, SchemaSource>> fields() {
+    return tree().fields();
+  }
+
+  @Override
+  public SchemaSource get(int index) {
+    return tree().get(index);
+  }
+
+  @Override
+  public String textValue() {
+    return tree().textValue();
+  }
+
+  @Override
+  public Number numberValue() {
+    return tree().numberValue();
+  }
+
+  @Override
+  public boolean booleanValue() {
+    return tree().booleanValue();
+  }
+}
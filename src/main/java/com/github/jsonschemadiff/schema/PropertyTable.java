@@ -0,0 +1,257 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The {@code properties} and {@code required} keywords of an {@link ObjectSchema}
+ * in compact form. Properties are stored by ordinal (declaration order) in
+ * parallel arrays of names and schemas, with a name-sorted index for lookup;
+ * {@code required} is a bitset over the ordinals, plus the rare required names
+ * that are not declared properties.
+ *
+ * Lookup is a binary search over the sorted names, with no string hashing.
+ * Nothing is shared between tables, so loading many schemas leaves no global
+ * state behind. {@link ObjectSchema#getPropertySchemas()} and
+ * {@link ObjectSchema#getRequiredProperties()} are read-only views.
+ */
+public final class PropertyTable {
+
+  private static final String[] NO_NAMES = new String[0];
+
+  static final PropertyTable EMPTY = new PropertyTable(
+      NO_NAMES, new Object[0], Collections.emptyList());
+
+  private final String[] names;
+  // Schema, or Lazy<Schema> in lazy mode
+  private final Object[] values;
+  // Ordinals sorted by name
+  private final int[] byName;
+  private final long[] required;
+  private final String[] otherRequired;
+  private final int requiredCount;
+
+  private final Map<String, Schema> schemaView = new SchemaView();
+  private final Set<String> requiredView = new RequiredView();
+
+  /**
+   * @param names property names in declaration order
+   * @param values the {@link Schema} or {@link Lazy} schema of each property
+   * @param requiredNames the {@code required} names, in any order
+   */
+  PropertyTable(String[] names, Object[] values, Iterable<String> requiredNames) {
+    int size = names.length;
+    this.names = names;
+    this.values = values;
+
+    Integer[] sorted = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = i;
+    }
+    Arrays.sort(sorted, (a, b) -> names[a].compareTo(names[b]));
+    this.byName = new int[size];
+    for (int k = 0; k < size; k++) {
+      byName[k] = sorted[k];
+    }
+
+    long[] bits = new long[(size + 63) >>> 6];
+    Set<String> others = null;
+    int count = 0;
+    for (String name : requiredNames) {
+      int ordinal = indexOfName(name);
+      if (ordinal >= 0) {
+        if ((bits[ordinal >>> 6] & (1L << ordinal)) == 0) {
+          bits[ordinal >>> 6] |= 1L << ordinal;
+          count++;
+        }
+      } else {
+        if (others == null) {
+          others = new LinkedHashSet<>();
+        }
+        if (others.add(name)) {
+          count++;
+        }
+      }
+    }
+    this.required = bits;
+    this.otherRequired = others != null ? others.toArray(new String[0]) : NO_NAMES;
+    this.requiredCount = count;
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  public String name(int ordinal) {
+    return names[ordinal];
+  }
+
+  @SuppressWarnings("unchecked")
+  public Schema schema(int ordinal) {
+    Object value = values[ordinal];
+    return value instanceof Lazy ? ((Lazy<Schema>) value).get() : (Schema) value;
+  }
+
+  public boolean isRequired(int ordinal) {
+    return (required[ordinal >>> 6] & (1L << ordinal)) != 0;
+  }
+
+  /**
+   * The ordinal of the property called {@code name}, or {@code -1} if there is none.
+   */
+  public int indexOfName(Object name) {
+    if (!(name instanceof String)) {
+      return -1;
+    }
+    String key = (String) name;
+    int low = 0;
+    int high = byName.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = names[byName[mid]].compareTo(key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return byName[mid];
+      }
+    }
+    return -1;
+  }
+
+  Map<String, Schema> schemas() {
+    return schemaView;
+  }
+
+  Set<String> requiredNames() {
+    return requiredView;
+  }
+
+  private final class SchemaView extends AbstractMap<String, Schema> {
+    @Override
+    public Schema get(Object key) {
+      int ordinal = indexOfName(key);
+      return ordinal >= 0 ? schema(ordinal) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return indexOfName(key) >= 0;
+    }
+
+    @Override
+    public Set<String> keySet() {
+      return Collections.unmodifiableSet(new AbstractSet<>() {
+        @Override
+        public Iterator<String> iterator() {
+          return Arrays.asList(names).iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+          return indexOfName(o) >= 0;
+        }
+
+        @Override
+        public int size() {
+          return names.length;
+        }
+      });
+    }
+
+    @Override
+    public int size() {
+      return names.length;
+    }
+
+    @Override
+    public Set<Entry<String, Schema>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<String, Schema>> iterator() {
+          return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+              return next < names.length;
+            }
+
+            @Override
+            public Entry<String, Schema> next() {
+              if (next >= names.length) {
+                throw new NoSuchElementException();
+              }
+              int ordinal = next++;
+              return new SimpleImmutableEntry<>(names[ordinal], schema(ordinal));
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return names.length;
+        }
+      };
+    }
+  }
+
+  /**
+   * Required declared properties in declaration order, then the other required names.
+   */
+  private final class RequiredView extends AbstractSet<String> {
+    @Override
+    public boolean contains(Object o) {
+      int ordinal = indexOfName(o);
+      return ordinal >= 0 ? isRequired(ordinal) : Arrays.asList(otherRequired).contains(o);
+    }
+
+    @Override
+    public int size() {
+      return requiredCount;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<>() {
+        private int ordinal = nextRequired(0);
+        private int other;
+
+        private int nextRequired(int from) {
+          for (int i = from; i < names.length; i++) {
+            if (isRequired(i)) {
+              return i;
+            }
+          }
+          return names.length;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return ordinal < names.length || other < otherRequired.length;
+        }
+
+        @Override
+        public String next() {
+          if (ordinal < names.length) {
+            String name = names[ordinal];
+            ordinal = nextRequired(ordinal + 1);
+            return name;
+          }
+          if (other < otherRequired.length) {
+            return otherRequired[other++];
+          }
+          throw new NoSuchElementException();
+        }
+      };
+    }
+  }
+}
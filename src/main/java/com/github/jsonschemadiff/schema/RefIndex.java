@@ -0,0 +1,326 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The reference targets of one document, resolved in a single pass so that
+ * the loader looks each {@code $ref} up instead of walking to it.
+ *
+ * The pass records every schema resource (the root and each subschema with a
+ * base-changing {@code $id}/{@code id}), every anchor ({@code $anchor},
+ * {@code $dynamicAnchor}, and the plain-name {@code $id} fragments of older
+ * drafts) and every reference ({@code $ref}, {@code $dynamicRef},
+ * {@code $recursiveRef}) with the base URI in scope. Each reference is then
+ * resolved to the canonical JSON Pointer of its target from the document root:
+ * {@code #/...} pointers (with {@code ~0}/{@code ~1} escapes and
+ * percent-encoding) relative to the enclosing resource, {@code $id}-relative
+ * URIs, anchors and resource roots all end up as the same key when they name
+ * the same node, so the loader builds a target once however it is spelled.
+ *
+ * Dynamic references are resolved as the loader sees them, starting from the
+ * document root: a {@code $dynamicRef} to a {@code $dynamicAnchor} (or a
+ * {@code $recursiveRef} to a resource with {@code $recursiveAnchor}) goes to
+ * the root resource's matching anchor when it has one, otherwise it acts as a
+ * plain {@code $ref}. References into other documents do not resolve.
+ */
+final class RefIndex {
+
+  private static final String[] REF_KEYWORDS = {"$ref", "$dynamicRef", "$recursiveRef"};
+
+  // Values that are data rather than schemas; $id or $ref inside them means nothing
+  private static final Set<String> VALUE_KEYWORDS = Set.of("enum", "const", "default", "examples");
+
+  // Canonical target pointer of each reference node; null if it does not resolve
+  private final Map<JsonNode, String> refs = new IdentityHashMap<>();
+  private final Map<String, JsonNode> targets = new HashMap<>();
+
+  private RefIndex() {
+  }
+
+  /**
+   * Whether {@code node} holds a reference of any kind.
+   */
+  static boolean hasRef(JsonNode node) {
+    for (String keyword : REF_KEYWORDS) {
+      if (node.has(keyword)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Whether {@code ref} is the reference node of this document.
+   */
+  boolean covers(JsonNode ref) {
+    return refs.containsKey(ref);
+  }
+
+  /**
+   * The canonical pointer of the target of reference node {@code ref}, or
+   * {@code null} if it has none or it does not resolve.
+   */
+  String pointer(JsonNode ref) {
+    return refs.get(ref);
+  }
+
+  /**
+   * The node at canonical pointer {@code pointer}, or {@code null} if no
+   * reference of the document resolves to it.
+   */
+  JsonNode target(String pointer) {
+    return targets.get(pointer);
+  }
+
+  /**
+   * A location being visited: the pointer is built from the parent chain only
+   * when a resource, anchor or reference needs it.
+   */
+  private static final class Location {
+    final JsonNode node;
+    final Location parent;
+    final String segment;
+    final String base;
+    private String pointer;
+
+    Location(JsonNode node, Location parent, String segment, String base) {
+      this.node = node;
+      this.parent = parent;
+      this.segment = segment;
+      this.base = base;
+    }
+
+    String pointer() {
+      if (pointer == null) {
+        pointer = parent == null ? "" : parent.pointer() + "/" + segment;
+      }
+      return pointer;
+    }
+  }
+
+  private static final class Ref {
+    final JsonNode node;
+    final String keyword;
+    final String value;
+    final String base;
+
+    Ref(JsonNode node, String keyword, String value, String base) {
+      this.node = node;
+      this.keyword = keyword;
+      this.value = value;
+      this.base = base;
+    }
+  }
+
+  static RefIndex build(JsonNode root, JsonSchemaVersion version) {
+    RefIndex index = new RefIndex();
+    if (root == null || !root.isContainerNode()) {
+      return index;
+    }
+    String idKeyword = version.idKeyword();
+    // Absolute URI (without fragment) of each resource → its pointer, and
+    // resource URI + "#" + name of each anchor → its pointer
+    Map<String, String> resources = new HashMap<>();
+    Map<String, String> anchors = new HashMap<>();
+    Map<String, String> rootDynamicAnchors = new HashMap<>();
+    List<Ref> references = new ArrayList<>();
+
+    Deque<Location> stack = new ArrayDeque<>();
+    stack.push(new Location(root, null, null, ""));
+    while (!stack.isEmpty()) {
+      Location location = stack.pop();
+      JsonNode node = location.node;
+      String base = location.base;
+      if (node.isObject()) {
+        JsonNode id = node.get(idKeyword);
+        if (id != null && id.isTextual()) {
+          String value = id.asText();
+          if (value.startsWith("#")) {
+            // Draft-04 to 07 plain-name fragment: an anchor, not a new base
+            anchors.put(base + value, location.pointer());
+            index.targets.put(location.pointer(), node);
+          } else {
+            String resolved = resolve(base, value);
+            if (resolved != null) {
+              int hash = resolved.indexOf('#');
+              base = hash < 0 ? resolved : resolved.substring(0, hash);
+              resources.putIfAbsent(base, location.pointer());
+              index.targets.put(location.pointer(), node);
+            }
+          }
+        }
+        if (location.parent == null) {
+          resources.putIfAbsent(base, "");
+        }
+        addAnchor(node, "$anchor", base, location, anchors, index);
+        String dynamic = addAnchor(node, "$dynamicAnchor", base, location, anchors, index);
+        if (dynamic != null && resources.get(base).isEmpty()) {
+          rootDynamicAnchors.putIfAbsent(dynamic, location.pointer());
+        }
+        for (String keyword : REF_KEYWORDS) {
+          JsonNode ref = node.get(keyword);
+          if (ref != null && ref.isTextual()) {
+            references.add(new Ref(node, keyword, ref.asText(), base));
+            break;
+          }
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+          Map.Entry<String, JsonNode> field = fields.next();
+          if (field.getValue().isContainerNode() && !VALUE_KEYWORDS.contains(field.getKey())) {
+            stack.push(new Location(field.getValue(), location, escape(field.getKey()), base));
+          }
+        }
+      } else {
+        for (int i = 0; i < node.size(); i++) {
+          JsonNode element = node.get(i);
+          if (element.isContainerNode()) {
+            stack.push(new Location(element, location, Integer.toString(i), base));
+          }
+        }
+      }
+    }
+
+    for (Ref ref : references) {
+      String pointer = index.resolveRef(root, ref, resources, anchors);
+      if (pointer != null && !"$ref".equals(ref.keyword)) {
+        pointer = dynamicTarget(root, ref, pointer, rootDynamicAnchors);
+      }
+      index.refs.put(ref.node, pointer);
+    }
+    return index;
+  }
+
+  private static String addAnchor(JsonNode node, String keyword, String base,
+      Location location, Map<String, String> anchors, RefIndex index) {
+    JsonNode anchor = node.get(keyword);
+    if (anchor == null || !anchor.isTextual()) {
+      return null;
+    }
+    anchors.put(base + "#" + anchor.asText(), location.pointer());
+    index.targets.put(location.pointer(), location.node);
+    return anchor.asText();
+  }
+
+  private String resolveRef(JsonNode root, Ref ref,
+      Map<String, String> resources, Map<String, String> anchors) {
+    String resource;
+    String fragment;
+    if (ref.value.startsWith("#")) {
+      // Same-document reference: no URI parsing, so unescaped characters are tolerated
+      resource = ref.base;
+      fragment = decode(ref.value.substring(1));
+    } else {
+      String resolved = resolve(ref.base, ref.value);
+      if (resolved == null) {
+        return null;
+      }
+      int hash = resolved.indexOf('#');
+      resource = hash < 0 ? resolved : resolved.substring(0, hash);
+      fragment = hash < 0 ? "" : decode(resolved.substring(hash + 1));
+    }
+    String resourcePointer = resources.get(resource);
+    if (resourcePointer == null) {
+      return null;
+    }
+    String pointer;
+    if (fragment.isEmpty() || fragment.startsWith("/")) {
+      pointer = resourcePointer + fragment;
+    } else {
+      pointer = anchors.get(resource + "#" + fragment);
+      if (pointer == null) {
+        return null;
+      }
+    }
+    JsonNode target = targets.get(pointer);
+    if (target == null) {
+      target = root.at(pointer);
+      if (target.isMissingNode()) {
+        return null;
+      }
+      targets.put(pointer, target);
+    }
+    return pointer;
+  }
+
+  /**
+   * Where a {@code $dynamicRef} or {@code $recursiveRef} statically resolved to
+   * {@code pointer} goes when loading starts at the root resource.
+   */
+  private static String dynamicTarget(JsonNode root, Ref ref, String pointer,
+      Map<String, String> rootDynamicAnchors) {
+    JsonNode target = root.at(pointer);
+    if ("$recursiveRef".equals(ref.keyword)) {
+      return isTrue(target.get("$recursiveAnchor")) && isTrue(root.get("$recursiveAnchor"))
+          ? "" : pointer;
+    }
+    JsonNode anchor = target.get("$dynamicAnchor");
+    if (anchor == null || !anchor.isTextual()) {
+      return pointer;
+    }
+    return rootDynamicAnchors.getOrDefault(anchor.asText(), pointer);
+  }
+
+  private static boolean isTrue(JsonNode node) {
+    return node != null && node.isBoolean() && node.booleanValue();
+  }
+
+  /**
+   * {@code ref} resolved against {@code base} (which may be empty), or
+   * {@code null} if either is not a valid URI.
+   */
+  private static String resolve(String base, String ref) {
+    try {
+      URI uri = new URI(ref);
+      if (!base.isEmpty()) {
+        uri = new URI(base).resolve(uri);
+      }
+      return uri.normalize().toString();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes the percent-encoded octets of a URI fragment as UTF-8; a malformed
+   * escape is kept as it is.
+   */
+  static String decode(String fragment) {
+    if (fragment.indexOf('%') < 0) {
+      return fragment;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(fragment.length());
+    for (int i = 0; i < fragment.length(); ) {
+      char c = fragment.charAt(i);
+      if (c == '%' && i + 2 < fragment.length()
+          && Character.digit(fragment.charAt(i + 1), 16) >= 0
+          && Character.digit(fragment.charAt(i + 2), 16) >= 0) {
+        bytes.write(Integer.parseInt(fragment.substring(i + 1, i + 3), 16));
+        i += 3;
+      } else {
+        int end = i + Character.charCount(fragment.codePointAt(i));
+        byte[] utf8 = fragment.substring(i, end).getBytes(StandardCharsets.UTF_8);
+        bytes.write(utf8, 0, utf8.length);
+        i = end;
+      }
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static String escape(String name) {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+}
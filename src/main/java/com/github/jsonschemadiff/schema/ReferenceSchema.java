@@ -0,0 +1,84 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A {@code $ref} back to a schema that was still being loaded when the reference
+ * was reached, i.e. a recursive reference such as a tree node whose children are
+ * tree nodes. The target is resolved on first access and memoized, so a cyclic
+ * document loads in linear time and the diff engine can follow the reference
+ * without expanding it again. The resolver is dropped once it has produced the
+ * target, so a resolved reference does not keep the loader reachable.
+ */
+public class ReferenceSchema extends Schema {
+
+  private final String referenceValue;
+  private volatile Supplier<Schema> resolver;
+  private volatile Schema referredSchema;
+
+  private ReferenceSchema(Builder builder) {
+    super(builder);
+    this.referenceValue = builder.referenceValue;
+    this.resolver = builder.resolver;
+    this.referredSchema = builder.referredSchema;
+  }
+
+  public String getReferenceValue() {
+    return referenceValue;
+  }
+
+  public Schema getReferredSchema() {
+    // Read the resolver first: it is cleared only after referredSchema is set
+    Supplier<Schema> pending = resolver;
+    Schema schema = referredSchema;
+    if (schema == null && pending != null) {
+      schema = pending.get();
+      if (schema != null) {
+        referredSchema = schema;
+        resolver = null;
+      }
+    }
+    return schema;
+  }
+
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(referenceValue).addReference();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    return Objects.equals(referenceValue, ((ReferenceSchema) o).referenceValue);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder extends Schema.Builder<Builder> {
+    private String referenceValue;
+    private Supplier<Schema> resolver;
+    private Schema referredSchema;
+
+    public Builder referenceValue(String referenceValue) {
+      this.referenceValue = referenceValue;
+      return this;
+    }
+
+    public Builder resolver(Supplier<Schema> resolver) {
+      this.resolver = resolver;
+      return this;
+    }
+
+    public Builder referredSchema(Schema referredSchema) {
+      this.referredSchema = referredSchema;
+      return this;
+    }
+
+    public ReferenceSchema build() {
+      return new ReferenceSchema(this);
+    }
+  }
+}
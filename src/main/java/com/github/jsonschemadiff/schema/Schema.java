@@ -5,7 +5,15 @@ import com.fasterxml.jackson.databind.JsonNode;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
-
+import java.util.Set;
+
+/**
+ * Two schemas are {@link #equals equal} when they are of the same class and
+ * agree on every field, subschemas included, compared structurally. Each node
+ * has a {@linkplain #getStructuralHash() structural hash} computed from its
+ * fields and its subschemas' hashes, so unequal subtrees usually differ at the
+ * first comparison.
+ */
 public abstract class Schema {
 
   private final String id;
@@ -13,6 +21,8 @@ public abstract class Schema {
   private final String description;
   private final Object defaultValue;
   private final Map<String, JsonNode> unprocessedProperties;
+  // 0 until computed; see StructuralHash
+  private volatile long structuralHash;
 
   protected Schema(Builder<?> builder) {
     this.id = builder.id;
@@ -48,20 +58,93 @@ public abstract class Schema {
     return unprocessedProperties;
   }
 
+  /**
+   * A 64-bit hash of this schema and all its subschemas, consistent with
+   * {@link #equals}. It is built from the subschemas' hashes, so it costs one
+   * pass over the node's own fields: the loader computes it as it builds each
+   * schema (except in lazy mode), otherwise it is computed on first use and
+   * kept. A {@link ReferenceSchema} contributes its reference value, not its
+   * target. A schema from which a cycle of subschemas can be reached (a
+   * recursive {@code $ref} loaded lazily resolves to the schema it is in) is
+   * hashed by its own base fields only and is equal only to itself.
+   */
+  public final long getStructuralHash() {
+    long hash = structuralHash;
+    return hash != 0 ? hash : structuralHash(null);
+  }
+
+  /**
+   * Whether the {@linkplain #getStructuralHash() structural hash} has been
+   * computed, so that asking for it costs nothing. It always has been for a
+   * schema the loader built eagerly; a lazily loaded tree is hashed only when
+   * it is asked for, which builds every node of it.
+   */
+  public final boolean isStructuralHashComputed() {
+    return structuralHash != 0;
+  }
+
+  long getStructuralHashIfComputed() {
+    return structuralHash;
+  }
+
+  /**
+   * Computes the hash; {@code inProgress} holds the schemas whose hashes are
+   * being computed further up, if there are any.
+   */
+  final long structuralHash(Set<Schema> inProgress) {
+    long hash = structuralHash;
+    if (hash != 0) {
+      return hash;
+    }
+    if (inProgress != null && !inProgress.add(this)) {
+      return StructuralHash.CYCLE;
+    }
+    try {
+      StructuralHash content = new StructuralHash(this, inProgress);
+      hashContent(content);
+      hash = content.value();
+    } finally {
+      if (inProgress != null) {
+        inProgress.remove(this);
+      }
+    }
+    structuralHash = hash;
+    return hash;
+  }
+
+  /**
+   * Whether this subtree holds a {@link ReferenceSchema} or a cycle. Equality
+   * compares a reference by its value only, so two equal subtrees that hold
+   * one may still differ where their references lead.
+   */
+  public final boolean hasReferences() {
+    return (getStructuralHash() & StructuralHash.REFERENCES) != 0;
+  }
+
+  /**
+   * Adds the fields of the subclass to the structural hash.
+   */
+  void hashContent(StructuralHash hash) {
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Schema schema = (Schema) o;
-    return Objects.equals(id, schema.id)
+    long hash = getStructuralHash();
+    return hash == schema.getStructuralHash()
+        && (hash & StructuralHash.CYCLIC) == 0
+        && Objects.equals(id, schema.id)
         && Objects.equals(title, schema.title)
         && Objects.equals(description, schema.description)
-        && Objects.equals(defaultValue, schema.defaultValue);
+        && Objects.equals(defaultValue, schema.defaultValue)
+        && unprocessedProperties.equals(schema.unprocessedProperties);
   }
 
   @Override
-  public int hashCode() {
-    return Objects.hash(id, title, description, defaultValue);
+  public final int hashCode() {
+    return Long.hashCode(getStructuralHash());
   }
 
   public abstract static class Builder<B extends Builder<B>> {
@@ -0,0 +1,1043 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BigIntegerNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.FloatNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compact binary encoding of a loaded {@link Schema} tree, so that schemas can be
+ * cached on disk and reloaded without going back through JSON and
+ * {@link SchemaLoader}.
+ *
+ * The format starts with a magic number and a format version. Integers are
+ * LEB128 varints (zigzag for signed values), strings go through a table built
+ * while writing so every distinct property name or keyword is stored once, and
+ * a schema instance reached more than once (a shared {@code $ref} target or an
+ * interned subtree) is written once and back-referenced afterwards. A
+ * back-reference to a schema that is still being decoded, i.e. a cycle, decodes
+ * as a {@link ReferenceSchema} resolving to that schema. Trees are written and
+ * read on explicit stacks, so their depth is bounded by memory, not by the
+ * thread's stack.
+ *
+ * Decoding checks what it reads: any input that is not a complete encoding of
+ * this format version, whether truncated, corrupt or of another version, fails
+ * with an {@link IllegalArgumentException} and never with another exception.
+ */
+public final class SchemaCodec {
+
+  public static final int FORMAT_VERSION = 1;
+
+  private static final byte[] MAGIC = {'J', 'S', 'D', 'S'};
+
+  // Schema record tags
+  private static final int NULL = 0;
+  private static final int BACK_REF = 1;
+  private static final int EMPTY = 2;
+  private static final int FALSE = 3;
+  private static final int STRING = 4;
+  private static final int NUMBER = 5;
+  private static final int OBJECT = 6;
+  private static final int ARRAY = 7;
+  private static final int COMBINED = 8;
+  private static final int NOT = 9;
+  private static final int ENUM = 10;
+  private static final int CONST = 11;
+  private static final int REFERENCE = 12;
+
+  // Value tags, shared by plain values and JSON nodes
+  private static final int V_NULL = 0;
+  private static final int V_TRUE = 1;
+  private static final int V_FALSE = 2;
+  private static final int V_INT = 3;
+  private static final int V_LONG = 4;
+  private static final int V_BIG_INTEGER = 5;
+  private static final int V_FLOAT = 6;
+  private static final int V_DOUBLE = 7;
+  private static final int V_BIG_DECIMAL = 8;
+  private static final int V_STRING = 9;
+  private static final int V_ARRAY = 10;
+  private static final int V_OBJECT = 11;
+  private static final int V_JSON = 12;
+
+  private SchemaCodec() {
+  }
+
+  public static byte[] encode(Schema schema) {
+    Encoder encoder = new Encoder();
+    encoder.writeHeader();
+    encoder.writeSchema(schema);
+    return encoder.toByteArray();
+  }
+
+  public static void encode(Schema schema, OutputStream out) throws IOException {
+    out.write(encode(schema));
+  }
+
+  /**
+   * @throws IllegalArgumentException if {@code bytes} is not a complete
+   *     encoding of this format version
+   */
+  public static Schema decode(byte[] bytes) {
+    Decoder decoder = new Decoder(bytes);
+    try {
+      decoder.readHeader();
+      Schema schema = decoder.readSchema();
+      if (decoder.pos != bytes.length) {
+        throw new IllegalArgumentException("Trailing bytes after encoded schema");
+      }
+      return schema;
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      // A record the checks below let through but a schema builder rejects
+      throw new IllegalArgumentException("Corrupt encoded schema at offset " + decoder.pos, e);
+    }
+  }
+
+  public static Schema decode(InputStream in) throws IOException {
+    return decode(in.readAllBytes());
+  }
+
+  // --- Encoding ---
+
+  private static final class Encoder {
+    private byte[] buf = new byte[256];
+    private int len;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Schema, Integer> schemas = new IdentityHashMap<>();
+
+    void writeHeader() {
+      for (byte b : MAGIC) {
+        writeByte(b);
+      }
+      writeVarint(FORMAT_VERSION);
+    }
+
+    /**
+     * Writes {@code root} and its subtree on an explicit stack, so that the
+     * depth of the tree is bounded by memory, not by the thread's stack. Each
+     * record is written up to its first child, and the rest of it is a list of
+     * steps: a {@link Runnable} writing fields, or a child schema (possibly
+     * {@code null}) to write in its place.
+     */
+    void writeSchema(Schema root) {
+      Deque<Iterator<Object>> stack = new ArrayDeque<>();
+      List<Object> steps = writeRecord(root);
+      if (!steps.isEmpty()) {
+        stack.push(steps.iterator());
+      }
+      while (!stack.isEmpty()) {
+        Iterator<Object> record = stack.peek();
+        if (!record.hasNext()) {
+          stack.pop();
+          continue;
+        }
+        Object step = record.next();
+        if (step instanceof Runnable) {
+          ((Runnable) step).run();
+        } else {
+          List<Object> child = writeRecord((Schema) step);
+          if (!child.isEmpty()) {
+            stack.push(child.iterator());
+          }
+        }
+      }
+    }
+
+    /**
+     * Writes the start of the record of {@code schema} and returns the steps
+     * that complete it.
+     */
+    private List<Object> writeRecord(Schema schema) {
+      if (schema == null) {
+        writeVarint(NULL);
+        return Collections.emptyList();
+      }
+      Integer index = schemas.get(schema);
+      if (index != null) {
+        writeVarint(BACK_REF);
+        writeVarint(index);
+        return Collections.emptyList();
+      }
+      schemas.put(schema, schemas.size());
+
+      List<Object> steps = new ArrayList<>();
+      if (schema instanceof ReferenceSchema) {
+        ReferenceSchema ref = (ReferenceSchema) schema;
+        writeVarint(REFERENCE);
+        writeBase(schema);
+        writeString(ref.getReferenceValue());
+        steps.add(ref.getReferredSchema());
+      } else if (schema instanceof StringSchema) {
+        StringSchema s = (StringSchema) schema;
+        writeVarint(STRING);
+        writeBase(schema);
+        writeNullableInt(s.getMaxLength());
+        writeNullableInt(s.getMinLength());
+        writeString(s.getPatternString());
+      } else if (schema instanceof NumberSchema) {
+        NumberSchema n = (NumberSchema) schema;
+        writeVarint(NUMBER);
+        writeBase(schema);
+        writeValue(n.getMaximum());
+        writeValue(n.getMinimum());
+        writeValue(n.getExclusiveMaximumLimit());
+        writeValue(n.getExclusiveMinimumLimit());
+        writeValue(n.getMultipleOf());
+        writeBoolean(n.requiresInteger());
+      } else if (schema instanceof ObjectSchema) {
+        writeObjectSchema((ObjectSchema) schema, steps);
+      } else if (schema instanceof ArraySchema) {
+        ArraySchema a = (ArraySchema) schema;
+        writeVarint(ARRAY);
+        writeBase(schema);
+        steps.add(a.getAllItemSchema());
+        List<Schema> items = a.getItemSchemas();
+        steps.add((Runnable) () -> writeVarint(items == null ? 0 : items.size() + 1L));
+        if (items != null) {
+          steps.addAll(items);
+        }
+        steps.add((Runnable) () -> writeBoolean(a.permitsAdditionalItems()));
+        steps.add(a.getSchemaOfAdditionalItems());
+        steps.add((Runnable) () -> {
+          writeNullableInt(a.getMaxItems());
+          writeNullableInt(a.getMinItems());
+          writeBoolean(a.needsUniqueItems());
+        });
+      } else if (schema instanceof CombinedSchema) {
+        CombinedSchema c = (CombinedSchema) schema;
+        writeVarint(COMBINED);
+        writeBase(schema);
+        writeVarint(c.getCriterion().ordinal());
+        Collection<Schema> subschemas = c.getSubschemas();
+        writeVarint(subschemas.size());
+        steps.addAll(subschemas);
+      } else if (schema instanceof NotSchema) {
+        writeVarint(NOT);
+        writeBase(schema);
+        steps.add(((NotSchema) schema).getMustNotMatch());
+      } else if (schema instanceof EnumSchema) {
+        Set<Object> values = ((EnumSchema) schema).getPossibleValues();
+        writeVarint(ENUM);
+        writeBase(schema);
+        writeVarint(values.size());
+        for (Object value : values) {
+          writeValue(value);
+        }
+      } else if (schema instanceof ConstSchema) {
+        writeVarint(CONST);
+        writeBase(schema);
+        writeValue(((ConstSchema) schema).getPermittedValue());
+      } else if (schema instanceof FalseSchema) {
+        writeVarint(FALSE);
+        writeBase(schema);
+      } else if (schema instanceof EmptySchema) {
+        writeVarint(EMPTY);
+        writeBase(schema);
+      } else {
+        throw new IllegalArgumentException(
+            "Unsupported schema type: " + schema.getClass().getName());
+      }
+      return steps;
+    }
+
+    private void writeObjectSchema(ObjectSchema o, List<Object> steps) {
+      writeVarint(OBJECT);
+      writeBase(o);
+      writeSchemaMap(o.getPropertySchemas(), steps);
+      steps.add((Runnable) () -> {
+        writeVarint(o.getRequiredProperties().size());
+        for (String name : o.getRequiredProperties()) {
+          writeString(name);
+        }
+        writeBoolean(o.permitsAdditionalProperties());
+      });
+      steps.add(o.getSchemaOfAdditionalProperties());
+      steps.add((Runnable) () -> writeVarint(o.getPatternPropertySchemas().size()));
+      addSchemaMap(o.getPatternPropertySchemas(), steps);
+      steps.add((Runnable) () -> {
+        writeVarint(o.getPropertyDependencies().size());
+        for (Map.Entry<String, Set<String>> entry : o.getPropertyDependencies().entrySet()) {
+          writeString(entry.getKey());
+          writeVarint(entry.getValue().size());
+          for (String dependency : entry.getValue()) {
+            writeString(dependency);
+          }
+        }
+        writeVarint(o.getSchemaDependencies().size());
+      });
+      addSchemaMap(o.getSchemaDependencies(), steps);
+      steps.add((Runnable) () -> {
+        writeNullableInt(o.getMaxProperties());
+        writeNullableInt(o.getMinProperties());
+      });
+    }
+
+    private void writeSchemaMap(Map<String, Schema> map, List<Object> steps) {
+      writeVarint(map.size());
+      addSchemaMap(map, steps);
+    }
+
+    /**
+     * Adds the steps writing the entries of {@code map}, each a name and a schema.
+     */
+    private void addSchemaMap(Map<String, Schema> map, List<Object> steps) {
+      for (Map.Entry<String, Schema> entry : map.entrySet()) {
+        String name = entry.getKey();
+        steps.add((Runnable) () -> writeString(name));
+        steps.add(entry.getValue());
+      }
+    }
+
+    private void writeBase(Schema schema) {
+      writeString(schema.getId());
+      writeString(schema.getTitle());
+      writeString(schema.getDescription());
+      writeValue(schema.getDefaultValue());
+      Map<String, JsonNode> unprocessed = schema.getUnprocessedProperties();
+      writeVarint(unprocessed.size());
+      for (Map.Entry<String, JsonNode> entry : unprocessed.entrySet()) {
+        writeString(entry.getKey());
+        writeJson(entry.getValue());
+      }
+    }
+
+    private void writeValue(Object value) {
+      if (value instanceof JsonNode) {
+        writeVarint(V_JSON);
+        writeJson((JsonNode) value);
+      } else if (value == null) {
+        writeVarint(V_NULL);
+      } else if (value instanceof Boolean) {
+        writeVarint((Boolean) value ? V_TRUE : V_FALSE);
+      } else if (value instanceof String) {
+        writeVarint(V_STRING);
+        writeString((String) value);
+      } else {
+        writeNumber(value);
+      }
+    }
+
+    private void writeNumber(Object value) {
+      if (value instanceof Integer) {
+        writeVarint(V_INT);
+        writeSignedVarint((Integer) value);
+      } else if (value instanceof Long) {
+        writeVarint(V_LONG);
+        writeSignedVarint((Long) value);
+      } else if (value instanceof BigInteger) {
+        writeVarint(V_BIG_INTEGER);
+        writeBytes(((BigInteger) value).toByteArray());
+      } else if (value instanceof Float) {
+        writeVarint(V_FLOAT);
+        writeFixed(Float.floatToIntBits((Float) value), 4);
+      } else if (value instanceof Double) {
+        writeVarint(V_DOUBLE);
+        writeFixed(Double.doubleToLongBits((Double) value), 8);
+      } else if (value instanceof BigDecimal) {
+        BigDecimal decimal = (BigDecimal) value;
+        writeVarint(V_BIG_DECIMAL);
+        writeSignedVarint(decimal.scale());
+        writeBytes(decimal.unscaledValue().toByteArray());
+      } else {
+        throw new IllegalArgumentException(
+            "Unsupported value type: " + value.getClass().getName());
+      }
+    }
+
+    /**
+     * Writes {@code root} on an explicit stack of the containers being written;
+     * an object's iterator yields fields, whose name is written before the value.
+     */
+    private void writeJson(JsonNode root) {
+      Deque<Iterator<?>> stack = new ArrayDeque<>();
+      Object next = root;
+      while (true) {
+        JsonNode node;
+        if (next instanceof Map.Entry) {
+          @SuppressWarnings("unchecked")
+          Map.Entry<String, JsonNode> field = (Map.Entry<String, JsonNode>) next;
+          writeString(field.getKey());
+          node = field.getValue();
+        } else {
+          node = (JsonNode) next;
+        }
+        if (node.isArray()) {
+          writeVarint(V_ARRAY);
+          writeVarint(node.size());
+          stack.push(node.elements());
+        } else if (node.isObject()) {
+          writeVarint(V_OBJECT);
+          writeVarint(node.size());
+          stack.push(node.fields());
+        } else {
+          writeJsonScalar(node);
+        }
+        while (!stack.isEmpty() && !stack.peek().hasNext()) {
+          stack.pop();
+        }
+        if (stack.isEmpty()) {
+          return;
+        }
+        next = stack.peek().next();
+      }
+    }
+
+    private void writeJsonScalar(JsonNode node) {
+      if (node.isNull() || node.isMissingNode()) {
+        writeVarint(V_NULL);
+      } else if (node.isBoolean()) {
+        writeVarint(node.booleanValue() ? V_TRUE : V_FALSE);
+      } else if (node.isTextual()) {
+        writeVarint(V_STRING);
+        writeString(node.textValue());
+      } else if (node.isNumber()) {
+        writeNumber(node.numberValue());
+      } else {
+        throw new IllegalArgumentException("Unsupported JSON node type: " + node.getNodeType());
+      }
+    }
+
+    /**
+     * 0 is null, {@code 2 * index + 1} refers to the string table and
+     * {@code 2 * (length + 1)} introduces a new UTF-8 string of that byte length.
+     */
+    private void writeString(String s) {
+      if (s == null) {
+        writeVarint(0);
+        return;
+      }
+      Integer index = strings.get(s);
+      if (index != null) {
+        writeVarint(2L * index + 1);
+        return;
+      }
+      strings.put(s, strings.size());
+      byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+      writeVarint(2L * (utf8.length + 1));
+      writeRaw(utf8);
+    }
+
+    private void writeNullableInt(Integer value) {
+      writeVarint(value == null ? 0 : zigzag(value) + 1);
+    }
+
+    private void writeBoolean(boolean value) {
+      writeByte(value ? 1 : 0);
+    }
+
+    private void writeBytes(byte[] bytes) {
+      writeVarint(bytes.length);
+      writeRaw(bytes);
+    }
+
+    private void writeSignedVarint(long value) {
+      writeVarint(zigzag(value));
+    }
+
+    private void writeVarint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        writeByte((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      writeByte((int) value);
+    }
+
+    private void writeFixed(long bits, int bytes) {
+      for (int i = bytes - 1; i >= 0; i--) {
+        writeByte((int) (bits >>> (8 * i)));
+      }
+    }
+
+    private void writeRaw(byte[] bytes) {
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buf, len, bytes.length);
+      len += bytes.length;
+    }
+
+    private void writeByte(int b) {
+      ensureCapacity(1);
+      buf[len++] = (byte) b;
+    }
+
+    private void ensureCapacity(int extra) {
+      if (len + extra > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buf, len);
+    }
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  // --- Decoding ---
+
+  private static final class Decoder {
+    private final byte[] buf;
+    private int pos;
+    private final List<String> strings = new ArrayList<>();
+    // Decoded schemas by pre-order index; null while a schema is still being decoded
+    private final List<Schema> schemas = new ArrayList<>();
+
+    Decoder(byte[] buf) {
+      this.buf = buf;
+    }
+
+    void readHeader() {
+      for (byte b : MAGIC) {
+        if (pos >= buf.length || buf[pos++] != b) {
+          throw new IllegalArgumentException("Not an encoded schema");
+        }
+      }
+      long version = readVarint();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported schema codec version: " + version);
+      }
+    }
+
+    /**
+     * Reads a schema and its subtree on an explicit stack of the records being
+     * read, so that the depth of the tree is bounded by memory, not by the
+     * thread's stack. A record is read up to its first child when it starts;
+     * the rest of it is a queue of steps, each a {@link Runnable} reading
+     * fields or a {@link Sink} taking the next child schema. A step that reads
+     * a count adds the steps for that many children at the head of the queue.
+     */
+    Schema readSchema() {
+      Schema[] root = new Schema[1];
+      Deque<Record> stack = new ArrayDeque<>();
+      readChild(schema -> root[0] = schema, stack);
+      while (!stack.isEmpty()) {
+        Record record = stack.peek();
+        Object step = record.steps.poll();
+        if (step == null) {
+          stack.pop();
+          Schema schema = record.build.get();
+          schemas.set(record.index, schema);
+          // As the loader does: the subschemas are hashed, so this is one pass over the node
+          schema.getStructuralHash();
+          record.sink.accept(schema);
+        } else if (step instanceof Runnable) {
+          ((Runnable) step).run();
+        } else {
+          readChild((Sink) step, stack);
+        }
+      }
+      return root[0];
+    }
+
+    /**
+     * Reads the next schema for {@code sink}: a null or a back-reference is
+     * delivered at once, a new record is started and pushed onto {@code stack}.
+     */
+    private void readChild(Sink sink, Deque<Record> stack) {
+      int tag = readTag();
+      if (tag == NULL) {
+        sink.accept(null);
+        return;
+      }
+      if (tag == BACK_REF) {
+        int index = readIndex();
+        Schema schema = schemas.get(index);
+        if (schema == null) {
+          schema = ReferenceSchema.builder().resolver(() -> schemas.get(index)).build();
+        }
+        sink.accept(schema);
+        return;
+      }
+
+      Record record = new Record(schemas.size(), sink);
+      schemas.add(null);
+      switch (tag) {
+        case REFERENCE:
+          readReferenceSchema(record);
+          break;
+        case STRING: {
+          StringSchema.Builder builder = readBase(StringSchema.builder());
+          builder.maxLength(readNullableInt())
+              .minLength(readNullableInt())
+              .pattern(readString());
+          record.build = builder::build;
+          break;
+        }
+        case NUMBER: {
+          NumberSchema.Builder builder = readBase(NumberSchema.builder());
+          builder.maximum(readNullableNumber())
+              .minimum(readNullableNumber())
+              .exclusiveMaximumLimit(readNullableNumber())
+              .exclusiveMinimumLimit(readNullableNumber())
+              .multipleOf(readNullableNumber())
+              .requiresInteger(readBoolean());
+          record.build = builder::build;
+          break;
+        }
+        case OBJECT:
+          readObjectSchema(record);
+          break;
+        case ARRAY:
+          readArraySchema(record);
+          break;
+        case COMBINED: {
+          CombinedSchema.Builder builder = readBase(CombinedSchema.builder());
+          builder.criterion(readCriterion());
+          int count = readCount();
+          List<Schema> subschemas = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            record.steps.add((Sink) subschemas::add);
+          }
+          record.build = () -> builder.subschemas(subschemas).build();
+          break;
+        }
+        case NOT: {
+          NotSchema.Builder builder = readBase(NotSchema.builder());
+          record.steps.add((Sink) builder::mustNotMatch);
+          record.build = builder::build;
+          break;
+        }
+        case ENUM: {
+          EnumSchema.Builder builder = readBase(EnumSchema.builder());
+          int count = readCount();
+          Set<Object> values = new LinkedHashSet<>();
+          for (int i = 0; i < count; i++) {
+            values.add(readValue());
+          }
+          builder.possibleValues(values);
+          record.build = builder::build;
+          break;
+        }
+        case CONST: {
+          ConstSchema.Builder builder = readBase(ConstSchema.builder());
+          builder.permittedValue(readValue());
+          record.build = builder::build;
+          break;
+        }
+        case FALSE:
+          record.build = readBase(FalseSchema.builder())::build;
+          break;
+        case EMPTY:
+          record.build = readBase(EmptySchema.builder())::build;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown schema tag " + tag + " at offset " + pos);
+      }
+      stack.push(record);
+    }
+
+    private void readReferenceSchema(Record record) {
+      ReferenceSchema.Builder builder = readBase(ReferenceSchema.builder());
+      builder.referenceValue(readString());
+      int start = pos;
+      if (readVarint() == BACK_REF) {
+        int target = readIndex();
+        Schema schema = schemas.get(target);
+        if (schema != null) {
+          builder.referredSchema(schema);
+        } else {
+          builder.resolver(() -> schemas.get(target));
+        }
+      } else {
+        pos = start;
+        record.steps.add((Sink) builder::referredSchema);
+      }
+      record.build = builder::build;
+    }
+
+    private void readObjectSchema(Record record) {
+      ObjectSchema.Builder builder = readBase(ObjectSchema.builder());
+      int count = readCount();
+      for (int i = 0; i < count; i++) {
+        addNamedChild(record.steps, builder::addPropertySchema);
+      }
+      record.steps.add((Runnable) () -> {
+        int required = readCount();
+        for (int i = 0; i < required; i++) {
+          builder.addRequiredProperty(readName());
+        }
+        builder.permitsAdditionalProperties(readBoolean());
+      });
+      record.steps.add((Sink) builder::schemaOfAdditionalProperties);
+      record.steps.add((Runnable) () -> record.insertNamedChildren(
+          readCount(), builder::addPatternProperty));
+      record.steps.add((Runnable) () -> {
+        int dependencies = readCount();
+        for (int i = 0; i < dependencies; i++) {
+          String property = readName();
+          int size = readCount();
+          Set<String> names = new LinkedHashSet<>();
+          for (int j = 0; j < size; j++) {
+            names.add(readName());
+          }
+          builder.addPropertyDependency(property, names);
+        }
+        record.insertNamedChildren(readCount(), builder::addSchemaDependency);
+      });
+      record.steps.add((Runnable) () -> builder.maxProperties(readNullableInt())
+          .minProperties(readNullableInt()));
+      record.build = builder::build;
+    }
+
+    private void readArraySchema(Record record) {
+      ArraySchema.Builder builder = readBase(ArraySchema.builder());
+      record.steps.add((Sink) builder::allItemSchema);
+      record.steps.add((Runnable) () -> {
+        long items = readVarint();
+        if (items > 0) {
+          // Each item record takes at least one byte
+          if (items - 1 > buf.length - pos) {
+            throw new IllegalArgumentException("Invalid length " + items + " at offset " + pos);
+          }
+          List<Schema> itemSchemas = new ArrayList<>();
+          builder.itemSchemas(itemSchemas);
+          for (long i = 1; i < items; i++) {
+            record.steps.addFirst((Sink) itemSchemas::add);
+          }
+        }
+      });
+      record.steps.add((Runnable) () -> builder.permitsAdditionalItems(readBoolean()));
+      record.steps.add((Sink) builder::schemaOfAdditionalItems);
+      record.steps.add((Runnable) () -> builder.maxItems(readNullableInt())
+          .minItems(readNullableInt())
+          .needsUniqueItems(readBoolean()));
+      record.build = builder::build;
+    }
+
+    /**
+     * Adds to {@code steps} reading a name and then a schema, passed together
+     * to {@code consumer}.
+     */
+    private void addNamedChild(Deque<Object> steps, BiConsumer<String, Schema> consumer) {
+      String[] name = new String[1];
+      steps.add((Runnable) () -> name[0] = readName());
+      steps.add((Sink) schema -> consumer.accept(name[0], schema));
+    }
+
+    private <B extends Schema.Builder<B>> B readBase(B builder) {
+      builder.id(readString())
+          .title(readString())
+          .description(readString())
+          .defaultValue(readValue());
+      int count = readCount();
+      if (count > 0) {
+        Map<String, JsonNode> unprocessed = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+          unprocessed.put(readName(), readJson());
+        }
+        builder.unprocessedProperties(unprocessed);
+      }
+      return builder;
+    }
+
+    private Object readValue() {
+      int tag = readTag();
+      switch (tag) {
+        case V_NULL:
+          return null;
+        case V_TRUE:
+          return Boolean.TRUE;
+        case V_FALSE:
+          return Boolean.FALSE;
+        case V_STRING:
+          return readString();
+        case V_JSON:
+          return readJson();
+        default:
+          return readNumber(tag);
+      }
+    }
+
+    private Number readNullableNumber() {
+      int tag = readTag();
+      return tag == V_NULL ? null : readNumber(tag);
+    }
+
+    private CombinedSchema.ValidationCriterion readCriterion() {
+      CombinedSchema.ValidationCriterion[] criteria = CombinedSchema.ValidationCriterion.values();
+      long ordinal = readVarint();
+      if (ordinal < 0 || ordinal >= criteria.length) {
+        throw new IllegalArgumentException("Unknown criterion " + ordinal + " at offset " + pos);
+      }
+      return criteria[(int) ordinal];
+    }
+
+    private Number readNumber(int tag) {
+      switch (tag) {
+        case V_INT:
+          return (int) unzigzag(readVarint());
+        case V_LONG:
+          return unzigzag(readVarint());
+        case V_BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case V_FLOAT:
+          return Float.intBitsToFloat((int) readFixed(4));
+        case V_DOUBLE:
+          return Double.longBitsToDouble(readFixed(8));
+        case V_BIG_DECIMAL: {
+          int scale = (int) unzigzag(readVarint());
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        }
+        default:
+          throw new IllegalArgumentException("Unknown value tag " + tag + " at offset " + pos);
+      }
+    }
+
+    /**
+     * Reads a JSON value on an explicit stack of the containers being filled.
+     * A container is attached to its parent when it starts, so it is complete
+     * once its last element is read.
+     */
+    private JsonNode readJson() {
+      Deque<JsonFrame> stack = new ArrayDeque<>();
+      JsonNode root = null;
+      do {
+        JsonFrame parent = stack.peek();
+        String name = parent != null && parent.node.isObject() ? readName() : null;
+        int tag = readTag();
+        JsonNode node;
+        int count = 0;
+        if (tag == V_ARRAY) {
+          count = readCount();
+          node = JsonNodeFactory.instance.arrayNode(count);
+        } else if (tag == V_OBJECT) {
+          count = readCount();
+          node = JsonNodeFactory.instance.objectNode();
+        } else {
+          node = readJsonScalar(tag);
+        }
+        if (parent == null) {
+          root = node;
+        } else {
+          if (name != null) {
+            ((ObjectNode) parent.node).set(name, node);
+          } else {
+            ((ArrayNode) parent.node).add(node);
+          }
+          parent.remaining--;
+        }
+        if (count > 0) {
+          stack.push(new JsonFrame(node, count));
+        }
+        while (!stack.isEmpty() && stack.peek().remaining == 0) {
+          stack.pop();
+        }
+      } while (!stack.isEmpty());
+      return root;
+    }
+
+    private JsonNode readJsonScalar(int tag) {
+      switch (tag) {
+        case V_NULL:
+          return NullNode.getInstance();
+        case V_TRUE:
+          return BooleanNode.TRUE;
+        case V_FALSE:
+          return BooleanNode.FALSE;
+        case V_STRING:
+          return TextNode.valueOf(readString());
+        default:
+          Number number = readNumber(tag);
+          if (number instanceof Integer) {
+            return IntNode.valueOf((Integer) number);
+          } else if (number instanceof Long) {
+            return LongNode.valueOf((Long) number);
+          } else if (number instanceof BigInteger) {
+            return BigIntegerNode.valueOf((BigInteger) number);
+          } else if (number instanceof Float) {
+            return FloatNode.valueOf((Float) number);
+          } else if (number instanceof Double) {
+            return DoubleNode.valueOf((Double) number);
+          }
+          return DecimalNode.valueOf((BigDecimal) number);
+      }
+    }
+
+    private String readName() {
+      String name = readString();
+      if (name == null) {
+        throw new IllegalArgumentException("Missing name at offset " + pos);
+      }
+      return name;
+    }
+
+    private String readString() {
+      long code = readVarint();
+      if (code == 0) {
+        return null;
+      }
+      if ((code & 1) == 1) {
+        return strings.get(checkIndex(code >>> 1, strings.size()));
+      }
+      long encodedLength = (code >>> 1) - 1;
+      if (encodedLength > buf.length - pos) {
+        throw new IllegalArgumentException("Truncated encoded schema at offset " + pos);
+      }
+      int length = (int) encodedLength;
+      String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      strings.add(s);
+      return s;
+    }
+
+    private Integer readNullableInt() {
+      long code = readVarint();
+      return code == 0 ? null : (int) unzigzag(code - 1);
+    }
+
+    private boolean readBoolean() {
+      checkAvailable(1);
+      return buf[pos++] != 0;
+    }
+
+    private byte[] readBytes() {
+      int length = readCount();
+      if (length == 0) {
+        throw new IllegalArgumentException("Empty integer at offset " + pos);
+      }
+      byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+      pos += length;
+      return bytes;
+    }
+
+    private int readTag() {
+      long tag = readVarint();
+      if (tag < 0 || tag > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Unknown tag " + tag + " at offset " + pos);
+      }
+      return (int) tag;
+    }
+
+    private int readIndex() {
+      return checkIndex(readVarint(), schemas.size());
+    }
+
+    private int readCount() {
+      long count = readVarint();
+      if (count < 0 || count > buf.length - pos) {
+        throw new IllegalArgumentException("Invalid length " + count + " at offset " + pos);
+      }
+      return (int) count;
+    }
+
+    private long readVarint() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        checkAvailable(1);
+        byte b = buf[pos++];
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint at offset " + pos);
+    }
+
+    private long readFixed(int bytes) {
+      checkAvailable(bytes);
+      long bits = 0;
+      for (int i = 0; i < bytes; i++) {
+        bits = (bits << 8) | (buf[pos++] & 0xFF);
+      }
+      return bits;
+    }
+
+    private void checkAvailable(int bytes) {
+      if (bytes < 0 || bytes > buf.length - pos) {
+        throw new IllegalArgumentException("Truncated encoded schema at offset " + pos);
+      }
+    }
+
+    private int checkIndex(long index, int size) {
+      if (index < 0 || index >= size) {
+        throw new IllegalArgumentException("Invalid back-reference " + index + " at offset " + pos);
+      }
+      return (int) index;
+    }
+
+    /**
+     * A step that takes the next child schema of a record.
+     */
+    private interface Sink {
+      void accept(Schema schema);
+    }
+
+    /**
+     * A schema record being read: its pre-order index, where the built schema
+     * goes, the steps left to read and how to build it once they are done.
+     */
+    private final class Record {
+      final int index;
+      final Sink sink;
+      final Deque<Object> steps = new ArrayDeque<>();
+      Supplier<Schema> build;
+
+      Record(int index, Sink sink) {
+        this.index = index;
+        this.sink = sink;
+      }
+
+      /**
+       * Puts {@code count} named children at the head of the queue.
+       */
+      void insertNamedChildren(int count, BiConsumer<String, Schema> consumer) {
+        Deque<Object> named = new ArrayDeque<>();
+        for (int i = 0; i < count; i++) {
+          addNamedChild(named, consumer);
+        }
+        for (Iterator<Object> it = named.descendingIterator(); it.hasNext(); ) {
+          steps.addFirst(it.next());
+        }
+      }
+    }
+
+    private static final class JsonFrame {
+      final JsonNode node;
+      int remaining;
+
+      JsonFrame(JsonNode node, int remaining) {
+        this.node = node;
+        this.remaining = remaining;
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.format.DataFormatDetector;
+import com.fasterxml.jackson.core.format.DataFormatMatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The encodings a schema document can be read from and written to: textual
+ * JSON and the Smile and CBOR binary forms of the same data model.
+ *
+ * The byte-based {@link SchemaLoader} entry points detect the format from the
+ * first bytes of the input (the Smile header, a CBOR map or array, or a JSON
+ * token), so binary documents load without being converted to text first.
+ * Input that matches none of them is parsed as JSON.
+ */
+public enum SchemaFormat {
+  JSON(new ObjectMapper()),
+  SMILE(new ObjectMapper(new SmileFactory())),
+  CBOR(new ObjectMapper(new CBORFactory()));
+
+  private static final DataFormatDetector DETECTOR = new DataFormatDetector(
+      JSON.mapper.getFactory(), SMILE.mapper.getFactory(), CBOR.mapper.getFactory());
+
+  private final ObjectMapper mapper;
+
+  SchemaFormat(ObjectMapper mapper) {
+    this.mapper = mapper;
+  }
+
+  public JsonFactory getFactory() {
+    return mapper.getFactory();
+  }
+
+  ObjectMapper mapper() {
+    return mapper;
+  }
+
+  /**
+   * The format of the document in {@code bytes[offset, offset + length)}.
+   */
+  public static SchemaFormat detect(byte[] bytes, int offset, int length) {
+    try {
+      return of(DETECTOR.findFormat(bytes, offset, length));
+    } catch (IOException e) {
+      // Only reads from the array, which cannot fail
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * The format of the document {@code matcher} has read the start of.
+   */
+  static SchemaFormat of(DataFormatMatcher matcher) {
+    if (!matcher.hasMatch()) {
+      return JSON;
+    }
+    JsonFactory factory = matcher.getMatch();
+    if (factory == SMILE.getFactory()) {
+      return SMILE;
+    }
+    return factory == CBOR.getFactory() ? CBOR : JSON;
+  }
+
+  /**
+   * Reads the start of {@code in} to detect its format; the returned matcher
+   * creates a parser that replays the bytes read.
+   */
+  static DataFormatMatcher match(InputStream in) throws IOException {
+    return DETECTOR.findFormat(in);
+  }
+}
@@ -0,0 +1,247 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.jsonschemadiff.utils.LruCache;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded intern table that lets successive loads share {@link Schema} instances
+ * for byte-identical subtrees, e.g. consecutive versions of the same subject.
+ *
+ * Entries are keyed by a 128-bit content hash of the raw subtree plus the draft
+ * version it was loaded with and whether it was loaded detached. Subtrees
+ * containing a {@code $ref} are never interned, since what they load to depends
+ * on the rest of the document. Only eagerly built subtrees are added: a lazily
+ * built one keeps its loader and source document until its children are built,
+ * and builds them with that loader's settings. Lazy loads still reuse the
+ * eagerly built entries. The
+ * trivial schemas ({@code true}, {@code false}, {@code {}}) are served as
+ * flyweights. An interner is safe to share between threads and loaders; pass
+ * it to {@link SchemaLoader.Builder#interner(SchemaInterner)}.
+ */
+public class SchemaInterner {
+
+  public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+  private static final EmptySchema EMPTY = EmptySchema.builder().build();
+  private static final FalseSchema FALSE = FalseSchema.builder().build();
+
+  private final LruCache<ContentKey, Entry> table;
+
+  public SchemaInterner() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  public SchemaInterner(int maxEntries) {
+    this.table = new LruCache<>(maxEntries);
+  }
+
+  public int size() {
+    return table.size();
+  }
+
+  public void clear() {
+    table.clear();
+  }
+
+  EmptySchema emptySchema() {
+    return EMPTY;
+  }
+
+  FalseSchema falseSchema() {
+    return FALSE;
+  }
+
+  Entry get(Object key) {
+    return table.get((ContentKey) key);
+  }
+
+  void put(Object key, Entry entry) {
+    table.put((ContentKey) key, entry);
+  }
+
+  /**
+   * An interned subtree with what a load that reuses it must count against
+   * its {@link LoaderLimits}: its height in nested subschemas, its longest
+   * pattern and the schema nodes that building it took.
+   */
+  static final class Entry {
+    final Schema schema;
+    final int height;
+    final int longestPattern;
+    final int nodes;
+
+    Entry(Schema schema, int height, int longestPattern, int nodes) {
+      this.schema = schema;
+      this.height = height;
+      this.longestPattern = longestPattern;
+      this.nodes = nodes;
+    }
+  }
+
+  /**
+   * Computes content keys for the nodes of one document, memoizing container
+   * hashes so that keying every subschema of a load costs one pass overall.
+   */
+  static final class Hasher {
+    private static final long[] NOT_INTERNABLE = new long[0];
+
+    private final JsonSchemaVersion version;
+    private final boolean detached;
+    private final Map<JsonNode, long[]> memo = new IdentityHashMap<>();
+
+    Hasher(JsonSchemaVersion version, boolean detached) {
+      this.version = version;
+      this.detached = detached;
+    }
+
+    /**
+     * Returns the intern key of {@code node}, or {@code null} if it must not be interned.
+     */
+    Object keyOf(JsonNode node) {
+      long[] hash = hash(node);
+      return hash == NOT_INTERNABLE ? null : new ContentKey(hash[0], hash[1], version, detached);
+    }
+
+    /**
+     * Hashes the containers below {@code root} depth-first on an explicit
+     * stack, so that deeply nested documents do not overflow the thread stack.
+     */
+    private long[] hash(JsonNode root) {
+      Deque<Frame> stack = new ArrayDeque<>();
+      long[] done = open(root, stack);
+      while (!stack.isEmpty()) {
+        Frame top = stack.peek();
+        if (done != null) {
+          if (done == NOT_INTERNABLE) {
+            stack.pop();
+            done = remember(top.node, NOT_INTERNABLE);
+            continue;
+          }
+          if (top.key != null) {
+            mix(top.hash, top.key);
+          }
+          mix(top.hash, done);
+          done = null;
+        }
+        if (top.fields != null && top.fields.hasNext()) {
+          Map.Entry<String, JsonNode> field = top.fields.next();
+          top.key = field.getKey();
+          done = open(field.getValue(), stack);
+        } else if (top.elements != null && top.elements.hasNext()) {
+          done = open(top.elements.next(), stack);
+        } else {
+          stack.pop();
+          mix(top.hash, top.node.size());
+          done = remember(top.node, top.hash);
+        }
+      }
+      return done;
+    }
+
+    /**
+     * The hash of {@code node} if it is known without visiting children;
+     * otherwise pushes a frame for it and returns {@code null}.
+     */
+    private long[] open(JsonNode node, Deque<Frame> stack) {
+      if (!node.isContainerNode()) {
+        if (node.isPojo()) {
+          return NOT_INTERNABLE;
+        }
+        long[] h = start(node.getNodeType().ordinal());
+        mix(h, node.asText());
+        return h;
+      }
+      long[] cached = memo.get(node);
+      if (cached != null) {
+        return cached;
+      }
+      if (node.isObject() && RefIndex.hasRef(node)) {
+        return remember(node, NOT_INTERNABLE);
+      }
+      stack.push(new Frame(node, start(node.getNodeType().ordinal())));
+      return null;
+    }
+
+    private long[] remember(JsonNode node, long[] hash) {
+      memo.put(node, hash);
+      return hash;
+    }
+
+    private static final class Frame {
+      final JsonNode node;
+      final long[] hash;
+      final Iterator<Map.Entry<String, JsonNode>> fields;
+      final Iterator<JsonNode> elements;
+      // Name of the field whose value is being hashed
+      String key;
+
+      Frame(JsonNode node, long[] hash) {
+        this.node = node;
+        this.hash = hash;
+        this.fields = node.isObject() ? node.fields() : null;
+        this.elements = node.isObject() ? null : node.elements();
+      }
+    }
+
+    private static long[] start(long tag) {
+      long[] h = {0xcbf29ce484222325L, 0x9E3779B97F4A7C15L};
+      mix(h, tag);
+      return h;
+    }
+
+    private static void mix(long[] h, String s) {
+      for (int i = 0; i < s.length(); i++) {
+        mix(h, s.charAt(i));
+      }
+      mix(h, s.length());
+    }
+
+    private static void mix(long[] h, long[] child) {
+      mix(h, child[0]);
+      mix(h, child[1]);
+    }
+
+    private static void mix(long[] h, long value) {
+      // FNV-1a and a splitmix-style lane, so the two halves fail independently
+      h[0] = (h[0] ^ value) * 0x100000001b3L;
+      long z = h[1] + value * 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      h[1] = z ^ (z >>> 31);
+    }
+  }
+
+  private static final class ContentKey {
+    private final long hash1;
+    private final long hash2;
+    private final JsonSchemaVersion version;
+    private final boolean detached;
+
+    ContentKey(long hash1, long hash2, JsonSchemaVersion version, boolean detached) {
+      this.hash1 = hash1;
+      this.hash2 = hash2;
+      this.version = version;
+      this.detached = detached;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      ContentKey that = (ContentKey) o;
+      return hash1 == that.hash1 && hash2 == that.hash2 && version == that.version
+          && detached == that.detached;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(hash1, hash2, version, detached);
+    }
+  }
+}
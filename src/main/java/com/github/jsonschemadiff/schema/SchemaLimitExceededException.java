@@ -0,0 +1,29 @@
+package com.github.jsonschemadiff.schema;
+
+/**
+ * Thrown when loading a schema crosses one of its {@link LoaderLimits}. It is
+ * an {@link IllegalArgumentException} like any other rejected schema, so
+ * existing handlers keep working; callers that want to tell an oversized
+ * schema from a malformed one can catch this type.
+ */
+public class SchemaLimitExceededException extends IllegalArgumentException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final LoaderLimits.Limit limit;
+  private final int maximum;
+
+  public SchemaLimitExceededException(LoaderLimits.Limit limit, int maximum) {
+    super("Schema exceeds the maximum " + limit + " of " + maximum);
+    this.limit = limit;
+    this.maximum = maximum;
+  }
+
+  public LoaderLimits.Limit getLimit() {
+    return limit;
+  }
+
+  public int getMaximum() {
+    return maximum;
+  }
+}
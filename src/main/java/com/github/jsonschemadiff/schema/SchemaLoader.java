@@ -1,16 +1,48 @@
 package com.github.jsonschemadiff.schema;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.format.DataFormatMatcher;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.github.jsonschemadiff.utils.PatternCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Loads a {@link JsonNode} and produces a typed {@link Schema} tree.
@@ -19,25 +51,162 @@ import java.util.regex.Pattern;
  * (type + enum/const), and draft-specific keyword interpretation.
  * When no {@link JsonSchemaVersion} is specified the loader auto-detects
  * from the {@code $schema} URL, falling back to {@code DRAFT_7}.
+ *
+ * Each local {@code $ref} target is loaded once per loader and the resulting
+ * {@link Schema} instance is shared by every reference to it, so the loaded
+ * schema is a DAG rather than a tree. A reference back to a target that is
+ * still being built (a recursive schema) becomes a {@link ReferenceSchema}
+ * that resolves to the finished target on first access.
+ *
+ * Loaders that share a {@link SchemaInterner} (see {@link #builder(JsonNode)})
+ * also share the {@link Schema} instances of identical {@code $ref}-free
+ * subtrees across documents. In lazy mode the children of each schema are
+ * built on first access, under the loader's lock. With a fork-join pool set,
+ * independent {@code definitions} are built in parallel before the sequential
+ * pass (see {@link DefinitionGraph}). In detached mode the loaded tree keeps
+ * no reference to the source document or to the loader. {@link LoaderLimits}
+ * bound the work a single load may do on untrusted input.
  */
 public class SchemaLoader {
 
   private static final ObjectMapper MAPPER = new ObjectMapper();
 
+  // Files at least this large are memory-mapped rather than read into a byte array
+  static final long MAP_THRESHOLD = 1 << 20;
+
   private final JsonNode rootNode;
   private final JsonSchemaVersion version;
+  // Built $ref targets keyed by JSON Pointer, so shared definitions load once
+  private final Map<String, Schema> refCache;
+  // Pointers whose targets are being built; a $ref to one of them is recursive
+  private final Set<String> loading = new HashSet<>();
+  private final SchemaInterner interner;
+  private final SchemaInterner.Hasher hasher;
+  private final boolean lazy;
+  private final ForkJoinPool pool;
+  private final Keyword idKeyword;
+  private final boolean detached;
+  // Recursive references created in detached mode, resolved once loading is done
+  private final Collection<ReferenceSchema> references;
+  private final LoaderLimits limits;
+  // Schema nodes built and $ref targets loaded so far, shared with parallel tasks
+  private final AtomicInteger nodes;
+  private final AtomicInteger refExpansions;
+  // Nesting depth of the subschema being built
+  private int depth;
+  // Height, longest pattern and nodes built of the subtrees built so far below
+  // the frame being built, recorded with each interned subtree
+  private int height;
+  private int longestPattern;
+  private int builtNodes;
+  // Reference targets of the document, indexed when loading starts
+  private RefIndex index;
+  // Subschemas built ahead of the parent that loads them, taken once by it
+  private final Map<JsonNode, Schema> built = new IdentityHashMap<>();
 
   public SchemaLoader(JsonNode rootNode) {
     this(rootNode, (JsonSchemaVersion) null);
   }
 
   public SchemaLoader(JsonNode rootNode, JsonSchemaVersion version) {
-    this.rootNode = rootNode;
-    this.version = version != null ? version : detectVersion(rootNode);
+    this(builder(rootNode).version(version));
+  }
+
+  private SchemaLoader(Builder builder) {
+    this.rootNode = builder.rootNode;
+    this.version = builder.version != null ? builder.version : detectVersion(rootNode);
+    this.interner = builder.interner;
+    this.detached = builder.detached;
+    this.hasher = interner != null ? new SchemaInterner.Hasher(version, detached) : null;
+    this.lazy = builder.lazy;
+    this.pool = builder.pool;
+    this.refCache = pool != null ? new ConcurrentHashMap<>() : new HashMap<>();
+    this.idKeyword = Keyword.of(version.idKeyword());
+    this.references = pool != null ? new ConcurrentLinkedQueue<>() : new ArrayList<>();
+    this.limits = builder.limits;
+    this.nodes = new AtomicInteger();
+    this.refExpansions = new AtomicInteger();
+  }
+
+  /**
+   * A loader for one parallel definition task: same document and cache, but its
+   * own set of targets in progress.
+   */
+  private SchemaLoader(SchemaLoader parent) {
+    this.rootNode = parent.rootNode;
+    this.version = parent.version;
+    this.interner = parent.interner;
+    this.detached = parent.detached;
+    this.hasher = interner != null ? new SchemaInterner.Hasher(version, detached) : null;
+    this.lazy = false;
+    this.pool = null;
+    this.refCache = parent.refCache;
+    this.idKeyword = parent.idKeyword;
+    this.references = parent.references;
+    this.limits = parent.limits;
+    this.nodes = parent.nodes;
+    this.refExpansions = parent.refExpansions;
+    this.index = parent.index;
+  }
+
+  public static Builder builder(JsonNode rootNode) {
+    return new Builder(rootNode);
+  }
+
+  /**
+   * A builder for a loader over any {@link SchemaSource}; a parser source is
+   * read into a tree first.
+   */
+  public static Builder builderFor(SchemaSource source) {
+    return new Builder(SourceNodes.asJsonNode(source));
+  }
+
+  public synchronized Schema load() {
+    if (index == null) {
+      index = RefIndex.build(rootNode, version);
+    }
+    if (pool != null) {
+      loadDefinitionsInParallel();
+    }
+    Schema schema = loadRefTarget("", rootNode);
+    built.clear();
+    if (detached) {
+      // Resolving drops each reference's resolver, the last link back to this loader
+      references.forEach(ReferenceSchema::getReferredSchema);
+      references.clear();
+    }
+    return schema;
   }
 
-  public Schema load() {
-    return loadSchema(rootNode);
+  /**
+   * Builds every definition that {@link DefinitionGraph} finds independent as a
+   * task on {@link #pool}, each started once the definitions it references are
+   * in the cache, so that the sequential pass finds them ready.
+   */
+  private void loadDefinitionsInParallel() {
+    DefinitionGraph graph = DefinitionGraph.scan(rootNode, pointer -> {
+      JsonNode ref = JsonNodeFactory.instance.objectNode()
+          .put("$ref", "#" + pointer.replace("%", "%25"));
+      JsonNode resolved = resolveRef(ref);
+      return resolved != ref ? resolved : null;
+    }, this::refPointer);
+    Map<String, CompletableFuture<Void>> tasks = new HashMap<>();
+    for (String pointer : graph.pointers()) {
+      CompletableFuture<?>[] deps = graph.dependencies(pointer).stream()
+          .map(tasks::get)
+          .toArray(CompletableFuture<?>[]::new);
+      JsonNode target = graph.target(pointer);
+      tasks.put(pointer, CompletableFuture.allOf(deps).thenRunAsync(
+          () -> new SchemaLoader(this).loadRefTarget(pointer, target), pool));
+    }
+    try {
+      CompletableFuture.allOf(tasks.values().toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
   }
 
   public JsonSchemaVersion getVersion() {
@@ -59,6 +228,113 @@ public class SchemaLoader {
     }
   }
 
+  /**
+   * Loads a schema from JSON (UTF-8, or UTF-16/32), Smile or CBOR bytes, parsed
+   * directly without decoding them to a {@code String} first. The format is
+   * detected from the first bytes (see {@link SchemaFormat}).
+   */
+  public static Schema load(byte[] json) {
+    return load(json, 0, json.length, null);
+  }
+
+  public static Schema load(byte[] json, int offset, int length) {
+    return load(json, offset, length, null);
+  }
+
+  public static Schema load(byte[] json, int offset, int length, JsonSchemaVersion version) {
+    try {
+      return new SchemaLoader(readTree(json, offset, length), version).load();
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid JSON schema", e);
+    }
+  }
+
+  /**
+   * Loads a schema from the remaining bytes of {@code json}, which may be a
+   * direct or memory-mapped buffer. The buffer's position is not changed.
+   */
+  public static Schema load(ByteBuffer json) {
+    return load(json, null);
+  }
+
+  public static Schema load(ByteBuffer json, JsonSchemaVersion version) {
+    try {
+      return new SchemaLoader(readTree(json), version).load();
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid JSON schema", e);
+    }
+  }
+
+  /**
+   * Loads a schema from {@code in}, which is read to the end of the document
+   * but not closed. I/O errors are thrown as is; malformed JSON is reported as
+   * an {@link IllegalArgumentException}.
+   */
+  public static Schema load(InputStream in) throws IOException {
+    return load(in, null);
+  }
+
+  public static Schema load(InputStream in, JsonSchemaVersion version) throws IOException {
+    JsonNode node;
+    try {
+      node = readTree(in);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Invalid JSON schema", e);
+    }
+    return new SchemaLoader(node, version).load();
+  }
+
+  /**
+   * Loads a schema from a file. Files of at least {@link #MAP_THRESHOLD} bytes
+   * on the default file system are memory-mapped and parsed in place; smaller
+   * ones are read into a byte array. I/O errors are thrown as is; malformed
+   * JSON is reported as an {@link IllegalArgumentException}.
+   */
+  public static Schema load(Path file) throws IOException {
+    return load(file, null);
+  }
+
+  public static Schema load(Path file, JsonSchemaVersion version) throws IOException {
+    JsonNode node;
+    try {
+      node = readTree(file);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Invalid JSON schema: " + file, e);
+    }
+    return new SchemaLoader(node, version).load();
+  }
+
+  static JsonNode readTree(byte[] json, int offset, int length) throws IOException {
+    return SchemaFormat.detect(json, offset, length).mapper().readTree(json, offset, length);
+  }
+
+  static JsonNode readTree(InputStream in) throws IOException {
+    DataFormatMatcher match = SchemaFormat.match(in);
+    SchemaFormat format = SchemaFormat.of(match);
+    try (JsonParser parser = format.getFactory().createParser(match.getDataStream())) {
+      parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+      JsonNode node = format.mapper().readTree(parser);
+      return node != null ? node : MissingNode.getInstance();
+    }
+  }
+
+  static JsonNode readTree(ByteBuffer json) throws IOException {
+    if (json.hasArray()) {
+      return readTree(json.array(), json.arrayOffset() + json.position(), json.remaining());
+    }
+    return readTree(new ByteBufferBackedInputStream(json.duplicate()));
+  }
+
+  static JsonNode readTree(Path file) throws IOException {
+    if (file.getFileSystem() != FileSystems.getDefault() || Files.size(file) < MAP_THRESHOLD) {
+      byte[] json = Files.readAllBytes(file);
+      return readTree(json, 0, json.length);
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return readTree(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
   public static Schema load(JsonNode node) {
     return new SchemaLoader(node).load();
   }
@@ -67,7 +343,57 @@ public class SchemaLoader {
     return new SchemaLoader(node, version).load();
   }
 
-  private static JsonSchemaVersion detectVersion(JsonNode root) {
+  /**
+   * Loads a schema by reading tokens from {@code parser} and building the typed
+   * tree as each subschema closes, without materializing the whole document as
+   * a {@link JsonNode} tree first. The parser is not closed.
+   *
+   * @see StreamingSchemaReader
+   */
+  public static Schema load(JsonParser parser) {
+    return load(parser, null);
+  }
+
+  public static Schema load(JsonParser parser, JsonSchemaVersion version) {
+    return load(parser, version, LoaderLimits.NONE);
+  }
+
+  /**
+   * Like {@link #load(JsonParser, JsonSchemaVersion)}, bounded by
+   * {@code limits} (see {@link Builder#limits(LoaderLimits)}). The depth of
+   * each subschema is checked as it is read.
+   */
+  public static Schema load(JsonParser parser, JsonSchemaVersion version, LoaderLimits limits) {
+    try {
+      return new StreamingSchemaReader(parser, version, limits).read();
+    } catch (SchemaLimitExceededException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid JSON schema", e);
+    }
+  }
+
+  /**
+   * Loads a schema from a {@link SchemaSource}. A Jackson tree is loaded as
+   * is and a parser source from its token stream. Other sources are read
+   * through {@link JsonNode} views built as the loader navigates them; the
+   * loader's passes reach every subschema, so these amount to a converted
+   * copy of the document, built level by level. Named apart from
+   * {@link #load(JsonNode)} so that calls with a {@code JsonNode} of inferred
+   * type, such as {@code load(node.deepCopy())}, stay unambiguous.
+   */
+  public static Schema loadSource(SchemaSource source) {
+    return loadSource(source, null);
+  }
+
+  public static Schema loadSource(SchemaSource source, JsonSchemaVersion version) {
+    if (source instanceof ParserSource && !((ParserSource) source).isBuffered()) {
+      return load(((ParserSource) source).parser(), version);
+    }
+    return new SchemaLoader(SourceNodes.asJsonNode(source), version).load();
+  }
+
+  static JsonSchemaVersion detectVersion(JsonNode root) {
     if (root != null && root.isObject() && root.has("$schema")) {
       JsonNode schemaNode = root.get("$schema");
       if (schemaNode.isTextual()) {
@@ -80,207 +406,633 @@ public class SchemaLoader {
     return JsonSchemaVersion.DRAFT_7;
   }
 
-  private Schema loadSchema(JsonNode node) {
+  Schema loadSchema(JsonNode node) {
     if (node == null) {
       return null;
     }
+    Schema trivial = trivialSchema(node);
+    if (trivial != null) {
+      return trivial;
+    }
+    Schema prebuilt = built.remove(node);
+    return prebuilt != null ? prebuilt : loadIteratively(node);
+  }
 
-    // Boolean schemas
+  /**
+   * The schema of a node that needs no building: one already built by the
+   * streaming reader, a boolean schema, or a non-object or empty object node,
+   * which accept everything. {@code null} for any other node.
+   */
+  private Schema trivialSchema(JsonNode node) {
+    if (isLoadedSchema(node)) {
+      return (Schema) ((POJONode) node).getPojo();
+    }
     if (node.isBoolean()) {
-      return node.asBoolean()
-          ? EmptySchema.builder().build()
-          : FalseSchema.builder().build();
+      return node.asBoolean() ? emptySchema() : falseSchema();
+    }
+    if (!node.isObject() || node.isEmpty()) {
+      return emptySchema();
+    }
+    return null;
+  }
+
+  private Schema emptySchema() {
+    return interner != null ? interner.emptySchema() : EmptySchema.builder().build();
+  }
+
+  private Schema falseSchema() {
+    return interner != null ? interner.falseSchema() : FalseSchema.builder().build();
+  }
+
+  // --- Iterative building ---
+
+  /**
+   * A subschema being built by {@link #loadIteratively}: either an object node
+   * whose eagerly loaded children are built first, or a {@code $ref} whose
+   * single child is its target.
+   */
+  private static final class Frame {
+    final JsonNode node;
+    final int depth;
+    final Object internKey;
+    final KeywordScan scan;
+    final String pointer;
+    final List<JsonNode> children;
+    int next;
+    Schema target;
+    // The loader's subtree statistics when the frame was entered
+    int savedHeight;
+    int savedPattern;
+    int startNodes;
+
+    Frame(JsonNode node, int depth, Object internKey, KeywordScan scan, List<JsonNode> children) {
+      this(node, depth, internKey, scan, null, children);
+    }
+
+    Frame(JsonNode node, int depth, String pointer, JsonNode target) {
+      this(node, depth, null, null, pointer, Collections.singletonList(target));
+    }
+
+    private Frame(JsonNode node, int depth, Object internKey, KeywordScan scan,
+        String pointer, List<JsonNode> children) {
+      this.node = node;
+      this.depth = depth;
+      this.internKey = internKey;
+      this.scan = scan;
+      this.pointer = pointer;
+      this.children = children;
+    }
+  }
+
+  /**
+   * Builds the subschema at {@code root} without recursing per nesting level.
+   * The subschemas below it are visited depth-first on an explicit stack, in
+   * the order the keyword loaders would request them, and each is built once
+   * its children are: the keyword loaders then take the children from
+   * {@link #built} instead of descending into them. {@code $ref} targets, the
+   * intern table and the depth limit are handled exactly as a recursive
+   * descent would, so the result is the same tree; memory grows with the
+   * document instead of the thread stack.
+   */
+  private Schema loadIteratively(JsonNode root) {
+    int baseDepth = depth;
+    Deque<Frame> stack = new ArrayDeque<>();
+    try {
+      Schema done = enter(root, baseDepth + 1, stack);
+      while (!stack.isEmpty()) {
+        Frame top = stack.peek();
+        if (done != null) {
+          // The result of the child entered last
+          if (top.pointer != null) {
+            top.target = done;
+          } else {
+            built.put(top.children.get(top.next - 1), done);
+          }
+          done = null;
+        }
+        if (top.next < top.children.size()) {
+          done = enter(top.children.get(top.next++), top.depth + 1, stack);
+        } else {
+          stack.pop();
+          done = finish(top);
+        }
+      }
+      return done;
+    } finally {
+      depth = baseDepth;
+      // Only left over when a limit was crossed
+      for (Frame frame : stack) {
+        if (frame.pointer != null) {
+          loading.remove(frame.pointer);
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts building {@code node}: returns its schema if it needs no building
+   * (trivial, interned, or a cached or recursive {@code $ref}), otherwise
+   * pushes its frame and returns {@code null}.
+   */
+  private Schema enter(JsonNode node, int nodeDepth, Deque<Frame> stack) {
+    Schema trivial = trivialSchema(node);
+    if (trivial != null) {
+      return trivial;
+    }
+    limits.check(LoaderLimits.Limit.DEPTH, nodeDepth);
+    Object key = null;
+    if (interner != null) {
+      key = hasher.keyOf(node);
+      if (key != null) {
+        SchemaInterner.Entry interned = interner.get(key);
+        if (interned != null) {
+          return reuse(interned, nodeDepth);
+        }
+      }
+    }
+
+    // Resolve $ref first; each target is loaded once and shared by all references
+    String pointer = refPointer(node);
+    if (pointer != null) {
+      Schema cached = refCache.get(pointer);
+      if (cached != null) {
+        return cached;
+      }
+      if (loading.contains(pointer)) {
+        return recursiveReference(pointer);
+      }
+      JsonNode resolved = resolveRef(node);
+      if (resolved != node) {
+        startRefTarget(pointer);
+        stack.push(new Frame(node, nodeDepth, pointer, resolved));
+        return null;
+      }
+    }
+
+    KeywordScan scan = KeywordScan.of(node);
+    Frame frame = new Frame(node, nodeDepth, key, scan, childNodes(scan));
+    frame.savedHeight = height;
+    frame.savedPattern = longestPattern;
+    frame.startNodes = builtNodes;
+    height = 0;
+    longestPattern = 0;
+    stack.push(frame);
+    return null;
+  }
+
+  /**
+   * Returns an interned subtree in place of building it, applying the limits
+   * to it as if it had been built at {@code nodeDepth}.
+   */
+  private Schema reuse(SchemaInterner.Entry interned, int nodeDepth) {
+    limits.check(LoaderLimits.Limit.DEPTH, nodeDepth + interned.height - 1);
+    limits.check(LoaderLimits.Limit.PATTERN_LENGTH, interned.longestPattern);
+    limits.check(LoaderLimits.Limit.NODES, nodes.addAndGet(interned.nodes));
+    height = Math.max(height, interned.height);
+    longestPattern = Math.max(longestPattern, interned.longestPattern);
+    builtNodes += interned.nodes;
+    return interned.schema;
+  }
+
+  private Schema finish(Frame frame) {
+    if (frame.pointer != null) {
+      refCache.put(frame.pointer, frame.target);
+      loading.remove(frame.pointer);
+      return frame.target;
+    }
+    depth = frame.depth;
+    Schema schema = loadScan(frame.scan);
+    if (!lazy) {
+      // The children are built and hashed, so this costs one pass over the node
+      schema.getStructuralHash();
+    }
+    int nodeHeight = height + 1;
+    if (frame.internKey != null && !lazy) {
+      int subtreeNodes = builtNodes - frame.startNodes;
+      interner.put(frame.internKey,
+          new SchemaInterner.Entry(schema, nodeHeight, longestPattern, subtreeNodes));
+    }
+    height = Math.max(frame.savedHeight, nodeHeight);
+    longestPattern = Math.max(frame.savedPattern, longestPattern);
+    return schema;
+  }
+
+  /**
+   * A reference back to a target that is still being built: it points at the
+   * target once that has been built.
+   */
+  private ReferenceSchema recursiveReference(String pointer) {
+    ReferenceSchema reference = ReferenceSchema.builder()
+        .referenceValue("#" + pointer)
+        .resolver(() -> {
+          synchronized (this) {
+            return refCache.get(pointer);
+          }
+        })
+        .build();
+    if (detached) {
+      references.add(reference);
+    }
+    return reference;
+  }
+
+  /**
+   * The subschema nodes that {@link #loadScan} loads eagerly for {@code scan},
+   * in the order it loads them. Alternatives of a type array load the same
+   * nodes again; only the first one that has any is listed, as the others
+   * build their own copies.
+   */
+  private List<JsonNode> childNodes(KeywordScan scan) {
+    if (lazy) {
+      return Collections.emptyList();
+    }
+    List<JsonNode> children = new ArrayList<>();
+    addChildNodes(scan, children);
+    // Trivial subschemas are cheaper to load in place than to hand over
+    children.removeIf(child -> !child.isObject() || child.isEmpty());
+    return children;
+  }
+
+  private void addChildNodes(KeywordScan scan, List<JsonNode> children) {
+    if (isImplicitCombined(scan)) {
+      addChildNodes(scan.without(ENUM_KEYWORDS), children);
+      return;
+    }
+    if (scan.hasAny(COMBINED_KEYWORDS)) {
+      JsonNode arr = scan.get(combinedKeyword(scan));
+      if (arr != null && arr.isArray()) {
+        arr.forEach(children::add);
+      }
+      return;
+    }
+    JsonNode typeNode = scan.get(Keyword.TYPE);
+    if (typeNode != null && typeNode.isArray()) {
+      for (JsonNode t : typeNode) {
+        addChildNodes(scan.with(Keyword.TYPE, TextNode.valueOf(t.asText())), children);
+        if (!children.isEmpty()) {
+          return;
+        }
+      }
+      return;
+    }
+    if (scan.has(Keyword.NOT)) {
+      children.add(scan.get(Keyword.NOT));
+      return;
+    }
+    if (scan.hasAny(ENUM_KEYWORDS)) {
+      return;
+    }
+    String type = scan.text(Keyword.TYPE);
+    if ("string".equals(type) || "number".equals(type) || "integer".equals(type)) {
+      return;
+    }
+    if ("object".equals(type) || isInferredObject(scan, type)) {
+      addObjectChildNodes(scan, children);
+    } else if ("array".equals(type) || isInferredArray(scan, type)) {
+      addArrayChildNodes(scan, children);
+    }
+  }
+
+  private void addObjectChildNodes(KeywordScan scan, List<JsonNode> children) {
+    JsonNode props = scan.get(Keyword.PROPERTIES);
+    if (props != null && props.isObject()) {
+      props.forEach(children::add);
     }
+    JsonNode ap = scan.get(Keyword.ADDITIONAL_PROPERTIES);
+    if (ap != null && !ap.isBoolean() && isSchemaObject(ap)) {
+      children.add(ap);
+    }
+    JsonNode pp = scan.get(Keyword.PATTERN_PROPERTIES);
+    if (pp != null && pp.isObject()) {
+      Iterator<Map.Entry<String, JsonNode>> fields = pp.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> entry = fields.next();
+        checkPattern(entry.getKey());
+        children.add(entry.getValue());
+      }
+    }
+    if (version.usesDependentKeywords()) {
+      addSchemaDependencyNodes(scan.get(Keyword.DEPENDENT_SCHEMAS), children);
+      if (!scan.hasAny(DEPENDENT_KEYWORDS)) {
+        addSchemaDependencyNodes(scan.get(Keyword.DEPENDENCIES), children);
+      }
+    } else {
+      addSchemaDependencyNodes(scan.get(Keyword.DEPENDENCIES), children);
+    }
+  }
 
-    if (!node.isObject()) {
-      return EmptySchema.builder().build();
+  private static void addSchemaDependencyNodes(JsonNode deps, List<JsonNode> children) {
+    if (deps != null && deps.isObject()) {
+      for (JsonNode dep : deps) {
+        if (!dep.isArray() && isSchemaObject(dep)) {
+          children.add(dep);
+        }
+      }
     }
+  }
 
-    // Empty object = accept everything
-    if (node.isEmpty()) {
-      return EmptySchema.builder().build();
+  private void addArrayChildNodes(KeywordScan scan, List<JsonNode> children) {
+    JsonNode items = scan.get(Keyword.ITEMS);
+    if (version.usesPrefixItems()) {
+      JsonNode prefixItems = scan.get(Keyword.PREFIX_ITEMS);
+      if (prefixItems != null && prefixItems.isArray()) {
+        prefixItems.forEach(children::add);
+      }
+      if (items != null && isSchemaObject(items)) {
+        children.add(items);
+      }
+    } else if (items != null) {
+      if (isSchemaObject(items)) {
+        children.add(items);
+      } else if (items.isArray()) {
+        items.forEach(children::add);
+      }
     }
+    JsonNode ai = scan.get(Keyword.ADDITIONAL_ITEMS);
+    if (ai != null && !ai.isBoolean() && isSchemaObject(ai)) {
+      children.add(ai);
+    }
+  }
 
-    // Resolve $ref first
-    node = resolveRef(node);
+  private void checkPattern(String pattern) {
+    limits.check(LoaderLimits.Limit.PATTERN_LENGTH, pattern.length());
+    longestPattern = Math.max(longestPattern, pattern.length());
+  }
+
+  /**
+   * Rejects a malformed pattern at load time. The compiled pattern stays in
+   * {@link PatternCache}, so later loads and matches of it compile nothing.
+   */
+  private void compilePattern(String pattern) {
+    checkPattern(pattern);
+    PatternCache.compile(pattern);
+  }
+
+  private Schema loadScan(KeywordScan scan) {
+    limits.check(LoaderLimits.Limit.NODES, nodes.incrementAndGet());
+    builtNodes++;
 
     // Check for implicit combined: type + enum/const → allOf
-    if (isImplicitCombined(node)) {
-      return loadImplicitCombined(node);
+    if (isImplicitCombined(scan)) {
+      return loadImplicitCombined(scan);
     }
 
     // Explicit combined schemas: allOf, anyOf, oneOf
-    if (node.has("allOf") || node.has("anyOf") || node.has("oneOf")) {
-      return loadCombinedSchema(node);
+    if (scan.hasAny(COMBINED_KEYWORDS)) {
+      return loadCombinedSchema(scan);
     }
 
     // Type arrays → anyOf
-    JsonNode typeNode = node.get("type");
+    JsonNode typeNode = scan.get(Keyword.TYPE);
     if (typeNode != null && typeNode.isArray()) {
-      return loadTypeArray(node);
+      return loadTypeArray(scan);
     }
 
     // not schema
-    if (node.has("not")) {
-      return loadNotSchema(node);
+    if (scan.has(Keyword.NOT)) {
+      return loadNotSchema(scan);
     }
 
     // const schema (checked before enum since const is more specific)
-    if (node.has("const")) {
-      return loadConstSchema(node);
+    if (scan.has(Keyword.CONST)) {
+      return loadConstSchema(scan);
     }
 
     // enum schema
-    if (node.has("enum")) {
-      return loadEnumSchema(node);
+    if (scan.has(Keyword.ENUM)) {
+      return loadEnumSchema(scan);
     }
 
-    String type = getTextualType(node);
+    String type = scan.text(Keyword.TYPE);
 
     if ("string".equals(type)) {
-      return loadStringSchema(node);
+      return loadStringSchema(scan);
     }
     if ("number".equals(type) || "integer".equals(type)) {
-      return loadNumberSchema(node);
+      return loadNumberSchema(scan);
     }
-    if ("object".equals(type) || isInferredObject(node, type)) {
-      return loadObjectSchema(node);
+    if ("object".equals(type) || isInferredObject(scan, type)) {
+      return loadObjectSchema(scan);
     }
-    if ("array".equals(type) || isInferredArray(node, type)) {
-      return loadArraySchema(node);
+    if ("array".equals(type) || isInferredArray(scan, type)) {
+      return loadArraySchema(scan);
     }
     if ("boolean".equals(type) || "null".equals(type)) {
-      return buildBaseSchema(EmptySchema.builder(), node).build();
+      return buildBaseSchema(EmptySchema.builder(), scan).build();
     }
 
-    return buildBaseSchema(EmptySchema.builder(), node).build();
+    return buildBaseSchema(EmptySchema.builder(), scan).build();
   }
 
   // --- Ref resolution ---
 
-  private JsonNode resolveRef(JsonNode node) {
-    if (!node.isObject()) {
-      return node;
+  private Schema loadRefTarget(String pointer, JsonNode target) {
+    Schema cached = refCache.get(pointer);
+    if (cached != null) {
+      return cached;
+    }
+    startRefTarget(pointer);
+    try {
+      Schema schema = loadSchema(target);
+      refCache.put(pointer, schema);
+      return schema;
+    } finally {
+      loading.remove(pointer);
     }
+  }
+
+  private void startRefTarget(String pointer) {
+    if (!pointer.isEmpty()) {
+      limits.check(LoaderLimits.Limit.REF_EXPANSIONS, refExpansions.incrementAndGet());
+    }
+    loading.add(pointer);
+  }
+
+  /**
+   * The JSON Pointer of a local {@code $ref} (e.g. {@code #/definitions/Address}),
+   * percent-decoded, or {@code null} if the node has none.
+   */
+  static String localRefPointer(JsonNode node) {
     JsonNode refNode = node.get("$ref");
     if (refNode == null || !refNode.isTextual()) {
-      return node;
+      return null;
     }
     String ref = refNode.asText();
-    if (ref.startsWith("#/")) {
-      String pointer = ref.substring(1);
-      JsonNode resolved = rootNode.at(pointer);
-      if (resolved != null && !resolved.isMissingNode()) {
-        return resolveRef(resolved);
-      }
+    if (!ref.equals("#") && !ref.startsWith("#/")) {
+      return null;
     }
-    return node;
+    return RefIndex.decode(ref.substring(1));
   }
 
-  // --- Implicit combined (type + enum/const) ---
+  /**
+   * The canonical pointer of the target of any reference {@code node} holds,
+   * from the {@link RefIndex} once loading has started. Before that (while the
+   * streaming reader is still building subschemas) only local pointers
+   * resolve.
+   */
+  private String refPointer(JsonNode node) {
+    if (index != null && index.covers(node)) {
+      return index.pointer(node);
+    }
+    return localRefPointer(node);
+  }
 
-  private boolean isImplicitCombined(JsonNode node) {
-    boolean hasEnumOrConst = node.has("enum") || node.has("const");
-    if (!hasEnumOrConst) {
-      return false;
+  /**
+   * Follows a chain of references to the node it ends at. A chain that loops
+   * back on itself without reaching a schema is left unresolved.
+   */
+  private JsonNode resolveRef(JsonNode node) {
+    JsonNode current = node;
+    Set<String> seen = new HashSet<>();
+    String pointer;
+    while ((pointer = refPointer(current)) != null) {
+      JsonNode resolved = index != null ? index.target(pointer) : null;
+      if (resolved == null) {
+        resolved = rootNode.at(pointer);
+      }
+      if (resolved.isMissingNode()) {
+        break;
+      }
+      if (!seen.add(pointer)) {
+        return node;
+      }
+      current = resolved;
     }
-    String type = getTextualType(node);
-    return type != null
-        || node.has("properties") || node.has("items")
-        || node.has("minLength") || node.has("maxLength") || node.has("pattern")
-        || node.has("minimum") || node.has("maximum")
-        || node.has("exclusiveMinimum") || node.has("exclusiveMaximum")
-        || node.has("multipleOf");
+    return current;
   }
 
-  private Schema loadImplicitCombined(JsonNode node) {
-    com.fasterxml.jackson.databind.node.ObjectNode base =
-        ((com.fasterxml.jackson.databind.node.ObjectNode) node).deepCopy();
-    com.fasterxml.jackson.databind.node.ObjectNode enumPart = base.objectNode();
+  // --- Implicit combined (type + enum/const) ---
 
-    if (base.has("enum")) {
-      enumPart.set("enum", base.get("enum"));
-      base.remove("enum");
-    }
-    if (base.has("const")) {
-      enumPart.set("const", base.get("const"));
-      base.remove("const");
-    }
+  private static final long ENUM_KEYWORDS = Keyword.bits(Keyword.ENUM, Keyword.CONST);
 
-    List<Schema> subs = new ArrayList<>();
-    subs.add(loadSchema(base));
-    if (!enumPart.isEmpty()) {
-      subs.add(loadSchema(enumPart));
+  // Keywords that, like a textual type, make enum/const part of an implicit allOf
+  private static final long CONSTRAINT_KEYWORDS = Keyword.bits(
+      Keyword.PROPERTIES, Keyword.ITEMS,
+      Keyword.MIN_LENGTH, Keyword.MAX_LENGTH, Keyword.PATTERN,
+      Keyword.MINIMUM, Keyword.MAXIMUM, Keyword.EXCLUSIVE_MINIMUM, Keyword.EXCLUSIVE_MAXIMUM,
+      Keyword.MULTIPLE_OF);
+
+  private boolean isImplicitCombined(KeywordScan scan) {
+    if (!scan.hasAny(ENUM_KEYWORDS)) {
+      return false;
     }
+    return scan.text(Keyword.TYPE) != null
+        || scan.hasAny(CONSTRAINT_KEYWORDS);
+  }
 
-    return CombinedSchema.builder()
-        .criterion(CombinedSchema.ALL_CRITERION)
-        .subschemas(subs)
-        .build();
+  private Schema loadImplicitCombined(KeywordScan scan) {
+    KeywordScan base = scan.without(ENUM_KEYWORDS);
+    KeywordScan enumPart = scan.only(ENUM_KEYWORDS);
+
+    CombinedSchema.Builder builder = CombinedSchema.builder()
+        .criterion(CombinedSchema.ALL_CRITERION);
+    return subschemas(builder, () -> {
+      List<Schema> subs = new ArrayList<>();
+      subs.add(loadScan(base));
+      subs.add(loadScan(enumPart));
+      return subs;
+    }).build();
   }
 
   // --- Type array ---
 
-  private Schema loadTypeArray(JsonNode node) {
-    JsonNode typeNode = node.get("type");
-    List<Schema> subs = new ArrayList<>();
-    for (JsonNode t : typeNode) {
-      com.fasterxml.jackson.databind.node.ObjectNode sub =
-          ((com.fasterxml.jackson.databind.node.ObjectNode) node).deepCopy();
-      sub.put("type", t.asText());
-      subs.add(loadSchema(sub));
-    }
-
-    CombinedSchema.Builder builder = CombinedSchema.builder()
-        .criterion(CombinedSchema.ANY_CRITERION)
-        .subschemas(subs);
-    return buildBaseSchema(builder, node).build();
+  private Schema loadTypeArray(KeywordScan scan) {
+    JsonNode typeNode = scan.get(Keyword.TYPE);
+    CombinedSchema.Builder builder = subschemas(
+        CombinedSchema.builder().criterion(CombinedSchema.ANY_CRITERION), () -> {
+          List<Schema> subs = new ArrayList<>();
+          for (JsonNode t : typeNode) {
+            subs.add(loadScan(scan.with(Keyword.TYPE, TextNode.valueOf(t.asText()))));
+          }
+          return subs;
+        });
+    return buildBaseSchema(builder, scan).build();
   }
 
   // --- Explicit combined ---
 
-  private Schema loadCombinedSchema(JsonNode node) {
+  private static final long COMBINED_KEYWORDS =
+      Keyword.bits(Keyword.ALL_OF, Keyword.ANY_OF, Keyword.ONE_OF);
+
+  private Schema loadCombinedSchema(KeywordScan scan) {
+    Keyword keyword = combinedKeyword(scan);
     CombinedSchema.ValidationCriterion criterion;
-    String keyword;
-    if (node.has("allOf")) {
+    if (keyword == Keyword.ALL_OF) {
       criterion = CombinedSchema.ALL_CRITERION;
-      keyword = "allOf";
-    } else if (node.has("anyOf")) {
+    } else if (keyword == Keyword.ANY_OF) {
       criterion = CombinedSchema.ANY_CRITERION;
-      keyword = "anyOf";
     } else {
       criterion = CombinedSchema.ONE_CRITERION;
-      keyword = "oneOf";
     }
 
-    JsonNode arr = node.get(keyword);
-    List<Schema> subs = new ArrayList<>();
-    if (arr != null && arr.isArray()) {
-      for (JsonNode sub : arr) {
-        subs.add(loadSchema(sub));
-      }
-    }
+    JsonNode arr = scan.get(keyword);
+    CombinedSchema.Builder builder = subschemas(
+        CombinedSchema.builder().criterion(criterion), () -> {
+          List<Schema> subs = new ArrayList<>();
+          if (arr != null && arr.isArray()) {
+            for (JsonNode sub : arr) {
+              subs.add(loadSchema(sub));
+            }
+          }
+          return subs;
+        });
+    return buildBaseSchema(builder, scan).build();
+  }
 
-    CombinedSchema.Builder builder = CombinedSchema.builder()
-        .criterion(criterion)
-        .subschemas(subs);
-    return buildBaseSchema(builder, node).build();
+  private static Keyword combinedKeyword(KeywordScan scan) {
+    if (scan.has(Keyword.ALL_OF)) {
+      return Keyword.ALL_OF;
+    }
+    return scan.has(Keyword.ANY_OF) ? Keyword.ANY_OF : Keyword.ONE_OF;
   }
 
   // --- Not ---
 
-  private Schema loadNotSchema(JsonNode node) {
-    Schema mustNotMatch = loadSchema(node.get("not"));
-    NotSchema.Builder builder = NotSchema.builder()
-        .mustNotMatch(mustNotMatch);
-    return buildBaseSchema(builder, node).build();
+  private Schema loadNotSchema(KeywordScan scan) {
+    NotSchema.Builder builder = NotSchema.builder();
+    if (lazy) {
+      builder.mustNotMatch(lazySchema(scan.get(Keyword.NOT)));
+    } else {
+      builder.mustNotMatch(loadSchema(scan.get(Keyword.NOT)));
+    }
+    return buildBaseSchema(builder, scan).build();
+  }
+
+  // --- Lazy mode ---
+
+  private Lazy<Schema> lazySchema(JsonNode node) {
+    int parentDepth = depth;
+    return new Lazy<>(this, () -> atDepth(parentDepth, () -> loadSchema(node)));
+  }
+
+  private CombinedSchema.Builder subschemas(
+      CombinedSchema.Builder builder, Supplier<Collection<Schema>> subschemas) {
+    if (!lazy) {
+      return builder.subschemas(subschemas.get());
+    }
+    int parentDepth = depth;
+    return builder.subschemas(new Lazy<>(this, () -> atDepth(parentDepth, subschemas)));
+  }
+
+  /**
+   * Builds a lazy child at the depth of the schema it belongs to, wherever in
+   * the tree the caller happens to access it from.
+   */
+  private <T> T atDepth(int parentDepth, Supplier<T> load) {
+    int saved = depth;
+    depth = parentDepth;
+    try {
+      return load.get();
+    } finally {
+      depth = saved;
+    }
   }
 
   // --- Enum ---
 
-  private Schema loadEnumSchema(JsonNode node) {
+  private Schema loadEnumSchema(KeywordScan scan) {
     Set<Object> values = new LinkedHashSet<>();
-    JsonNode enumArr = node.get("enum");
+    JsonNode enumArr = scan.get(Keyword.ENUM);
     if (enumArr != null && enumArr.isArray()) {
       for (JsonNode val : enumArr) {
         values.add(nodeToValue(val));
@@ -288,91 +1040,104 @@ public class SchemaLoader {
     }
     EnumSchema.Builder builder = EnumSchema.builder()
         .possibleValues(values);
-    return buildBaseSchema(builder, node).build();
+    return buildBaseSchema(builder, scan).build();
   }
 
   // --- Const ---
 
-  private Schema loadConstSchema(JsonNode node) {
-    Object value = nodeToValue(node.get("const"));
+  private Schema loadConstSchema(KeywordScan scan) {
+    Object value = nodeToValue(scan.get(Keyword.CONST));
     ConstSchema.Builder builder = ConstSchema.builder()
         .permittedValue(value);
-    return buildBaseSchema(builder, node).build();
+    return buildBaseSchema(builder, scan).build();
   }
 
   // --- String ---
 
-  private Schema loadStringSchema(JsonNode node) {
+  private Schema loadStringSchema(KeywordScan scan) {
     StringSchema.Builder builder = StringSchema.builder();
-    if (node.has("maxLength") && node.get("maxLength").isIntegralNumber()) {
-      builder.maxLength(node.get("maxLength").asInt());
+    JsonNode maxLength = scan.get(Keyword.MAX_LENGTH);
+    if (maxLength != null && maxLength.isIntegralNumber()) {
+      builder.maxLength(maxLength.asInt());
     }
-    if (node.has("minLength") && node.get("minLength").isIntegralNumber()) {
-      builder.minLength(node.get("minLength").asInt());
+    JsonNode minLength = scan.get(Keyword.MIN_LENGTH);
+    if (minLength != null && minLength.isIntegralNumber()) {
+      builder.minLength(minLength.asInt());
     }
-    if (node.has("pattern") && node.get("pattern").isTextual()) {
-      builder.pattern(node.get("pattern").asText());
+    String pattern = scan.text(Keyword.PATTERN);
+    if (pattern != null) {
+      compilePattern(pattern);
+      builder.pattern(pattern);
     }
-    return buildBaseSchema(builder, node).build();
+    return buildBaseSchema(builder, scan).build();
   }
 
   // --- Number ---
 
-  private Schema loadNumberSchema(JsonNode node) {
+  private Schema loadNumberSchema(KeywordScan scan) {
     NumberSchema.Builder builder = NumberSchema.builder();
-    if (node.has("maximum") && node.get("maximum").isNumber()) {
-      builder.maximum(node.get("maximum").numberValue());
+    JsonNode maximum = scan.get(Keyword.MAXIMUM);
+    JsonNode minimum = scan.get(Keyword.MINIMUM);
+    JsonNode exclusiveMaximum = scan.get(Keyword.EXCLUSIVE_MAXIMUM);
+    JsonNode exclusiveMinimum = scan.get(Keyword.EXCLUSIVE_MINIMUM);
+    if (maximum != null && maximum.isNumber()) {
+      builder.maximum(maximum.numberValue());
     }
-    if (node.has("minimum") && node.get("minimum").isNumber()) {
-      builder.minimum(node.get("minimum").numberValue());
+    if (minimum != null && minimum.isNumber()) {
+      builder.minimum(minimum.numberValue());
     }
 
     if (version.usesNumericExclusiveBounds()) {
       // Draft-06+: exclusiveMaximum/exclusiveMinimum are numeric values
-      if (node.has("exclusiveMaximum") && node.get("exclusiveMaximum").isNumber()) {
-        builder.exclusiveMaximumLimit(node.get("exclusiveMaximum").numberValue());
+      if (exclusiveMaximum != null && exclusiveMaximum.isNumber()) {
+        builder.exclusiveMaximumLimit(exclusiveMaximum.numberValue());
       }
-      if (node.has("exclusiveMinimum") && node.get("exclusiveMinimum").isNumber()) {
-        builder.exclusiveMinimumLimit(node.get("exclusiveMinimum").numberValue());
+      if (exclusiveMinimum != null && exclusiveMinimum.isNumber()) {
+        builder.exclusiveMinimumLimit(exclusiveMinimum.numberValue());
       }
     } else {
       // Draft-04: exclusiveMaximum/exclusiveMinimum are booleans that modify maximum/minimum
-      if (node.has("exclusiveMaximum") && node.get("exclusiveMaximum").isBoolean()
-          && node.get("exclusiveMaximum").asBoolean()
-          && node.has("maximum") && node.get("maximum").isNumber()) {
-        builder.exclusiveMaximumLimit(node.get("maximum").numberValue());
+      if (exclusiveMaximum != null && exclusiveMaximum.isBoolean()
+          && exclusiveMaximum.asBoolean()
+          && maximum != null && maximum.isNumber()) {
+        builder.exclusiveMaximumLimit(maximum.numberValue());
       }
-      if (node.has("exclusiveMinimum") && node.get("exclusiveMinimum").isBoolean()
-          && node.get("exclusiveMinimum").asBoolean()
-          && node.has("minimum") && node.get("minimum").isNumber()) {
-        builder.exclusiveMinimumLimit(node.get("minimum").numberValue());
+      if (exclusiveMinimum != null && exclusiveMinimum.isBoolean()
+          && exclusiveMinimum.asBoolean()
+          && minimum != null && minimum.isNumber()) {
+        builder.exclusiveMinimumLimit(minimum.numberValue());
       }
     }
 
-    if (node.has("multipleOf") && node.get("multipleOf").isNumber()) {
-      builder.multipleOf(node.get("multipleOf").numberValue());
+    JsonNode multipleOf = scan.get(Keyword.MULTIPLE_OF);
+    if (multipleOf != null && multipleOf.isNumber()) {
+      builder.multipleOf(multipleOf.numberValue());
     }
-    builder.requiresInteger("integer".equals(getTextualType(node)));
-    return buildBaseSchema(builder, node).build();
+    builder.requiresInteger("integer".equals(scan.text(Keyword.TYPE)));
+    return buildBaseSchema(builder, scan).build();
   }
 
   // --- Object ---
 
-  private Schema loadObjectSchema(JsonNode node) {
+  private Schema loadObjectSchema(KeywordScan scan) {
     ObjectSchema.Builder builder = ObjectSchema.builder();
 
     // properties
-    JsonNode props = node.get("properties");
+    JsonNode props = scan.get(Keyword.PROPERTIES);
     if (props != null && props.isObject()) {
       Iterator<Map.Entry<String, JsonNode>> fields = props.fields();
       while (fields.hasNext()) {
         Map.Entry<String, JsonNode> entry = fields.next();
-        builder.addPropertySchema(entry.getKey(), loadSchema(entry.getValue()));
+        if (lazy) {
+          builder.addPropertySchema(entry.getKey(), lazySchema(entry.getValue()));
+        } else {
+          builder.addPropertySchema(entry.getKey(), loadSchema(entry.getValue()));
+        }
       }
     }
 
     // required
-    JsonNode req = node.get("required");
+    JsonNode req = scan.get(Keyword.REQUIRED);
     if (req != null && req.isArray()) {
       for (JsonNode element : req) {
         if (element.isTextual()) {
@@ -382,51 +1147,64 @@ public class SchemaLoader {
     }
 
     // additionalProperties
-    JsonNode ap = node.get("additionalProperties");
+    JsonNode ap = scan.get(Keyword.ADDITIONAL_PROPERTIES);
     if (ap != null) {
       if (ap.isBoolean()) {
         builder.permitsAdditionalProperties(ap.asBoolean());
-      } else if (ap.isObject()) {
+      } else if (isSchemaObject(ap)) {
         builder.permitsAdditionalProperties(true);
-        builder.schemaOfAdditionalProperties(loadSchema(ap));
+        if (lazy) {
+          builder.schemaOfAdditionalProperties(lazySchema(ap));
+        } else {
+          builder.schemaOfAdditionalProperties(loadSchema(ap));
+        }
       }
     }
 
     // patternProperties
-    JsonNode pp = node.get("patternProperties");
+    JsonNode pp = scan.get(Keyword.PATTERN_PROPERTIES);
     if (pp != null && pp.isObject()) {
       Iterator<Map.Entry<String, JsonNode>> fields = pp.fields();
       while (fields.hasNext()) {
         Map.Entry<String, JsonNode> entry = fields.next();
-        builder.addPatternProperty(Pattern.compile(entry.getKey()), loadSchema(entry.getValue()));
+        compilePattern(entry.getKey());
+        if (lazy) {
+          builder.addPatternProperty(entry.getKey(), lazySchema(entry.getValue()));
+        } else {
+          builder.addPatternProperty(entry.getKey(), loadSchema(entry.getValue()));
+        }
       }
     }
 
     // dependencies / dependentRequired / dependentSchemas
     if (version.usesDependentKeywords()) {
-      loadDependentRequired(node, builder);
-      loadDependentSchemas(node, builder);
+      loadDependentRequired(scan.get(Keyword.DEPENDENT_REQUIRED), builder);
+      loadDependentSchemas(scan.get(Keyword.DEPENDENT_SCHEMAS), builder);
       // Fall back to legacy "dependencies" if present and the new keywords are absent
-      if (!node.has("dependentRequired") && !node.has("dependentSchemas")) {
-        loadLegacyDependencies(node, builder);
+      if (!scan.hasAny(DEPENDENT_KEYWORDS)) {
+        loadLegacyDependencies(scan.get(Keyword.DEPENDENCIES), builder);
       }
     } else {
-      loadLegacyDependencies(node, builder);
+      loadLegacyDependencies(scan.get(Keyword.DEPENDENCIES), builder);
     }
 
     // maxProperties / minProperties
-    if (node.has("maxProperties") && node.get("maxProperties").isIntegralNumber()) {
-      builder.maxProperties(node.get("maxProperties").asInt());
+    JsonNode maxProperties = scan.get(Keyword.MAX_PROPERTIES);
+    if (maxProperties != null && maxProperties.isIntegralNumber()) {
+      builder.maxProperties(maxProperties.asInt());
     }
-    if (node.has("minProperties") && node.get("minProperties").isIntegralNumber()) {
-      builder.minProperties(node.get("minProperties").asInt());
+    JsonNode minProperties = scan.get(Keyword.MIN_PROPERTIES);
+    if (minProperties != null && minProperties.isIntegralNumber()) {
+      builder.minProperties(minProperties.asInt());
     }
 
-    return buildBaseSchema(builder, node).build();
+    return buildBaseSchema(builder, scan).build();
   }
 
-  private void loadLegacyDependencies(JsonNode node, ObjectSchema.Builder builder) {
-    JsonNode deps = node.get("dependencies");
+  private static final long DEPENDENT_KEYWORDS =
+      Keyword.bits(Keyword.DEPENDENT_REQUIRED, Keyword.DEPENDENT_SCHEMAS);
+
+  private void loadLegacyDependencies(JsonNode deps, ObjectSchema.Builder builder) {
     if (deps != null && deps.isObject()) {
       Iterator<Map.Entry<String, JsonNode>> fields = deps.fields();
       while (fields.hasNext()) {
@@ -439,15 +1217,14 @@ public class SchemaLoader {
             }
           }
           builder.addPropertyDependency(entry.getKey(), depSet);
-        } else if (entry.getValue().isObject()) {
-          builder.addSchemaDependency(entry.getKey(), loadSchema(entry.getValue()));
+        } else if (isSchemaObject(entry.getValue())) {
+          addSchemaDependency(builder, entry.getKey(), entry.getValue());
         }
       }
     }
   }
 
-  private void loadDependentRequired(JsonNode node, ObjectSchema.Builder builder) {
-    JsonNode deps = node.get("dependentRequired");
+  private void loadDependentRequired(JsonNode deps, ObjectSchema.Builder builder) {
     if (deps != null && deps.isObject()) {
       Iterator<Map.Entry<String, JsonNode>> fields = deps.fields();
       while (fields.hasNext()) {
@@ -465,161 +1242,195 @@ public class SchemaLoader {
     }
   }
 
-  private void loadDependentSchemas(JsonNode node, ObjectSchema.Builder builder) {
-    JsonNode deps = node.get("dependentSchemas");
+  private void loadDependentSchemas(JsonNode deps, ObjectSchema.Builder builder) {
     if (deps != null && deps.isObject()) {
       Iterator<Map.Entry<String, JsonNode>> fields = deps.fields();
       while (fields.hasNext()) {
         Map.Entry<String, JsonNode> entry = fields.next();
-        if (entry.getValue().isObject()) {
-          builder.addSchemaDependency(entry.getKey(), loadSchema(entry.getValue()));
+        if (isSchemaObject(entry.getValue())) {
+          addSchemaDependency(builder, entry.getKey(), entry.getValue());
         }
       }
     }
   }
 
+  private void addSchemaDependency(ObjectSchema.Builder builder, String property, JsonNode node) {
+    if (lazy) {
+      builder.addSchemaDependency(property, lazySchema(node));
+    } else {
+      builder.addSchemaDependency(property, loadSchema(node));
+    }
+  }
+
   // --- Array ---
 
-  private Schema loadArraySchema(JsonNode node) {
+  private Schema loadArraySchema(KeywordScan scan) {
     ArraySchema.Builder builder = ArraySchema.builder();
 
     if (version.usesPrefixItems()) {
       // Draft 2020-12: tuple items via "prefixItems", "items" is always a single schema
-      JsonNode prefixItems = node.get("prefixItems");
+      JsonNode prefixItems = scan.get(Keyword.PREFIX_ITEMS);
       if (prefixItems != null && prefixItems.isArray()) {
-        List<Schema> itemSchemaList = new ArrayList<>();
-        for (JsonNode item : prefixItems) {
-          itemSchemaList.add(loadSchema(item));
-        }
-        builder.itemSchemas(itemSchemaList);
+        loadItemSchemas(prefixItems, builder);
       }
-      JsonNode items = node.get("items");
+      JsonNode items = scan.get(Keyword.ITEMS);
       if (items != null) {
-        if (items.isObject()) {
-          builder.allItemSchema(loadSchema(items));
+        if (isSchemaObject(items)) {
+          loadAllItemSchema(items, builder);
         } else if (items.isBoolean()) {
           builder.permitsAdditionalItems(items.asBoolean());
         }
       }
     } else {
       // Older drafts: "items" can be a single schema or an array (tuple)
-      JsonNode items = node.get("items");
+      JsonNode items = scan.get(Keyword.ITEMS);
       if (items != null) {
-        if (items.isObject()) {
-          builder.allItemSchema(loadSchema(items));
+        if (isSchemaObject(items)) {
+          loadAllItemSchema(items, builder);
         } else if (items.isArray()) {
-          List<Schema> itemSchemaList = new ArrayList<>();
-          for (JsonNode item : items) {
-            itemSchemaList.add(loadSchema(item));
-          }
-          builder.itemSchemas(itemSchemaList);
+          loadItemSchemas(items, builder);
         }
       }
     }
 
     // additionalItems (used by pre-2020-12 drafts, but harmless to check always)
-    JsonNode ai = node.get("additionalItems");
+    JsonNode ai = scan.get(Keyword.ADDITIONAL_ITEMS);
     if (ai != null) {
       if (ai.isBoolean()) {
         builder.permitsAdditionalItems(ai.asBoolean());
-      } else if (ai.isObject()) {
+      } else if (isSchemaObject(ai)) {
         builder.permitsAdditionalItems(true);
-        builder.schemaOfAdditionalItems(loadSchema(ai));
+        if (lazy) {
+          builder.schemaOfAdditionalItems(lazySchema(ai));
+        } else {
+          builder.schemaOfAdditionalItems(loadSchema(ai));
+        }
       }
     }
 
-    if (node.has("maxItems") && node.get("maxItems").isIntegralNumber()) {
-      builder.maxItems(node.get("maxItems").asInt());
+    JsonNode maxItems = scan.get(Keyword.MAX_ITEMS);
+    if (maxItems != null && maxItems.isIntegralNumber()) {
+      builder.maxItems(maxItems.asInt());
     }
-    if (node.has("minItems") && node.get("minItems").isIntegralNumber()) {
-      builder.minItems(node.get("minItems").asInt());
+    JsonNode minItems = scan.get(Keyword.MIN_ITEMS);
+    if (minItems != null && minItems.isIntegralNumber()) {
+      builder.minItems(minItems.asInt());
     }
-    if (node.has("uniqueItems") && node.get("uniqueItems").isBoolean()) {
-      builder.needsUniqueItems(node.get("uniqueItems").asBoolean());
+    JsonNode uniqueItems = scan.get(Keyword.UNIQUE_ITEMS);
+    if (uniqueItems != null && uniqueItems.isBoolean()) {
+      builder.needsUniqueItems(uniqueItems.asBoolean());
     }
 
-    return buildBaseSchema(builder, node).build();
+    return buildBaseSchema(builder, scan).build();
   }
 
-  // --- Helpers ---
+  private void loadAllItemSchema(JsonNode items, ArraySchema.Builder builder) {
+    if (lazy) {
+      builder.allItemSchema(lazySchema(items));
+    } else {
+      builder.allItemSchema(loadSchema(items));
+    }
+  }
 
-  private String getTextualType(JsonNode node) {
-    JsonNode typeNode = node.get("type");
-    if (typeNode != null && typeNode.isTextual()) {
-      return typeNode.asText();
+  private void loadItemSchemas(JsonNode items, ArraySchema.Builder builder) {
+    if (lazy) {
+      List<Lazy<Schema>> itemSchemaList = new ArrayList<>();
+      for (JsonNode item : items) {
+        itemSchemaList.add(lazySchema(item));
+      }
+      builder.lazyItemSchemas(itemSchemaList);
+    } else {
+      List<Schema> itemSchemaList = new ArrayList<>();
+      for (JsonNode item : items) {
+        itemSchemaList.add(loadSchema(item));
+      }
+      builder.itemSchemas(itemSchemaList);
     }
-    return null;
   }
+  // --- Helpers ---
 
-  private boolean isInferredObject(JsonNode node, String type) {
-    if (type != null) return false;
-    return node.has("properties") || node.has("additionalProperties")
-        || node.has("patternProperties") || node.has("required")
-        || node.has("minProperties") || node.has("maxProperties")
-        || node.has("dependencies")
-        || node.has("dependentRequired") || node.has("dependentSchemas");
+  static boolean isLoadedSchema(JsonNode node) {
+    return node.isPojo() && ((POJONode) node).getPojo() instanceof Schema;
   }
 
-  private boolean isInferredArray(JsonNode node, String type) {
-    if (type != null) return false;
-    return node.has("items") || node.has("additionalItems")
-        || node.has("minItems") || node.has("maxItems")
-        || node.has("uniqueItems") || node.has("prefixItems");
+  /**
+   * Whether {@code node} holds an object schema, either as a raw object node or
+   * as a subschema the streaming reader has already built.
+   */
+  private static boolean isSchemaObject(JsonNode node) {
+    return node.isObject() || isLoadedSchema(node);
+  }
+
+  private static final long OBJECT_KEYWORDS = Keyword.bits(
+      Keyword.PROPERTIES, Keyword.ADDITIONAL_PROPERTIES, Keyword.PATTERN_PROPERTIES,
+      Keyword.REQUIRED, Keyword.MIN_PROPERTIES, Keyword.MAX_PROPERTIES,
+      Keyword.DEPENDENCIES, Keyword.DEPENDENT_REQUIRED, Keyword.DEPENDENT_SCHEMAS);
+
+  private static final long ARRAY_KEYWORDS = Keyword.bits(
+      Keyword.ITEMS, Keyword.ADDITIONAL_ITEMS, Keyword.MIN_ITEMS, Keyword.MAX_ITEMS,
+      Keyword.UNIQUE_ITEMS, Keyword.PREFIX_ITEMS);
+
+  private boolean isInferredObject(KeywordScan scan, String type) {
+    return type == null && scan.hasAny(OBJECT_KEYWORDS);
+  }
+
+  private boolean isInferredArray(KeywordScan scan, String type) {
+    return type == null && scan.hasAny(ARRAY_KEYWORDS);
   }
 
   /**
    * Sets common base schema fields (id, title, description, default, unprocessed properties).
    */
-  @SuppressWarnings("unchecked")
-  private <B extends Schema.Builder<B>> B buildBaseSchema(B builder, JsonNode node) {
-    String idKeyword = version.idKeyword();
-    if (node.has(idKeyword) && node.get(idKeyword).isTextual()) {
-      builder.id(node.get(idKeyword).asText());
+  private <B extends Schema.Builder<B>> B buildBaseSchema(B builder, KeywordScan scan) {
+    String id = scan.text(idKeyword);
+    if (id != null) {
+      builder.id(id);
     }
-    if (node.has("title") && node.get("title").isTextual()) {
-      builder.title(node.get("title").asText());
+    String title = scan.text(Keyword.TITLE);
+    if (title != null) {
+      builder.title(title);
     }
-    if (node.has("description") && node.get("description").isTextual()) {
-      builder.description(node.get("description").asText());
+    String description = scan.text(Keyword.DESCRIPTION);
+    if (description != null) {
+      builder.description(description);
     }
-    if (node.has("default")) {
-      builder.defaultValue(nodeToValue(node.get("default")));
+    if (scan.has(Keyword.DEFAULT)) {
+      builder.defaultValue(nodeToValue(scan.get(Keyword.DEFAULT)));
     }
 
-    // Collect unprocessed properties (e.g., "connect.type")
-    Map<String, JsonNode> unprocessed = new LinkedHashMap<>();
-    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
-    while (fields.hasNext()) {
-      Map.Entry<String, JsonNode> entry = fields.next();
-      String key = entry.getKey();
-      if (!isStandardKeyword(key)) {
-        unprocessed.put(key, entry.getValue());
-      }
-    }
-    if (!unprocessed.isEmpty()) {
-      builder.unprocessedProperties(unprocessed);
+    // Unprocessed properties (e.g., "connect.type") were collected by the scan
+    if (scan.unprocessed() != null) {
+      builder.unprocessedProperties(
+          detached ? detach(scan.unprocessed()) : scan.unprocessed());
     }
 
     return builder;
   }
 
-  private static final Set<String> STANDARD_KEYWORDS = Set.of(
-      "$id", "id", "$schema", "$ref", "title", "description", "default",
-      "type", "properties", "required", "additionalProperties", "patternProperties",
-      "dependencies", "dependentRequired", "dependentSchemas",
-      "maxProperties", "minProperties",
-      "items", "prefixItems", "additionalItems", "maxItems", "minItems", "uniqueItems",
-      "maxLength", "minLength", "pattern",
-      "maximum", "minimum", "exclusiveMaximum", "exclusiveMinimum", "multipleOf",
-      "allOf", "anyOf", "oneOf", "not",
-      "enum", "const",
-      "definitions", "$defs", "format",
-      "if", "then", "else", "readOnly", "writeOnly",
-      "contentMediaType", "contentEncoding"
-  );
+  private static Map<String, JsonNode> detach(Map<String, JsonNode> fields) {
+    Map<String, JsonNode> copy = new LinkedHashMap<>(fields.size() * 4 / 3 + 1);
+    fields.forEach((key, value) -> copy.put(key, detach(value)));
+    return Collections.unmodifiableMap(copy);
+  }
 
-  private boolean isStandardKeyword(String key) {
-    return STANDARD_KEYWORDS.contains(key);
+  /**
+   * An immutable copy of {@code node} that shares no container with the source
+   * tree. Value nodes are immutable already and are kept as they are.
+   */
+  private static JsonNode detach(JsonNode node) {
+    if (node.isObject()) {
+      Map<String, JsonNode> fields = new LinkedHashMap<>(node.size() * 4 / 3 + 1);
+      node.fields().forEachRemaining(f -> fields.put(f.getKey(), detach(f.getValue())));
+      return new ObjectNode(JsonNodeFactory.instance, Collections.unmodifiableMap(fields));
+    }
+    if (node.isArray()) {
+      List<JsonNode> elements = new ArrayList<>(node.size());
+      for (JsonNode element : node) {
+        elements.add(detach(element));
+      }
+      return new ArrayNode(JsonNodeFactory.instance, List.copyOf(elements));
+    }
+    return node;
   }
 
   static Object nodeToValue(JsonNode node) {
@@ -640,4 +1451,82 @@ public class SchemaLoader {
     }
     return node.toString();
   }
+
+  public static class Builder {
+    private final JsonNode rootNode;
+    private JsonSchemaVersion version;
+    private SchemaInterner interner;
+    private boolean lazy;
+    private ForkJoinPool pool;
+    private boolean detached;
+    private LoaderLimits limits = LoaderLimits.NONE;
+
+    private Builder(JsonNode rootNode) {
+      this.rootNode = rootNode;
+    }
+
+    public Builder version(JsonSchemaVersion version) {
+      this.version = version;
+      return this;
+    }
+
+    /**
+     * Shares subschemas with every other loader using {@code interner}.
+     */
+    public Builder interner(SchemaInterner interner) {
+      this.interner = interner;
+      return this;
+    }
+
+    /**
+     * Builds child schemas (properties, items, subschemas, ...) on first access
+     * instead of up front, so loading cost follows what the caller visits.
+     */
+    public Builder lazy(boolean lazy) {
+      this.lazy = lazy;
+      return this;
+    }
+
+    /**
+     * Builds independent {@code definitions}/{@code $defs} concurrently on
+     * {@code pool} before the rest of the document. The result is the same
+     * {@link Schema} tree as a sequential load. Cannot be combined with lazy mode.
+     */
+    public Builder parallelDefinitions(ForkJoinPool pool) {
+      this.pool = pool;
+      return this;
+    }
+
+    /**
+     * Loads a tree that holds no reference to the source {@link JsonNode}:
+     * unprocessed properties become immutable copies and recursive references are
+     * resolved before {@link SchemaLoader#load()} returns, so the document can be
+     * collected while the schema stays cached. Cannot be combined with lazy mode.
+     */
+    public Builder detached(boolean detached) {
+      this.detached = detached;
+      return this;
+    }
+
+    /**
+     * Bounds the depth, size, {@code $ref} expansion and pattern lengths of the
+     * schemas this loader accepts; see {@link LoaderLimits}. In lazy mode a
+     * child that crosses a bound throws when it is first accessed.
+     */
+    public Builder limits(LoaderLimits limits) {
+      this.limits = limits;
+      return this;
+    }
+
+    public SchemaLoader build() {
+      if (lazy && pool != null) {
+        throw new IllegalArgumentException(
+            "Lazy loading cannot be combined with parallel definitions");
+      }
+      if (lazy && detached) {
+        throw new IllegalArgumentException("Lazy loading cannot be combined with detached mode");
+      }
+      return new SchemaLoader(this);
+    }
+  }
 }
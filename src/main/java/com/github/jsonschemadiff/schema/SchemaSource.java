@@ -0,0 +1,82 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only navigation over a schema document held in some tree form, so that
+ * {@link SchemaLoader} can load it without the caller converting it to a
+ * {@link JsonNode} tree first.
+ *
+ * Adapters are provided for Jackson trees ({@link #of(JsonNode)}), plain
+ * {@code Map}/{@code List} trees such as deserialized YAML or configuration
+ * ({@link #of(Map)}) and a streaming parser ({@link #of(JsonParser)}). Other
+ * tree models can implement this interface directly. The loader reads a
+ * non-Jackson source through {@link JsonNode} views that it builds level by
+ * level as it navigates; the caller need not convert the document, but the
+ * views cost about as much as a converted tree. The source must not be
+ * modified while it is being loaded, nor, in lazy mode, until the loaded
+ * schema has been fully accessed.
+ */
+public interface SchemaSource {
+
+  enum Kind {
+    OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL
+  }
+
+  Kind kind();
+
+  /**
+   * The number of fields of an object or elements of an array, otherwise 0.
+   */
+  int size();
+
+  /**
+   * The fields of an object in document order; empty for other kinds.
+   */
+  Iterator<Map.Entry<String, SchemaSource>> fields();
+
+  /**
+   * The element at {@code index} of an array.
+   */
+  SchemaSource get(int index);
+
+  String textValue();
+
+  Number numberValue();
+
+  boolean booleanValue();
+
+  static SchemaSource of(JsonNode node) {
+    return new JsonNodeSource(node);
+  }
+
+  /**
+   * A source over a tree of {@code Map}s with string keys, {@code List}s,
+   * {@code String}s, {@code Number}s, {@code Boolean}s and {@code null}s.
+   */
+  static SchemaSource of(Map<String, ?> tree) {
+    return ObjectSource.of(tree);
+  }
+
+  /**
+   * A source over an array-valued tree; see {@link #of(Map)}.
+   */
+  static SchemaSource of(List<?> tree) {
+    return ObjectSource.of(tree);
+  }
+
+  /**
+   * A source reading the next value of {@code parser}.
+   * {@link SchemaLoader#loadSource(SchemaSource)} builds the schema straight from
+   * the token stream (see {@link SchemaLoader#load(JsonParser)}); navigating
+   * the source by other means reads the value into a tree first.
+   */
+  static SchemaSource of(JsonParser parser) {
+    return new ParserSource(parser);
+  }
+}
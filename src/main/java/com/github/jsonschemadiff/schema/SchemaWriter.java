@@ -0,0 +1,441 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a loaded {@link Schema} tree back out as a JSON Schema document, in
+ * any {@link SchemaFormat}, through a Jackson {@link JsonGenerator}. Loading
+ * the output with {@link SchemaLoader} gives a tree with no differences from
+ * the one written.
+ *
+ * Keywords are written for the given {@link JsonSchemaVersion}, which is also
+ * declared in {@code $schema}. A schema reached more than once without a cycle
+ * (a shared {@code $ref} target or an interned subtree) is written in full at
+ * each place. A schema reached again while it is still being written, whether
+ * directly or through a {@link ReferenceSchema}, becomes a {@code $ref} to
+ * where that schema is in the output.
+ */
+public final class SchemaWriter {
+
+  private final JsonGenerator generator;
+  private final JsonSchemaVersion version;
+  // JSON Pointer segments from the root to the schema being written
+  private final List<String> path = new ArrayList<>();
+  // Schemas being written, with the depth of their pointer
+  private final Map<Schema, Integer> writing = new IdentityHashMap<>();
+
+  private SchemaWriter(JsonGenerator generator, JsonSchemaVersion version) {
+    this.generator = generator;
+    this.version = version;
+  }
+
+  public static byte[] toBytes(Schema schema, SchemaFormat format) {
+    return toBytes(schema, format, JsonSchemaVersion.DRAFT_7);
+  }
+
+  public static byte[] toBytes(Schema schema, SchemaFormat format, JsonSchemaVersion version) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      write(schema, format, version, out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Writes {@code schema} to {@code out}, which is not closed.
+   */
+  public static void write(
+      Schema schema, SchemaFormat format, JsonSchemaVersion version, OutputStream out)
+      throws IOException {
+    try (JsonGenerator generator = format.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      write(schema, version, generator);
+    }
+  }
+
+  /**
+   * Writes {@code schema} as the next value of {@code generator}, which is
+   * neither flushed nor closed.
+   */
+  public static void write(Schema schema, JsonSchemaVersion version, JsonGenerator generator)
+      throws IOException {
+    new SchemaWriter(generator, version).writeRoot(schema);
+  }
+
+  private void writeRoot(Schema schema) throws IOException {
+    if (schema instanceof FalseSchema || schema instanceof ReferenceSchema) {
+      writeSchema(schema);
+      return;
+    }
+    generator.writeStartObject();
+    generator.writeStringField("$schema", version.getSchemaUrls().get(0));
+    writeFields(schema);
+    generator.writeEndObject();
+  }
+
+  private void writeSchema(Schema schema) throws IOException {
+    if (schema instanceof FalseSchema) {
+      generator.writeBoolean(false);
+      return;
+    }
+    if (schema instanceof ReferenceSchema) {
+      writeReference((ReferenceSchema) schema);
+      return;
+    }
+    Integer depth = writing.get(schema);
+    if (depth != null) {
+      // A cycle without a ReferenceSchema, e.g. definitions that refer to each other
+      writePointer(depth);
+      return;
+    }
+    generator.writeStartObject();
+    writeFields(schema);
+    generator.writeEndObject();
+  }
+
+  private void writeReference(ReferenceSchema reference) throws IOException {
+    Schema target = reference.getReferredSchema();
+    Integer depth = target != null ? writing.get(target) : null;
+    if (depth == null) {
+      // Not a cycle: the target can be written in place
+      if (target == null) {
+        throw new IllegalArgumentException(
+            "Unresolved reference: " + reference.getReferenceValue());
+      }
+      writeSchema(target);
+      return;
+    }
+    writePointer(depth);
+  }
+
+  /**
+   * Writes a {@code $ref} to the schema whose pointer has {@code depth}
+   * segments of the current path.
+   */
+  private void writePointer(int depth) throws IOException {
+    StringBuilder pointer = new StringBuilder("#");
+    for (String segment : path.subList(0, depth)) {
+      pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+    }
+    generator.writeStartObject();
+    generator.writeStringField("$ref", pointer.toString());
+    generator.writeEndObject();
+  }
+
+  private void writeFields(Schema schema) throws IOException {
+    writing.put(schema, path.size());
+    try {
+      writeBase(schema);
+      if (schema instanceof StringSchema) {
+        writeString((StringSchema) schema);
+      } else if (schema instanceof NumberSchema) {
+        writeNumber((NumberSchema) schema);
+      } else if (schema instanceof ObjectSchema) {
+        writeObject((ObjectSchema) schema);
+      } else if (schema instanceof ArraySchema) {
+        writeArray((ArraySchema) schema);
+      } else if (schema instanceof CombinedSchema) {
+        CombinedSchema combined = (CombinedSchema) schema;
+        String keyword = combined.getCriterion().getKeyword();
+        generator.writeArrayFieldStart(keyword);
+        int index = 0;
+        for (Schema sub : combined.getSubschemas()) {
+          writeChild(sub, keyword, String.valueOf(index++));
+        }
+        generator.writeEndArray();
+      } else if (schema instanceof NotSchema) {
+        writeField("not", ((NotSchema) schema).getMustNotMatch());
+      } else if (schema instanceof EnumSchema) {
+        generator.writeArrayFieldStart("enum");
+        for (Object value : ((EnumSchema) schema).getPossibleValues()) {
+          writeValue(value);
+        }
+        generator.writeEndArray();
+      } else if (schema instanceof ConstSchema) {
+        generator.writeFieldName("const");
+        writeValue(((ConstSchema) schema).getPermittedValue());
+      } else if (!(schema instanceof EmptySchema)) {
+        throw new IllegalArgumentException(
+            "Unsupported schema type: " + schema.getClass().getName());
+      }
+    } finally {
+      writing.remove(schema);
+    }
+  }
+
+  private void writeBase(Schema schema) throws IOException {
+    if (schema.getId() != null) {
+      generator.writeStringField(version.idKeyword(), schema.getId());
+    }
+    if (schema.getTitle() != null) {
+      generator.writeStringField("title", schema.getTitle());
+    }
+    if (schema.getDescription() != null) {
+      generator.writeStringField("description", schema.getDescription());
+    }
+    if (schema.hasDefaultValue()) {
+      generator.writeFieldName("default");
+      writeValue(schema.getDefaultValue());
+    }
+    for (Map.Entry<String, JsonNode> entry : schema.getUnprocessedProperties().entrySet()) {
+      generator.writeFieldName(entry.getKey());
+      writeJson(entry.getValue());
+    }
+  }
+
+  private void writeString(StringSchema schema) throws IOException {
+    generator.writeStringField("type", "string");
+    if (schema.hasMaxLength()) {
+      generator.writeNumberField("maxLength", schema.getMaxLengthAsInt());
+    }
+    if (schema.hasMinLength()) {
+      generator.writeNumberField("minLength", schema.getMinLengthAsInt());
+    }
+    if (schema.getPatternString() != null) {
+      generator.writeStringField("pattern", schema.getPatternString());
+    }
+  }
+
+  private void writeNumber(NumberSchema schema) throws IOException {
+    generator.writeStringField("type", schema.requiresInteger() ? "integer" : "number");
+    if (version.usesNumericExclusiveBounds()) {
+      writeNumberField("maximum", schema.getMaximum());
+      writeNumberField("minimum", schema.getMinimum());
+      writeNumberField("exclusiveMaximum", schema.getExclusiveMaximumLimit());
+      writeNumberField("exclusiveMinimum", schema.getExclusiveMinimumLimit());
+    } else {
+      // Draft-04: an exclusive limit is the maximum/minimum plus a boolean flag
+      writeDraft4Bound("maximum", "exclusiveMaximum",
+          schema.getMaximum(), schema.getExclusiveMaximumLimit());
+      writeDraft4Bound("minimum", "exclusiveMinimum",
+          schema.getMinimum(), schema.getExclusiveMinimumLimit());
+    }
+    writeNumberField("multipleOf", schema.getMultipleOf());
+  }
+
+  private void writeDraft4Bound(String keyword, String exclusiveKeyword,
+      Number limit, Number exclusiveLimit) throws IOException {
+    if (exclusiveLimit == null) {
+      writeNumberField(keyword, limit);
+      return;
+    }
+    if (limit != null && !limit.equals(exclusiveLimit)) {
+      throw new IllegalArgumentException(
+          "Draft-04 cannot express both " + keyword + " and a different " + exclusiveKeyword);
+    }
+    writeNumberField(keyword, exclusiveLimit);
+    generator.writeBooleanField(exclusiveKeyword, true);
+  }
+
+  private void writeObject(ObjectSchema schema) throws IOException {
+    generator.writeStringField("type", "object");
+    writeSchemaMap("properties", schema.getPropertySchemas());
+    Set<String> required = schema.getRequiredProperties();
+    if (!required.isEmpty()) {
+      generator.writeArrayFieldStart("required");
+      for (String name : required) {
+        generator.writeString(name);
+      }
+      generator.writeEndArray();
+    }
+    if (!schema.permitsAdditionalProperties()) {
+      generator.writeBooleanField("additionalProperties", false);
+    } else if (schema.getSchemaOfAdditionalProperties() != null) {
+      writeField("additionalProperties", schema.getSchemaOfAdditionalProperties());
+    }
+    writeSchemaMap("patternProperties", schema.getPatternPropertySchemas());
+
+    Map<String, Set<String>> propertyDependencies = schema.getPropertyDependencies();
+    Map<String, Schema> schemaDependencies = schema.getSchemaDependencies();
+    if (version.usesDependentKeywords()) {
+      writePropertyDependencies("dependentRequired", propertyDependencies, null);
+      writeSchemaMap("dependentSchemas", schemaDependencies);
+    } else {
+      writePropertyDependencies("dependencies", propertyDependencies, schemaDependencies);
+    }
+
+    if (schema.hasMaxProperties()) {
+      generator.writeNumberField("maxProperties", schema.getMaxPropertiesAsInt());
+    }
+    if (schema.hasMinProperties()) {
+      generator.writeNumberField("minProperties", schema.getMinPropertiesAsInt());
+    }
+  }
+
+  /**
+   * Writes property dependencies as arrays and, for the legacy
+   * {@code dependencies} keyword, schema dependencies in the same object.
+   */
+  private void writePropertyDependencies(String keyword,
+      Map<String, Set<String>> propertyDependencies,
+      Map<String, Schema> schemaDependencies) throws IOException {
+    boolean noSchemas = schemaDependencies == null || schemaDependencies.isEmpty();
+    if (propertyDependencies.isEmpty() && noSchemas) {
+      return;
+    }
+    generator.writeObjectFieldStart(keyword);
+    path.add(keyword);
+    for (Map.Entry<String, Set<String>> entry : propertyDependencies.entrySet()) {
+      generator.writeArrayFieldStart(entry.getKey());
+      for (String dependency : entry.getValue()) {
+        generator.writeString(dependency);
+      }
+      generator.writeEndArray();
+    }
+    if (!noSchemas) {
+      for (Map.Entry<String, Schema> entry : schemaDependencies.entrySet()) {
+        generator.writeFieldName(entry.getKey());
+        writeChild(entry.getValue(), entry.getKey());
+      }
+    }
+    path.remove(path.size() - 1);
+    generator.writeEndObject();
+  }
+
+  private void writeArray(ArraySchema schema) throws IOException {
+    generator.writeStringField("type", "array");
+    List<Schema> itemSchemas = schema.getItemSchemas();
+    if (version.usesPrefixItems()) {
+      if (itemSchemas != null) {
+        writeSchemaList("prefixItems", itemSchemas);
+      }
+      if (schema.getAllItemSchema() != null) {
+        writeField("items", schema.getAllItemSchema());
+      }
+    } else if (itemSchemas != null) {
+      writeSchemaList("items", itemSchemas);
+    } else if (schema.getAllItemSchema() != null) {
+      writeField("items", schema.getAllItemSchema());
+    }
+    if (!schema.permitsAdditionalItems()) {
+      generator.writeBooleanField("additionalItems", false);
+    } else if (schema.getSchemaOfAdditionalItems() != null) {
+      writeField("additionalItems", schema.getSchemaOfAdditionalItems());
+    }
+    if (schema.hasMaxItems()) {
+      generator.writeNumberField("maxItems", schema.getMaxItemsAsInt());
+    }
+    if (schema.hasMinItems()) {
+      generator.writeNumberField("minItems", schema.getMinItemsAsInt());
+    }
+    if (schema.needsUniqueItems()) {
+      generator.writeBooleanField("uniqueItems", true);
+    }
+  }
+
+  private void writeField(String keyword, Schema schema) throws IOException {
+    generator.writeFieldName(keyword);
+    writeChild(schema, keyword);
+  }
+
+  private void writeChild(Schema schema, String... segments) throws IOException {
+    for (String segment : segments) {
+      path.add(segment);
+    }
+    writeSchema(schema);
+    for (int i = 0; i < segments.length; i++) {
+      path.remove(path.size() - 1);
+    }
+  }
+
+  private void writeSchemaMap(String keyword, Map<String, Schema> schemas) throws IOException {
+    if (schemas.isEmpty()) {
+      return;
+    }
+    generator.writeObjectFieldStart(keyword);
+    for (Map.Entry<String, Schema> entry : schemas.entrySet()) {
+      generator.writeFieldName(entry.getKey());
+      writeChild(entry.getValue(), keyword, entry.getKey());
+    }
+    generator.writeEndObject();
+  }
+
+  private void writeSchemaList(String keyword, List<Schema> schemas) throws IOException {
+    generator.writeArrayFieldStart(keyword);
+    for (int i = 0; i < schemas.size(); i++) {
+      writeChild(schemas.get(i), keyword, String.valueOf(i));
+    }
+    generator.writeEndArray();
+  }
+
+  private void writeNumberField(String keyword, Number value) throws IOException {
+    if (value != null) {
+      generator.writeFieldName(keyword);
+      writeValue(value);
+    }
+  }
+
+  /**
+   * Writes a {@code default}, {@code enum} or {@code const} value as loaded
+   * (see {@code SchemaLoader.nodeToValue}), or as decoded by {@link SchemaCodec}.
+   */
+  private void writeValue(Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof JsonNode) {
+      writeJson((JsonNode) value);
+    } else if (value instanceof String) {
+      generator.writeString((String) value);
+    } else if (value instanceof Boolean) {
+      generator.writeBoolean((Boolean) value);
+    } else if (value instanceof Integer) {
+      generator.writeNumber((Integer) value);
+    } else if (value instanceof Long) {
+      generator.writeNumber((Long) value);
+    } else if (value instanceof BigInteger) {
+      generator.writeNumber((BigInteger) value);
+    } else if (value instanceof Float) {
+      generator.writeNumber((Float) value);
+    } else if (value instanceof Double) {
+      generator.writeNumber((Double) value);
+    } else if (value instanceof BigDecimal) {
+      generator.writeNumber((BigDecimal) value);
+    } else {
+      throw new IllegalArgumentException(
+          "Unsupported value type: " + value.getClass().getName());
+    }
+  }
+
+  private void writeJson(JsonNode node) throws IOException {
+    if (node.isObject()) {
+      generator.writeStartObject();
+      Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> field = fields.next();
+        generator.writeFieldName(field.getKey());
+        writeJson(field.getValue());
+      }
+      generator.writeEndObject();
+    } else if (node.isArray()) {
+      generator.writeStartArray();
+      for (JsonNode element : node) {
+        writeJson(element);
+      }
+      generator.writeEndArray();
+    } else if (node.isTextual()) {
+      generator.writeString(node.textValue());
+    } else if (node.isNumber()) {
+      writeValue(node.numberValue());
+    } else if (node.isBoolean()) {
+      generator.writeBoolean(node.booleanValue());
+    } else {
+      generator.writeNull();
+    }
+  }
+}
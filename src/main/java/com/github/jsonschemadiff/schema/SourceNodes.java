@@ -0,0 +1,182 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only {@link JsonNode} views of a {@link SchemaSource}, so that the
+ * loader's node-based passes run over any source unchanged.
+ *
+ * An object or array view reads its own fields or elements from the source
+ * the first time it is navigated, as views in turn, and keeps them, so a node
+ * the loader revisits is the same instance (the interner memoizes hashes by
+ * node identity). This is a conversion, only a deferred one: the reference
+ * index walks every container of the document before loading starts, and the
+ * loader reads every keyword value, so a load ends up holding a view for each
+ * container and a node for each scalar. Views reject modification.
+ */
+final class SourceNodes {
+
+  private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+  private SourceNodes() {
+  }
+
+  static JsonNode asJsonNode(SchemaSource source) {
+    if (source instanceof JsonNodeSource) {
+      return ((JsonNodeSource) source).node();
+    }
+    if (source instanceof ParserSource) {
+      return ((ParserSource) source).node();
+    }
+    switch (source.kind()) {
+      case OBJECT:
+        return new ObjectNode(FACTORY, new FieldView(source));
+      case ARRAY:
+        return new ArrayNode(FACTORY, new ElementView(source));
+      case STRING:
+        return TextNode.valueOf(source.textValue());
+      case NUMBER:
+        return numberNode(source.numberValue());
+      case BOOLEAN:
+        return BooleanNode.valueOf(source.booleanValue());
+      default:
+        return NullNode.getInstance();
+    }
+  }
+
+  private static JsonNode numberNode(Number value) {
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return FACTORY.numberNode(value.intValue());
+    }
+    if (value instanceof Long) {
+      return FACTORY.numberNode(value.longValue());
+    }
+    if (value instanceof Double) {
+      return FACTORY.numberNode(value.doubleValue());
+    }
+    if (value instanceof Float) {
+      return FACTORY.numberNode(value.floatValue());
+    }
+    if (value instanceof BigInteger) {
+      return FACTORY.numberNode((BigInteger) value);
+    }
+    if (value instanceof BigDecimal) {
+      return FACTORY.numberNode((BigDecimal) value);
+    }
+    // Other Number types (AtomicLong, custom decimals) by their decimal form
+    return FACTORY.numberNode(new BigDecimal(value.toString()));
+  }
+
+  /**
+   * The fields of an object source, read on first access.
+   */
+  private static final class FieldView extends AbstractMap<String, JsonNode> {
+
+    private SchemaSource source;
+    private volatile Map<String, JsonNode> fields;
+
+    FieldView(SchemaSource source) {
+      this.source = source;
+    }
+
+    private Map<String, JsonNode> fields() {
+      Map<String, JsonNode> result = fields;
+      if (result == null) {
+        synchronized (this) {
+          result = fields;
+          if (result == null) {
+            result = new LinkedHashMap<>(source.size() * 4 / 3 + 1);
+            for (Iterator<Map.Entry<String, SchemaSource>> it = source.fields(); it.hasNext(); ) {
+              Map.Entry<String, SchemaSource> field = it.next();
+              result.put(field.getKey(), asJsonNode(field.getValue()));
+            }
+            result = Collections.unmodifiableMap(result);
+            fields = result;
+            source = null;
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public JsonNode get(Object key) {
+      return fields().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return fields().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return fields().size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, JsonNode>> entrySet() {
+      return fields().entrySet();
+    }
+  }
+
+  /**
+   * The elements of an array source, read on first access.
+   */
+  private static final class ElementView extends AbstractList<JsonNode> {
+
+    private SchemaSource source;
+    private volatile List<JsonNode> elements;
+
+    ElementView(SchemaSource source) {
+      this.source = source;
+    }
+
+    private List<JsonNode> elements() {
+      List<JsonNode> result = elements;
+      if (result == null) {
+        synchronized (this) {
+          result = elements;
+          if (result == null) {
+            int size = source.size();
+            result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+              result.add(asJsonNode(source.get(i)));
+            }
+            elements = result;
+            source = null;
+          }
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public JsonNode get(int index) {
+      return elements().get(index);
+    }
+
+    @Override
+    public int size() {
+      return elements().size();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package com.github.jsonschemadiff.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Builds a {@link Schema} tree directly from a {@link JsonParser} token stream.
+ *
+ * Each schema object is read into a shallow node whose subschemas have already
+ * been built and are held as {@link com.fasterxml.jackson.databind.node.POJONode}s;
+ * when the object closes it is handed to {@link SchemaLoader} and replaced by the
+ * resulting {@link Schema}, so the full document never exists as a tree.
+ *
+ * Only subtrees that need random access are buffered as {@link JsonNode}s:
+ * {@code definitions}/{@code $defs} sections (the usual {@code $ref} targets) and
+ * keyword values that are not subschemas ({@code enum}, {@code default}, extension
+ * keywords, ...). A subschema whose {@code $ref} target has not been read yet stays
+ * shallow until the end of the document and is built from the buffered root then.
+ * References into locations other than buffered sections are resolved only while
+ * their target is still reachable from the root. References other than local
+ * JSON Pointers ({@code $id}-relative URIs, anchors, dynamic references), and
+ * every reference read after a subschema declared its own base URI, wait for the
+ * end of the document too and are resolved through the loader's
+ * {@link RefIndex}; so are pointers into a buffered subtree that holds such
+ * references or declares a base URI. A subschema's {@code $id} is assumed to
+ * precede its subschemas, as it conventionally does.
+ *
+ * The draft version must be known before subschemas can be built. When it is not
+ * passed explicitly, root keywords are buffered until {@code $schema} is seen, so
+ * documents that declare {@code $schema} first (or callers that pass a version)
+ * get the full benefit of streaming.
+ */
+final class StreamingSchemaReader {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+  /** Keywords whose value is a single subschema. */
+  private static final Set<String> SCHEMA_KEYWORDS = Set.of(
+      "not", "additionalProperties", "additionalItems", "items");
+
+  /** Keywords whose value is an array of subschemas. */
+  private static final Set<String> SCHEMA_ARRAY_KEYWORDS = Set.of(
+      "allOf", "anyOf", "oneOf", "prefixItems", "items");
+
+  /** Keywords whose value maps names to subschemas. */
+  private static final Set<String> SCHEMA_MAP_KEYWORDS = Set.of(
+      "properties", "patternProperties", "dependencies", "dependentSchemas");
+
+  /** Standard keywords the loader never reads; their subtrees are skipped. */
+  private static final Set<String> IGNORED_KEYWORDS = Set.of("if", "then", "else");
+
+  private final JsonParser parser;
+  private final JsonSchemaVersion version;
+  private final LoaderLimits limits;
+  private final ObjectNode root = NODES.objectNode();
+  private final Set<String> resolvablePointers = new HashSet<>();
+  private SchemaLoader loader;
+  private boolean pending;
+  // Set once a subschema has changed the base URI; later pointers may be relative to it
+  private boolean embeddedResources;
+  // Nesting depth of the schema object being read; the root is at depth 1
+  private int depth = 1;
+
+  StreamingSchemaReader(JsonParser parser, JsonSchemaVersion version, LoaderLimits limits) {
+    this.parser = parser;
+    this.version = version;
+    this.limits = limits;
+  }
+
+  private SchemaLoader newLoader(JsonNode document, JsonSchemaVersion version) {
+    return SchemaLoader.builder(document).version(version).limits(limits).build();
+  }
+
+  Schema read() throws IOException {
+    JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+    if (token != JsonToken.START_OBJECT) {
+      return newLoader(MAPPER.readTree(parser), version).load();
+    }
+    if (version != null) {
+      loader = newLoader(root, version);
+    }
+    readObject(root, true);
+    if (loader == null) {
+      loader = newLoader(root, null);
+    }
+    return loader.load();
+  }
+
+  /**
+   * Reads the fields of the object the parser is positioned on into {@code node}.
+   * Returns whether any subschema is still waiting for a {@code $ref} target.
+   */
+  private boolean readObject(ObjectNode node, boolean isRoot) throws IOException {
+    boolean pendingRefs = false;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.currentName();
+      JsonToken token = parser.nextToken();
+      if (IGNORED_KEYWORDS.contains(name)) {
+        parser.skipChildren();
+        continue;
+      }
+
+      if (loader == null) {
+        // Version still unknown: buffer root keywords until $schema shows up
+        node.set(name, MAPPER.readTree(parser));
+        if (isRoot && "$schema".equals(name)) {
+          loader = newLoader(root, null);
+        }
+        continue;
+      }
+
+      if (!isRoot && token == JsonToken.VALUE_STRING && isBaseChange(name, parser.getText())) {
+        embeddedResources = true;
+      }
+
+      JsonNode value;
+      if (token == JsonToken.START_OBJECT && SCHEMA_KEYWORDS.contains(name)) {
+        value = readSchema();
+        pendingRefs |= pending;
+      } else if (token == JsonToken.START_ARRAY && SCHEMA_ARRAY_KEYWORDS.contains(name)) {
+        ArrayNode array = NODES.arrayNode();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          array.add(readValue());
+          pendingRefs |= pending;
+        }
+        value = array;
+      } else if (token == JsonToken.START_OBJECT && SCHEMA_MAP_KEYWORDS.contains(name)) {
+        ObjectNode map = NODES.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String key = parser.currentName();
+          parser.nextToken();
+          map.set(key, readValue());
+          pendingRefs |= pending;
+        }
+        value = map;
+      } else {
+        value = MAPPER.readTree(parser);
+      }
+      node.set(name, value);
+    }
+    return pendingRefs;
+  }
+
+  private JsonNode readValue() throws IOException {
+    if (parser.currentToken() == JsonToken.START_OBJECT) {
+      return readSchema();
+    }
+    pending = false;
+    return MAPPER.readTree(parser);
+  }
+
+  /**
+   * Reads one schema object and builds it, unless it depends on a {@code $ref}
+   * target that has not been read yet, in which case the shallow node is kept.
+   */
+  private JsonNode readSchema() throws IOException {
+    ObjectNode node = NODES.objectNode();
+    boolean childrenPending;
+    depth++;
+    try {
+      childrenPending = readObject(node, false);
+      // Its subschemas are built already, so the loader would see it at depth 1
+      if (!node.isEmpty()) {
+        limits.check(LoaderLimits.Limit.DEPTH, depth);
+      }
+    } finally {
+      depth--;
+    }
+    RefState state = refState(node);
+    if (state == RefState.PENDING || (state == RefState.NONE && childrenPending)) {
+      pending = true;
+      return node;
+    }
+    pending = false;
+    return NODES.pojoNode(loader.loadSchema(node));
+  }
+
+  private boolean isBaseChange(String name, String id) {
+    return name.equals(loader.getVersion().idKeyword()) && !id.startsWith("#");
+  }
+
+  private enum RefState { NONE, RESOLVED, PENDING }
+
+  private RefState refState(ObjectNode node) {
+    String pointer = SchemaLoader.localRefPointer(node);
+    if (pointer == null) {
+      return RefIndex.hasRef(node) ? RefState.PENDING : RefState.NONE;
+    }
+    if (embeddedResources) {
+      return RefState.PENDING;
+    }
+    if (resolvablePointers.contains(pointer)) {
+      return RefState.RESOLVED;
+    }
+    Set<JsonNode> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+    if (!targetAvailable(pointer, visiting)) {
+      return RefState.PENDING;
+    }
+    resolvablePointers.add(pointer);
+    return RefState.RESOLVED;
+  }
+
+  private boolean targetAvailable(String pointer, Set<JsonNode> visiting) {
+    if (pointer.isEmpty()) {
+      // The root is still open until the end of the document
+      return false;
+    }
+    JsonNode target = root.at(pointer);
+    if (target.isMissingNode()) {
+      return false;
+    }
+    return !visiting.add(target) || refsAvailable(target, visiting);
+  }
+
+  /**
+   * Whether every {@code $ref} inside a buffered subtree can be resolved now.
+   */
+  private boolean refsAvailable(JsonNode node, Set<JsonNode> visiting) {
+    if (SchemaLoader.isLoadedSchema(node)) {
+      return true;
+    }
+    if (node.isObject()) {
+      JsonNode id = node.get(loader.getVersion().idKeyword());
+      if (id != null && id.isTextual() && !id.asText().startsWith("#")) {
+        return false;
+      }
+      String pointer = SchemaLoader.localRefPointer(node);
+      if (pointer == null && RefIndex.hasRef(node)) {
+        return false;
+      }
+      if (pointer != null && !resolvablePointers.contains(pointer)
+          && !targetAvailable(pointer, visiting)) {
+        return false;
+      }
+    }
+    Iterator<JsonNode> children = node.elements();
+    while (children.hasNext()) {
+      if (!refsAvailable(children.next(), visiting)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -1,30 +1,96 @@
 package com.github.jsonschemadiff.schema;
 
+import com.github.jsonschemadiff.utils.PatternCache;
+
+import java.util.Objects;
 import java.util.regex.Pattern;
 
+/**
+ * Limits are stored as primitives with a presence bitmask; the boxed getters
+ * return {@code null} for an absent limit.
+ */
 public class StringSchema extends Schema {
 
-  private final Integer maxLength;
-  private final Integer minLength;
-  private final Pattern pattern;
+  private static final byte MAX_LENGTH = 1;
+  private static final byte MIN_LENGTH = 2;
+
+  private final int maxLength;
+  private final int minLength;
+  private final byte present;
+  // The pattern source, replaced by the compiled Pattern on first use
+  private volatile Object pattern;
 
   private StringSchema(Builder builder) {
     super(builder);
-    this.maxLength = builder.maxLength;
-    this.minLength = builder.minLength;
+    this.maxLength = builder.maxLength != null ? builder.maxLength : 0;
+    this.minLength = builder.minLength != null ? builder.minLength : 0;
+    this.present = (byte) ((builder.maxLength != null ? MAX_LENGTH : 0)
+        | (builder.minLength != null ? MIN_LENGTH : 0));
     this.pattern = builder.pattern;
   }
 
   public Integer getMaxLength() {
-    return maxLength;
+    return hasMaxLength() ? Integer.valueOf(maxLength) : null;
   }
 
   public Integer getMinLength() {
+    return hasMinLength() ? Integer.valueOf(minLength) : null;
+  }
+
+  public boolean hasMaxLength() {
+    return (present & MAX_LENGTH) != 0;
+  }
+
+  public boolean hasMinLength() {
+    return (present & MIN_LENGTH) != 0;
+  }
+
+  /**
+   * {@code maxLength}, or 0 if it is absent.
+   */
+  public int getMaxLengthAsInt() {
+    return maxLength;
+  }
+
+  /**
+   * {@code minLength}, or 0 if it is absent.
+   */
+  public int getMinLengthAsInt() {
     return minLength;
   }
 
+  /**
+   * Returns the compiled {@code pattern}, compiling it through {@link PatternCache}
+   * on first use.
+   */
   public Pattern getPattern() {
-    return pattern;
+    Object current = pattern;
+    if (current instanceof String) {
+      Pattern compiled = PatternCache.compile((String) current);
+      pattern = compiled;
+      return compiled;
+    }
+    return (Pattern) current;
+  }
+
+  public String getPatternString() {
+    Object current = pattern;
+    return current instanceof Pattern ? ((Pattern) current).pattern() : (String) current;
+  }
+
+  @Override
+  void hashContent(StructuralHash hash) {
+    hash.add(present).add(maxLength).add(minLength).add(getPatternString());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!super.equals(o)) return false;
+    StringSchema that = (StringSchema) o;
+    return present == that.present
+        && maxLength == that.maxLength
+        && minLength == that.minLength
+        && Objects.equals(getPatternString(), that.getPatternString());
   }
 
   public static Builder builder() {
@@ -34,7 +100,7 @@ public class StringSchema extends Schema {
   public static class Builder extends Schema.Builder<Builder> {
     private Integer maxLength;
     private Integer minLength;
-    private Pattern pattern;
+    private String pattern;
 
     public Builder maxLength(Integer maxLength) {
       this.maxLength = maxLength;
@@ -47,7 +113,7 @@ public class StringSchema extends Schema {
     }
 
     public Builder pattern(String pattern) {
-      this.pattern = pattern != null ? Pattern.compile(pattern) : null;
+      this.pattern = pattern;
       return this;
     }
 
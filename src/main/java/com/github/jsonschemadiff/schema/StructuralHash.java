@@ -0,0 +1,144 @@
+package com.github.jsonschemadiff.schema;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Accumulates the structural hash of one schema node from its own fields and
+ * the structural hashes of its subschemas (see {@link Schema#getStructuralHash()}).
+ * Values are mixed in order, except the entries of a schema map and the
+ * members of a schema set, which are combined so that the result does not
+ * depend on iteration order, like the map's or set's {@code equals}.
+ *
+ * The low bits of a hash are flags. A node from which a cycle can be reached
+ * is {@link #CYCLIC} and hashed by its class and base fields only, so that its
+ * hash does not depend on where the cycle was entered.
+ */
+final class StructuralHash {
+
+  // Set in every hash, so that 0 can mark one not computed yet
+  static final long COMPUTED = 2L;
+  static final long REFERENCES = 1L;
+  static final long CYCLIC = 4L;
+  private static final long FLAGS = REFERENCES | COMPUTED | CYCLIC;
+
+  // What a schema whose hash is being computed contributes to its own hash
+  static final long CYCLE = COMPUTED | REFERENCES | CYCLIC;
+
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  private final Schema owner;
+  private Set<Schema> inProgress;
+  private final long base;
+  private long hash;
+  private long flags;
+
+  StructuralHash(Schema owner, Set<Schema> inProgress) {
+    this.owner = owner;
+    this.inProgress = inProgress;
+    hash = owner.getClass().getName().hashCode();
+    add(owner.getId()).add(owner.getTitle()).add(owner.getDescription())
+        .add(owner.getDefaultValue()).add(owner.getUnprocessedProperties());
+    base = hash;
+  }
+
+  StructuralHash add(Object value) {
+    hash = hash * MULTIPLIER + Objects.hashCode(value);
+    return this;
+  }
+
+  StructuralHash add(long value) {
+    hash = hash * MULTIPLIER + value;
+    return this;
+  }
+
+  StructuralHash add(Schema schema) {
+    return add(schema != null ? of(schema) : 0L);
+  }
+
+  StructuralHash addAll(Collection<Schema> schemas) {
+    if (schemas == null) {
+      return add(-1L);
+    }
+    add(schemas.size());
+    for (Schema schema : schemas) {
+      add(schema);
+    }
+    return this;
+  }
+
+  StructuralHash addAll(Map<String, Schema> schemas) {
+    long sum = 0;
+    for (Map.Entry<String, Schema> entry : schemas.entrySet()) {
+      sum += mix(entry.getKey().hashCode() * MULTIPLIER + of(entry.getValue()));
+    }
+    return add(schemas.size()).add(sum);
+  }
+
+  /**
+   * Adds {@code schemas} as a set: in no particular order, with equal schemas
+   * (which have equal hashes) counted once.
+   */
+  StructuralHash addSet(Collection<Schema> schemas) {
+    if (schemas == null) {
+      return add(0L).add(0L);
+    }
+    long[] values = new long[schemas.size()];
+    int i = 0;
+    for (Schema schema : schemas) {
+      values[i++] = of(schema);
+    }
+    Arrays.sort(values);
+    long sum = 0;
+    int distinct = 0;
+    for (i = 0; i < values.length; i++) {
+      if (i == 0 || values[i] != values[i - 1]) {
+        sum += mix(values[i]);
+        distinct++;
+      }
+    }
+    return add(distinct).add(sum);
+  }
+
+  StructuralHash addReference() {
+    flags |= REFERENCES;
+    return this;
+  }
+
+  /**
+   * The final hash: never 0, with {@link #REFERENCES} set if the subtree holds
+   * a {@link ReferenceSchema} or a cycle.
+   */
+  long value() {
+    long value = (flags & CYCLIC) != 0 ? base : hash;
+    return (mix(value) & ~FLAGS) | COMPUTED | flags;
+  }
+
+  private long of(Schema schema) {
+    long value = schema.getStructuralHashIfComputed();
+    if (value == 0) {
+      if (inProgress == null) {
+        // The first subschema not hashed yet: the owner is the outermost in progress
+        inProgress = Collections.newSetFromMap(new IdentityHashMap<>());
+        inProgress.add(owner);
+      }
+      value = schema.structuralHash(inProgress);
+    }
+    flags |= value & (REFERENCES | CYCLIC);
+    return value;
+  }
+
+  // The finalizer of MurmurHash3, so that nearby inputs spread over all bits
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB93E8F72C87BL;
+    return value ^ (value >>> 33);
+  }
+}
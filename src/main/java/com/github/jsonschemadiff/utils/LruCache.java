@@ -0,0 +1,120 @@
+package com.github.jsonschemadiff.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, thread-safe map that evicts a least recently used entry once
+ * {@code maxEntries} is exceeded. Lookups are counted as hits or misses.
+ *
+ * Recency is approximated with a second-chance (CLOCK) queue: a lookup only
+ * marks its entry as used, so concurrent readers take no lock and contend on
+ * nothing but the map itself. Inserting past the bound evicts under a lock,
+ * in insertion order, skipping (and unmarking) each entry used since it was
+ * last passed over. Every key in the map keeps a slot in the queue, so each
+ * put that crosses the bound can evict back down to it, however puts race.
+ */
+public class LruCache<K, V> {
+
+  private final int maxEntries;
+  private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+  // Keys in insertion order; the head is the next candidate for eviction
+  private final Queue<K> order = new ConcurrentLinkedQueue<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  public LruCache(int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+    }
+    this.maxEntries = maxEntries;
+  }
+
+  public V get(K key) {
+    Node<V> node = entries.get(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+    if (!node.used) {
+      node.used = true;
+    }
+    hitCount.increment();
+    return node.value;
+  }
+
+  public void put(K key, V value) {
+    if (entries.put(key, new Node<>(value)) == null) {
+      order.add(key);
+      if (entries.size() > maxEntries) {
+        evict();
+      }
+    }
+  }
+
+  private void evict() {
+    evictionLock.lock();
+    try {
+      while (entries.size() > maxEntries) {
+        K key = order.poll();
+        if (key == null) {
+          return;
+        }
+        Node<V> node = entries.get(key);
+        if (node == null) {
+          continue;
+        }
+        if (node.used) {
+          node.used = false;
+          order.add(key);
+        } else if (!entries.remove(key, node)) {
+          // Replaced since it was read: the new entry keeps the key's slot
+          order.add(key);
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    evictionLock.lock();
+    try {
+      entries.clear();
+      order.clear();
+      hitCount.reset();
+      missCount.reset();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  private static final class Node<V> {
+    final V value;
+    volatile boolean used;
+
+    Node(V value) {
+      this.value = value;
+    }
+  }
+}
@@ -3,7 +3,7 @@ package com.github.jsonschemadiff.utils;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -63,9 +63,10 @@ public class MaximumCardinalityMatch<V, T> {
   private void init() {
     adjacencyList = new IdentityHashMap<>();
     for (Edge<V, T> edge : edges) {
-      Set<Edge<V, T>> adj = adjacencyList.computeIfAbsent(edge.source(), k -> new HashSet<>());
+      Set<Edge<V, T>> adj =
+          adjacencyList.computeIfAbsent(edge.source(), k -> new LinkedHashSet<>());
       adj.add(edge);
-      adj = adjacencyList.computeIfAbsent(edge.target(), k -> new HashSet<>());
+      adj = adjacencyList.computeIfAbsent(edge.target(), k -> new LinkedHashSet<>());
       adj.add(edge);
     }
 
@@ -160,7 +161,7 @@ public class MaximumCardinalityMatch<V, T> {
     }
     assert matchedVertices <= partition1.size();
 
-    Set<Edge<V, T>> resultEdges = new HashSet<>();
+    Set<Edge<V, T>> resultEdges = new LinkedHashSet<>();
     for (int i = 0; i < vertices.size(); i++) {
       if (matching[i] != nil) {
         resultEdges.add(edge(vertices.get(i), vertices.get(matching[i])));
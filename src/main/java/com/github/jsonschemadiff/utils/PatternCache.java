@@ -0,0 +1,46 @@
+package com.github.jsonschemadiff.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide cache of compiled regular expressions keyed by pattern text.
+ *
+ * Schemas keep {@code pattern} and {@code patternProperties} as strings. The
+ * loader compiles each one through this cache to reject malformed patterns,
+ * and schemas look the compiled form up here when a matcher is needed, so the
+ * same expression repeated across many loaded schema versions is compiled once.
+ */
+public final class PatternCache {
+
+  public static final int MAX_ENTRIES = 1024;
+
+  private static final LruCache<String, Pattern> CACHE = new LruCache<>(MAX_ENTRIES);
+
+  private PatternCache() {
+  }
+
+  public static Pattern compile(String regex) {
+    Pattern pattern = CACHE.get(regex);
+    if (pattern == null) {
+      pattern = Pattern.compile(regex);
+      CACHE.put(regex, pattern);
+    }
+    return pattern;
+  }
+
+  public static int size() {
+    return CACHE.size();
+  }
+
+  public static long getHitCount() {
+    return CACHE.getHitCount();
+  }
+
+  public static long getMissCount() {
+    return CACHE.getMissCount();
+  }
+
+  public static void clear() {
+    CACHE.clear();
+  }
+}
@@ -4,20 +4,29 @@ import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jsonschemadiff.schema.ArraySchema;
+import com.github.jsonschemadiff.schema.CombinedSchema;
 import com.github.jsonschemadiff.schema.JsonSchemaVersion;
+import com.github.jsonschemadiff.schema.ObjectSchema;
 import com.github.jsonschemadiff.schema.Schema;
 import com.github.jsonschemadiff.schema.SchemaLoader;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -43,6 +52,8 @@ public class SchemaDiffTest {
   }
 
   private void checkJsonSchemaCompatibility(ArrayNode testCases) {
+    // Shared by every case and both rule sets
+    DiffCache sharedCache = new DiffCache();
     for (JsonNode testCaseNode : testCases) {
       ObjectNode testCase = (ObjectNode) testCaseNode;
       JsonNode originalSchemaNode = testCase.get("original_schema");
@@ -60,6 +71,8 @@ public class SchemaDiffTest {
       }
 
       List<Difference> differences = SchemaDiff.compare(originalSchema, updateSchema);
+      assertEquals(description, differences, SchemaDiff.compare(
+          SchemaDiff.COMPATIBLE_CHANGES_STRICT, originalSchema, updateSchema, sharedCache));
       final List<Difference> incompatibleDiffs = differences.stream()
           .filter(diff -> !SchemaDiff.COMPATIBLE_CHANGES_STRICT.contains(diff.getType()))
           .collect(Collectors.toList());
@@ -70,6 +83,9 @@ public class SchemaDiffTest {
               .collect(toList()),
           is(expectedChanges));
       assertEquals(description, isCompatible, incompatibleDiffs.isEmpty());
+      assertEquals(description, incompatibleDiffs.isEmpty() ? null : incompatibleDiffs.get(0),
+          SchemaDiff.findIncompatibleDifference(
+              SchemaDiff.COMPATIBLE_CHANGES_STRICT, originalSchema, updateSchema, sharedCache));
 
       boolean isCompatibleLenient = isCompatible;
       if (testCase.has("compatible_lenient")) {
@@ -77,10 +93,16 @@ public class SchemaDiffTest {
       }
       List<Difference> differencesLenient = SchemaDiff.compare(
           SchemaDiff.COMPATIBLE_CHANGES_LENIENT, originalSchema, updateSchema);
+      assertEquals(description, differencesLenient, SchemaDiff.compare(
+          SchemaDiff.COMPATIBLE_CHANGES_LENIENT, originalSchema, updateSchema, sharedCache));
       final List<Difference> incompatibleDiffsLenient = differences.stream()
           .filter(diff -> !SchemaDiff.COMPATIBLE_CHANGES_LENIENT.contains(diff.getType()))
           .collect(Collectors.toList());
       assertEquals(description, isCompatibleLenient, incompatibleDiffsLenient.isEmpty());
+      assertEquals(description, differencesLenient.stream()
+              .allMatch(diff -> SchemaDiff.COMPATIBLE_CHANGES_LENIENT.contains(diff.getType())),
+          SchemaDiff.isCompatible(
+              SchemaDiff.COMPATIBLE_CHANGES_LENIENT, originalSchema, updateSchema));
     }
   }
 
@@ -122,6 +144,208 @@ public class SchemaDiffTest {
     assertTrue(changes.isEmpty());
   }
 
+  @Test
+  public void testEqualityIsStructural() throws Exception {
+    String schema = "{\"anyOf\":["
+        + "{\"type\":\"object\",\"properties\":{\"a\":{\"type\":\"string\"}}},"
+        + "{\"type\":\"object\",\"properties\":{\"a\":{\"type\":\"integer\"}}}]}";
+    CombinedSchema first = (CombinedSchema) SchemaLoader.load(schema);
+    CombinedSchema second = (CombinedSchema) SchemaLoader.load(schema);
+    assertEquals(first, second);
+    assertEquals(first.getStructuralHash(), second.getStructuralHash());
+
+    // Subschemas that differ only below the top level are no longer merged
+    List<Schema> subschemas = new ArrayList<>(first.getSubschemas());
+    assertEquals(2, subschemas.size());
+    assertNotEquals(subschemas.get(0), subschemas.get(1));
+    assertNotEquals(subschemas.get(0).getStructuralHash(),
+        subschemas.get(1).getStructuralHash());
+
+    Schema lazy = SchemaLoader.builder(MAPPER.readTree(schema)).lazy(true).build().load();
+    assertEquals(first.getStructuralHash(), lazy.getStructuralHash());
+    assertEquals(first, lazy);
+  }
+
+  private static class CountingContext extends Context {
+    int entered;
+
+    CountingContext() {
+      super(SchemaDiff.COMPATIBLE_CHANGES_STRICT);
+    }
+
+    @Override
+    SchemaScope enterSchema(Schema schema, boolean revisitable) {
+      entered++;
+      return super.enterSchema(schema, revisitable);
+    }
+  }
+
+  @Test
+  public void testUnchangedSubtreesAreSkipped() {
+    StringBuilder original = new StringBuilder("{\"type\":\"object\",\"properties\":{");
+    for (int i = 0; i < 1_000; i++) {
+      original.append("\"p").append(i).append("\":{\"type\":\"object\",\"properties\":{")
+          .append("\"name\":{\"type\":\"string\",\"maxLength\":10}}},");
+    }
+    String update = original + "\"last\":{\"type\":\"integer\",\"maximum\":20}}}";
+    original.append("\"last\":{\"type\":\"integer\",\"maximum\":10}}}");
+
+    CountingContext ctx = new CountingContext();
+    SchemaDiff.compare(ctx, SchemaLoader.load(original.toString()), SchemaLoader.load(update));
+    assertEquals(1, ctx.getDifferences().size());
+    assertEquals(Difference.Type.MAXIMUM_INCREASED, ctx.getDifferences().get(0).getType());
+    assertEquals("#/properties/last/maximum", ctx.getDifferences().get(0).getJsonPath());
+    // Only the root and the changed property are compared field by field
+    assertEquals(2, ctx.entered);
+  }
+
+  @Test
+  public void testEqualSubtreesWithReferencesAreCompared() {
+    // The same $ref value leads to a different target in each document
+    String original = "{\"type\":\"object\",\"properties\":{\"next\":"
+        + "{\"type\":\"object\",\"properties\":{\"next\":{\"$ref\":\"#\"}}}}}";
+    String update = "{\"type\":\"array\",\"items\":"
+        + "{\"type\":\"object\",\"properties\":{\"next\":{\"$ref\":\"#\"}}}}";
+    ObjectSchema first = (ObjectSchema) SchemaLoader.load(original);
+    ArraySchema second = (ArraySchema) SchemaLoader.load(update);
+    Schema firstNext = first.getPropertySchemas().get("next");
+    assertEquals(firstNext, second.getAllItemSchema());
+    assertTrue(firstNext.hasReferences());
+
+    List<Difference> changes = SchemaDiff.compare(firstNext, second.getAllItemSchema());
+    assertEquals(1, changes.size());
+    assertEquals(Difference.Type.TYPE_CHANGED, changes.get(0).getType());
+  }
+
+  @Test
+  public void testUnchangedNotReportsNoDifference() {
+    // Comparing a not-schema with itself used to report NOT_TYPE_NARROWED
+    String not = "{\"not\":{\"type\":\"string\",\"maxLength\":5}}";
+    assertTrue(SchemaDiff.compare(SchemaLoader.load(not), SchemaLoader.load(not)).isEmpty());
+    List<Difference> changes = SchemaDiff.compare(SchemaLoader.load(not),
+        SchemaLoader.load("{\"not\":{\"type\":\"string\",\"maxLength\":3}}"));
+    assertEquals(List.of(new Difference(Difference.Type.NOT_TYPE_NARROWED, "#/not")), changes);
+  }
+
+  @Test
+  public void testLazyTreesAreNotHashedToCompare() throws Exception {
+    String json = "{\"properties\":{\"a\":{\"type\":\"string\"},"
+        + "\"b\":{\"properties\":{\"c\":{\"type\":\"number\"}}}}}";
+    Schema lazy = SchemaLoader.builder(MAPPER.readTree(json)).lazy(true).build().load();
+    List<Difference> changes = SchemaDiff.compare(lazy, SchemaLoader.load(json));
+    assertTrue(changes.isEmpty());
+    assertFalse(lazy.isStructuralHashComputed());
+    assertEquals(SchemaLoader.load(json).getStructuralHash(), lazy.getStructuralHash());
+  }
+
+  @Test
+  public void testCachedComparisonsAreReRooted() {
+    String choice = "{\"anyOf\":[{\"type\":\"string\",\"maxLength\":5},"
+        + "{\"type\":\"object\",\"properties\":{\"n\":{\"type\":\"integer\"}}}]}";
+    String widened = "{\"anyOf\":[{\"type\":\"string\",\"maxLength\":9},"
+        + "{\"type\":\"object\",\"properties\":{\"n\":{\"type\":\"integer\"}}}]}";
+    String original = "{\"type\":\"object\",\"properties\":{\"a\":" + choice
+        + ",\"b\":{\"type\":\"array\",\"items\":" + choice + "}}}";
+    String update = "{\"type\":\"object\",\"properties\":{\"a\":" + widened
+        + ",\"b\":{\"type\":\"array\",\"items\":" + widened + "}}}";
+
+    Context uncached = new Context(SchemaDiff.COMPATIBLE_CHANGES_STRICT);
+    SchemaDiff.compare(uncached, SchemaLoader.load(original), SchemaLoader.load(update));
+    DiffCache cache = new DiffCache();
+    List<Difference> changes = SchemaDiff.compare(SchemaDiff.COMPATIBLE_CHANGES_STRICT,
+        SchemaLoader.load(original), SchemaLoader.load(update), cache);
+    assertEquals(uncached.getDifferences(), changes);
+    assertEquals(List.of("#/properties/a/anyOf/0/maxLength",
+            "#/properties/b/items/anyOf/0/maxLength"),
+        changes.stream().map(Difference::getJsonPath).collect(toList()));
+    // The pairs of subschemas under b equal those under a
+    assertEquals(4, cache.getMissCount());
+    assertEquals(4, cache.getHitCount());
+
+    // Another call comparing equal trees takes every pair from the cache
+    assertEquals(changes, SchemaDiff.compare(SchemaDiff.COMPATIBLE_CHANGES_STRICT,
+        SchemaLoader.load(original), SchemaLoader.load(update), cache));
+    assertEquals(4, cache.getMissCount());
+    assertEquals(12, cache.getHitCount());
+  }
+
+  @Test
+  public void testVerdictStopsAtTheFirstIncompatibleDifference() {
+    Schema original = SchemaLoader.load("{\"properties\":{\"a\":{\"type\":\"string\"},"
+        + "\"b\":{\"type\":\"string\"},\"c\":{\"type\":\"string\"}}}");
+    Schema update = SchemaLoader.load("{\"properties\":{\"a\":{\"type\":\"number\"},"
+        + "\"b\":{\"type\":\"number\"},\"c\":{\"type\":\"number\"}}}");
+    assertEquals(3, SchemaDiff.compare(original, update).size());
+
+    Context ctx = new Context(SchemaDiff.COMPATIBLE_CHANGES_STRICT, null, true);
+    try {
+      SchemaDiff.compare(ctx, original, update);
+      fail();
+    } catch (Context.Incompatible e) {
+      assertSame(ctx.getDifferences().get(0), e.getDifference());
+    }
+    assertEquals(1, ctx.getDifferences().size());
+    assertEquals(new Difference(Difference.Type.TYPE_CHANGED, "#/properties/a"),
+        SchemaDiff.findIncompatibleDifference(
+            SchemaDiff.COMPATIBLE_CHANGES_STRICT, original, update));
+
+    // An incompatible branch tried while matching does not decide the verdict
+    Schema string = SchemaLoader.load("{\"type\":\"string\"}");
+    Schema numberOrString = SchemaLoader.load(
+        "{\"anyOf\":[{\"type\":\"number\"},{\"type\":\"string\"}]}");
+    assertTrue(SchemaDiff.isCompatible(SchemaDiff.COMPATIBLE_CHANGES_STRICT, string,
+        numberOrString));
+    assertFalse(SchemaDiff.isCompatible(SchemaDiff.COMPATIBLE_CHANGES_STRICT, numberOrString,
+        string));
+  }
+
+  @Test
+  public void testPathsAreSharedAndRenderedOnDemand() {
+    Context ctx = new Context(SchemaDiff.COMPATIBLE_CHANGES_STRICT);
+    try (Context.PathScope outer = ctx.enterPath("properties");
+        Context.PathScope inner = ctx.enterPath("items", 12)) {
+      assertSame(outer, inner);
+      ctx.addDifference(Difference.Type.TYPE_CHANGED);
+      ctx.getSubcontext().addDifference(Difference.Type.TYPE_CHANGED);
+    }
+    try (Context.PathScope scope = ctx.enterPath("properties")) {
+      ctx.addDifference("items/12", Difference.Type.TYPE_CHANGED);
+    }
+    ctx.addDifference(Difference.Type.ID_CHANGED);
+
+    List<Difference> diffs = ctx.getDifferences();
+    assertEquals("#/properties/items/12", diffs.get(0).getJsonPath());
+    assertEquals(diffs.get(0), diffs.get(1));
+    assertEquals(diffs.get(0), new Difference(Difference.Type.TYPE_CHANGED,
+        "#/properties/items/12"));
+    assertEquals(diffs.get(0).hashCode(), diffs.get(1).hashCode());
+    assertEquals("#/", diffs.get(2).getJsonPath());
+  }
+
+  @Test
+  public void testSubcontextsKeepTheStateTheyStartedFrom() {
+    Schema schema = SchemaLoader.load("{\"type\":\"string\"}");
+    Context ctx = new Context(SchemaDiff.COMPATIBLE_CHANGES_STRICT);
+    Context sub;
+    try (Context.PathScope pathScope = ctx.enterPath("properties/a");
+        Context.SchemaScope schemaScope = ctx.enterSchema(schema)) {
+      sub = ctx.getSubcontext();
+      try (Context.PathScope inner = sub.enterPath("items")) {
+        sub.addDifference(Difference.Type.TYPE_CHANGED);
+      }
+    }
+    ctx.addDifference(Difference.Type.ID_CHANGED);
+    sub.addDifference("maxLength", Difference.Type.MAX_LENGTH_ADDED);
+
+    assertEquals("#/", ctx.getDifferences().get(0).getJsonPath());
+    assertEquals(List.of("#/properties/a/items", "#/properties/a/maxLength"),
+        sub.getDifferences().stream().map(Difference::getJsonPath).collect(toList()));
+    assertNull(sub.enterSchema(schema));
+    try (Context.SchemaScope schemaScope = ctx.enterSchema(schema)) {
+      assertNotNull(schemaScope);
+    }
+  }
+
   // --- Draft-04: boolean exclusiveMaximum/exclusiveMinimum ---
 
   @Test
@@ -0,0 +1,72 @@
+package com.github.jsonschemadiff.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BulkSchemaLoaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path write(Path dir, String name, String content) throws Exception {
+    Path file = dir.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  @Test
+  public void testLoadsDirectoryAndReportsPerFileErrors() throws Exception {
+    Path root = folder.getRoot().toPath();
+    for (int i = 0; i < 20; i++) {
+      write(root, "orders/v" + i + ".json", "{\"type\":\"string\",\"maxLength\":" + i + "}");
+    }
+    write(root, "broken.json", "{\"type\":");
+    write(root, "notes.txt", "not a schema");
+
+    BulkSchemaLoader.Result result = BulkSchemaLoader.builder().parallelism(4).build().load(root);
+
+    assertEquals(20, result.getSchemas().size());
+    StringSchema v7 = (StringSchema) result.getSchemas().get("orders/v7.json");
+    assertEquals(Integer.valueOf(7), v7.getMaxLength());
+    assertEquals(List.of("broken.json"), List.copyOf(result.getErrors().keySet()));
+  }
+
+  @Test
+  public void testLoadsZipArchive() throws Exception {
+    Path zip = folder.getRoot().toPath().resolve("schemas.zip");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      out.putNextEntry(new ZipEntry("a/user.json"));
+      out.write("{\"type\":\"object\"}".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+
+    BulkSchemaLoader.Result result = BulkSchemaLoader.builder().build().load(zip);
+
+    assertTrue(result.getSchemas().get("a/user.json") instanceof ObjectSchema);
+    assertTrue(result.getErrors().isEmpty());
+  }
+
+  @Test
+  public void testLoadsExplicitFileList() throws Exception {
+    Path root = folder.getRoot().toPath();
+    Path a = write(root, "a.json", "true");
+    Path b = write(root, "b.json", "{\"type\":\"number\"}");
+
+    BulkSchemaLoader.Result result = BulkSchemaLoader.builder().build().load(List.of(a, b));
+
+    assertTrue(result.getSchemas().get(a.toString()) instanceof EmptySchema);
+    assertTrue(result.getSchemas().get(b.toString()) instanceof NumberSchema);
+  }
+}
@@ -0,0 +1,183 @@
+package com.github.jsonschemadiff.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.jsonschemadiff.diff.Difference;
+import com.github.jsonschemadiff.diff.SchemaDiff;
+import com.github.jsonschemadiff.diff.SchemaDiffTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.Test;
+
+public class SchemaCodecTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static Schema roundTrip(Schema schema) {
+    return SchemaCodec.decode(SchemaCodec.encode(schema));
+  }
+
+  @Test
+  public void testRoundTripPreservesDiffs() throws Exception {
+    for (String file : new String[] {
+        "diff-schema-examples.json", "diff-combined-schema-examples.json"}) {
+      JsonNode testCases = MAPPER.readTree(
+          Objects.requireNonNull(SchemaDiffTest.readFile(file)));
+      for (JsonNode testCase : testCases) {
+        Schema original = SchemaLoader.load(testCase.get("original_schema"));
+        Schema update = SchemaLoader.load(testCase.get("update_schema"));
+        assertEquals(testCase.get("description").asText(),
+            SchemaDiff.compare(original, update),
+            SchemaDiff.compare(roundTrip(original), roundTrip(update)));
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTripPreservesValuesAndSharing() {
+    String json = "{\"type\":\"object\",\"title\":\"t\",\"connect.type\":\"bytes\","
+        + "\"properties\":{"
+        + "\"home\":{\"$ref\":\"#/definitions/Address\"},"
+        + "\"work\":{\"$ref\":\"#/definitions/Address\"},"
+        + "\"n\":{\"type\":\"number\",\"maximum\":1.5,\"minimum\":-3,\"default\":2},"
+        + "\"e\":{\"enum\":[\"a\",1,2.5,true,null]}},"
+        + "\"required\":[\"home\"],"
+        + "\"definitions\":{\"Address\":{\"type\":\"object\","
+        + "\"properties\":{\"zip\":{\"type\":\"string\",\"pattern\":\"^[0-9]+$\"}}}}}";
+    ObjectSchema original = (ObjectSchema) SchemaLoader.load(json);
+    ObjectSchema decoded = (ObjectSchema) roundTrip(original);
+
+    assertSame(decoded.getPropertySchemas().get("home"), decoded.getPropertySchemas().get("work"));
+    assertEquals(original.getUnprocessedProperties(), decoded.getUnprocessedProperties());
+    assertEquals(original.getRequiredProperties(), decoded.getRequiredProperties());
+    NumberSchema n = (NumberSchema) decoded.getPropertySchemas().get("n");
+    NumberSchema origN = (NumberSchema) original.getPropertySchemas().get("n");
+    assertEquals(origN.getMaximum(), n.getMaximum());
+    assertEquals(origN.getMinimum(), n.getMinimum());
+    assertEquals(origN.getDefaultValue(), n.getDefaultValue());
+    assertEquals(((EnumSchema) original.getPropertySchemas().get("e")).getPossibleValues(),
+        ((EnumSchema) decoded.getPropertySchemas().get("e")).getPossibleValues());
+    assertTrue(SchemaDiff.compare(original, decoded).isEmpty());
+  }
+
+  @Test
+  public void testRoundTripPreservesRecursiveReferences() {
+    String json = "{\"type\":\"object\",\"properties\":{"
+        + "\"name\":{\"type\":\"string\",\"maxLength\":5},"
+        + "\"children\":{\"type\":\"array\",\"items\":{\"$ref\":\"#\"}}}}";
+    ObjectSchema decoded = (ObjectSchema) roundTrip(SchemaLoader.load(json));
+    ArraySchema children = (ArraySchema) decoded.getPropertySchemas().get("children");
+    ReferenceSchema ref = (ReferenceSchema) children.getAllItemSchema();
+    assertEquals("#", ref.getReferenceValue());
+    assertSame(decoded, ref.getReferredSchema());
+
+    List<Difference> diffs = SchemaDiff.compare(decoded,
+        SchemaLoader.load(json.replace("\"maxLength\":5", "\"maxLength\":3")));
+    assertEquals(1, diffs.size());
+  }
+
+  @Test
+  public void testDecodeRejectsUnknownVersion() {
+    byte[] bytes = SchemaCodec.encode(SchemaLoader.load("{\"type\":\"string\"}"));
+    bytes[4] = (byte) (SchemaCodec.FORMAT_VERSION + 1);
+    try {
+      SchemaCodec.decode(bytes);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("version"));
+    }
+  }
+
+  @Test
+  public void testCorruptInputFailsWithIllegalArgumentException() {
+    String json = "{\"type\":\"object\",\"x-tag\":{\"a\":[1,2.5]},\"properties\":{"
+        + "\"n\":{\"type\":\"number\",\"maximum\":1e400,\"minimum\":-3},"
+        + "\"c\":{\"anyOf\":[{\"type\":\"string\",\"pattern\":\"^a\"},{\"const\":7}]},"
+        + "\"t\":{\"type\":\"array\",\"items\":{\"$ref\":\"#\"}}},"
+        + "\"required\":[\"n\"],\"dependencies\":{\"n\":[\"c\"]}}";
+    byte[] encoded = SchemaCodec.encode(SchemaLoader.load(json));
+    for (int length = 0; length < encoded.length; length++) {
+      assertRejectedOrDecoded(Arrays.copyOf(encoded, length));
+    }
+    for (int i = 5; i < encoded.length; i++) {
+      for (int value : new int[] {0, 1, 2, 5, 9, 12, 0x7F, 0x80, 0xFF}) {
+        byte[] corrupt = encoded.clone();
+        corrupt[i] = (byte) value;
+        assertRejectedOrDecoded(corrupt);
+      }
+    }
+  }
+
+  @Test
+  public void testDeepTreesRoundTripOnASmallStack() throws Exception {
+    // properties, items and allOf levels, and a nested extension value
+    int levels = 6_000;
+    int valueLevels = 100;
+    ObjectNode root = MAPPER.createObjectNode();
+    ObjectNode node = root;
+    for (int i = 0; i < levels; i++) {
+      ObjectNode child = MAPPER.createObjectNode();
+      if (i % 3 == 0) {
+        node.put("type", "object").putObject("properties").set("a", child);
+      } else if (i % 3 == 1) {
+        node.put("type", "array").set("items", child);
+      } else {
+        node.putArray("allOf").add(child).addObject().put("minLength", 1);
+      }
+      node = child;
+    }
+    ObjectNode extension = node.put("type", "string").putObject("x-deep");
+    for (int i = 0; i < valueLevels; i++) {
+      extension = i % 2 == 0 ? extension.putArray("a").addObject() : extension.putObject("o");
+    }
+    Schema loaded = SchemaLoader.load(root);
+
+    List<Schema> decoded = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    Thread thread = new Thread(null, () -> {
+      try {
+        decoded.add(roundTrip(loaded));
+      } catch (Throwable t) {
+        failures.add(t);
+      }
+    }, "small-stack", 256 * 1024);
+    thread.start();
+    thread.join();
+    assertEquals(Collections.emptyList(), failures);
+
+    Schema schema = decoded.get(0);
+    for (int i = 0; i < levels; i++) {
+      if (i % 3 == 0) {
+        schema = ((ObjectSchema) schema).getPropertySchemas().get("a");
+      } else if (i % 3 == 1) {
+        schema = ((ArraySchema) schema).getAllItemSchema();
+      } else {
+        schema = ((CombinedSchema) schema).getSubschemas().iterator().next();
+      }
+    }
+    JsonNode value = ((StringSchema) schema).getUnprocessedProperties().get("x-deep");
+    for (int i = 0; i < valueLevels; i++) {
+      value = i % 2 == 0 ? value.get("a").get(0) : value.get("o");
+    }
+    assertEquals(0, value.size());
+  }
+
+  private static void assertRejectedOrDecoded(byte[] bytes) {
+    try {
+      SchemaCodec.decode(bytes);
+    } catch (IllegalArgumentException e) {
+      // expected for most corruptions
+    }
+  }
+}
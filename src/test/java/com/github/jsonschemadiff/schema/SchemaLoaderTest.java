@@ -0,0 +1,990 @@
+package com.github.jsonschemadiff.schema;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jsonschemadiff.diff.Difference;
+import com.github.jsonschemadiff.diff.SchemaDiff;
+import com.github.jsonschemadiff.diff.SchemaDiffTest;
+import com.github.jsonschemadiff.utils.LruCache;
+import com.github.jsonschemadiff.utils.PatternCache;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.ArrayList;
+import java.util.function.IntFunction;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SchemaLoaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static Schema loadStreaming(String json) throws Exception {
+    try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+      return SchemaLoader.load(parser);
+    }
+  }
+
+  // --- Streaming loader ---
+
+  @Test
+  public void testStreamingLoadMatchesTreeLoad() throws Exception {
+    for (String file : new String[] {
+        "diff-schema-examples.json", "diff-combined-schema-examples.json"}) {
+      JsonNode testCases = MAPPER.readTree(
+          Objects.requireNonNull(SchemaDiffTest.readFile(file)));
+      for (JsonNode testCase : testCases) {
+        String description = testCase.get("description").asText();
+        JsonNode original = testCase.get("original_schema");
+        JsonNode update = testCase.get("update_schema");
+
+        List<Difference> expected = SchemaDiff.compare(
+            SchemaLoader.load(original), SchemaLoader.load(update));
+        List<Difference> actual = SchemaDiff.compare(
+            loadStreaming(original.toString()), loadStreaming(update.toString()));
+        assertEquals(description, expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testStreamingResolvesDefinitionsDeclaredAfterUse() throws Exception {
+    String original = "{\"type\":\"object\",\"properties\":{\"home\":{\"$ref\":\"#/definitions/Address\"}},"
+        + "\"definitions\":{\"Address\":{\"type\":\"object\","
+        + "\"properties\":{\"zip\":{\"type\":\"string\",\"maxLength\":5}}}}}";
+    String update = original.replace("\"maxLength\":5", "\"maxLength\":10");
+    List<Difference> diffs = SchemaDiff.compare(loadStreaming(original), loadStreaming(update));
+    assertEquals(1, diffs.size());
+    assertEquals(Difference.Type.MAX_LENGTH_INCREASED, diffs.get(0).getType());
+    assertEquals("#/properties/home/properties/zip/maxLength", diffs.get(0).getJsonPath());
+  }
+
+  @Test
+  public void testStreamingDetectsVersionFromSchemaKeyword() throws Exception {
+    String original = "{\"$schema\":\"http://json-schema.org/draft-04/schema#\","
+        + "\"type\":\"number\",\"maximum\":100,\"exclusiveMaximum\":true}";
+    String update = original.replace("100", "200");
+    List<Difference> diffs = SchemaDiff.compare(loadStreaming(original), loadStreaming(update));
+    assertTrue(diffs.stream()
+        .anyMatch(d -> d.getType() == Difference.Type.EXCLUSIVE_MAXIMUM_INCREASED));
+  }
+
+  // --- $ref sharing ---
+
+  private static final String SHARED_ADDRESS =
+      "{\"type\":\"object\",\"properties\":{"
+      + "\"home\":{\"$ref\":\"#/definitions/Address\"},"
+      + "\"work\":{\"$ref\":\"#/definitions/Address\"}},"
+      + "\"definitions\":{\"Address\":{\"type\":\"object\","
+      + "\"properties\":{\"zip\":{\"type\":\"string\",\"maxLength\":5}}}}}";
+
+  @Test
+  public void testRefTargetsAreLoadedOnceAndShared() {
+    ObjectSchema schema = (ObjectSchema) SchemaLoader.load(SHARED_ADDRESS);
+    assertSame(schema.getPropertySchemas().get("home"), schema.getPropertySchemas().get("work"));
+  }
+
+  @Test
+  public void testDiffReportsEveryPathThroughSharedRef() {
+    String update = SHARED_ADDRESS.replace("\"maxLength\":5", "\"maxLength\":10");
+    List<String> paths = SchemaDiff.compare(SHARED_ADDRESS, update).stream()
+        .map(Difference::getJsonPath)
+        .sorted()
+        .collect(Collectors.toList());
+    assertEquals(List.of(
+        "#/properties/home/properties/zip/maxLength",
+        "#/properties/work/properties/zip/maxLength"), paths);
+  }
+
+  // --- Recursive references ---
+
+  private static final String TREE_NODE =
+      "{\"type\":\"object\",\"properties\":{"
+      + "\"name\":{\"type\":\"string\",\"maxLength\":5},"
+      + "\"children\":{\"type\":\"array\",\"items\":{\"$ref\":\"#\"}}}}";
+
+  @Test
+  public void testSelfReferenceToRootBecomesReferenceSchema() {
+    ObjectSchema root = (ObjectSchema) SchemaLoader.load(TREE_NODE);
+    ArraySchema children = (ArraySchema) root.getPropertySchemas().get("children");
+    ReferenceSchema ref = (ReferenceSchema) children.getAllItemSchema();
+    assertEquals("#", ref.getReferenceValue());
+    assertSame(root, ref.getReferredSchema());
+  }
+
+  @Test
+  public void testRecursiveDefinitionLoadsAndDiffs() throws Exception {
+    String original = "{\"$ref\":\"#/definitions/node\",\"definitions\":{\"node\":{"
+        + "\"type\":\"object\",\"properties\":{"
+        + "\"value\":{\"type\":\"string\",\"maxLength\":5},"
+        + "\"next\":{\"$ref\":\"#/definitions/node\"}}}}}";
+    String update = original.replace("\"maxLength\":5", "\"maxLength\":10");
+    for (boolean streaming : new boolean[] {false, true}) {
+      Schema orig = streaming ? loadStreaming(original) : SchemaLoader.load(original);
+      Schema upd = streaming ? loadStreaming(update) : SchemaLoader.load(update);
+      List<Difference> diffs = SchemaDiff.compare(orig, upd);
+      assertEquals(1, diffs.size());
+      assertEquals("#/properties/value/maxLength", diffs.get(0).getJsonPath());
+    }
+  }
+
+  @Test
+  public void testRecursiveSchemasDiffWithoutReexpanding() throws Exception {
+    String update = TREE_NODE.replace("\"maxLength\":5", "\"maxLength\":3");
+    List<Difference> diffs = SchemaDiff.compare(TREE_NODE, update);
+    assertEquals(1, diffs.size());
+    assertEquals(Difference.Type.MAX_LENGTH_DECREASED, diffs.get(0).getType());
+
+    diffs = SchemaDiff.compare(loadStreaming(TREE_NODE), loadStreaming(update));
+    assertEquals(1, diffs.size());
+  }
+
+  @Test
+  public void testReferenceChainLoopIsLeftUnresolved() {
+    Schema schema = SchemaLoader.load("{\"properties\":{\"a\":{\"$ref\":\"#/definitions/x\"}},"
+        + "\"definitions\":{\"x\":{\"$ref\":\"#/definitions/y\"},"
+        + "\"y\":{\"$ref\":\"#/definitions/x\"}}}");
+    assertTrue(((ObjectSchema) schema).getPropertySchemas().get("a") instanceof EmptySchema);
+  }
+
+  // --- Type arrays and implicit combined schemas ---
+
+  @Test
+  public void testNestedNullableTypesLoadWithoutTouchingSource() throws Exception {
+    String original = "{\"type\":[\"object\",\"null\"],\"properties\":{"
+        + "\"a\":{\"type\":[\"object\",\"null\"],\"properties\":{"
+        + "\"b\":{\"type\":[\"string\",\"null\"],\"maxLength\":3,\"enum\":[\"x\"]}}}}}";
+    JsonNode source = MAPPER.readTree(original);
+    JsonNode pristine = source.deepCopy();
+    Schema orig = SchemaLoader.load(source);
+    assertEquals(pristine, source);
+
+    Schema upd = SchemaLoader.load(original.replace("\"maxLength\":3", "\"maxLength\":4"));
+    List<Difference> diffs = SchemaDiff.compare(orig, upd);
+    assertEquals(1, diffs.size());
+    assertEquals("#/anyOf/0/properties/a/anyOf/0/properties/b/allOf/0/anyOf/0/maxLength",
+        diffs.get(0).getJsonPath());
+  }
+
+  // --- Interning ---
+
+  private static Schema loadInterned(String json, SchemaInterner interner) throws Exception {
+    return SchemaLoader.builder(MAPPER.readTree(json)).interner(interner).build().load();
+  }
+
+  @Test
+  public void testInterningSharesUnchangedSubtreesAcrossVersions() throws Exception {
+    SchemaInterner interner = new SchemaInterner();
+    String v1 = "{\"type\":\"object\",\"properties\":{"
+        + "\"name\":{\"type\":\"string\",\"maxLength\":5},"
+        + "\"age\":{\"type\":\"integer\",\"minimum\":0},"
+        + "\"any\":true,\"open\":{}}}";
+    String v2 = v1.replace("\"maxLength\":5", "\"maxLength\":6");
+    ObjectSchema first = (ObjectSchema) loadInterned(v1, interner);
+    ObjectSchema second = (ObjectSchema) loadInterned(v2, interner);
+
+    assertSame(first.getPropertySchemas().get("age"), second.getPropertySchemas().get("age"));
+    assertNotSame(first.getPropertySchemas().get("name"), second.getPropertySchemas().get("name"));
+    assertSame(second.getPropertySchemas().get("any"), second.getPropertySchemas().get("open"));
+    assertSame(first, loadInterned(v1, interner));
+
+    List<Difference> diffs = SchemaDiff.compare(first, second);
+    assertEquals(1, diffs.size());
+    assertEquals("#/properties/name/maxLength", diffs.get(0).getJsonPath());
+  }
+
+  @Test
+  public void testInterningSkipsSubtreesWithRefs() throws Exception {
+    SchemaInterner interner = new SchemaInterner();
+    String v1 = "{\"properties\":{\"a\":{\"properties\":{\"x\":{\"$ref\":\"#/definitions/T\"}}}},"
+        + "\"definitions\":{\"T\":{\"type\":\"string\"}}}";
+    String v2 = v1.replace("\"string\"", "\"number\"");
+    ObjectSchema first = (ObjectSchema) loadInterned(v1, interner);
+    ObjectSchema second = (ObjectSchema) loadInterned(v2, interner);
+    assertNotSame(first.getPropertySchemas().get("a"), second.getPropertySchemas().get("a"));
+    assertEquals(Difference.Type.TYPE_CHANGED, SchemaDiff.compare(first, second).get(0).getType());
+  }
+
+  @Test
+  public void testInternTableIsBounded() throws Exception {
+    SchemaInterner interner = new SchemaInterner(2);
+    for (int i = 0; i < 10; i++) {
+      loadInterned("{\"type\":\"string\",\"maxLength\":" + i + "}", interner);
+    }
+    assertEquals(2, interner.size());
+  }
+
+  @Test
+  public void testSharedCachesStayBoundedUnderConcurrentPuts() throws Exception {
+    int maxEntries = 8;
+    LruCache<Integer, Integer> cache = new LruCache<>(maxEntries);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> tasks = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        int seed = t;
+        tasks.add(pool.submit(() -> {
+          // Replacing puts of a few hot keys race with the evictions of new ones
+          for (int i = 0; i < 200_000; i++) {
+            cache.put(i % 2 == 0 ? i % 16 : seed * 1_000_000 + i, i);
+          }
+        }));
+      }
+      for (Future<?> task : tasks) {
+        task.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    // Every entry left is still evictable, so fresh keys bring the cache back to its bound
+    for (int i = 0; i < 4 * maxEntries; i++) {
+      cache.put(-1 - i, i);
+    }
+    assertEquals(maxEntries, cache.size());
+  }
+
+  @Test
+  public void testLazilyBuiltSubtreesAreNotInterned() throws Exception {
+    String json = "{\"properties\":{\"a\":{\"type\":\"string\"}}}";
+    SchemaInterner interner = new SchemaInterner();
+    Schema lazy = SchemaLoader.builder(MAPPER.readTree(json)).interner(interner).lazy(true)
+        .build().load();
+    assertEquals(0, interner.size());
+    Schema eager = loadInterned(json, interner);
+    assertNotSame(lazy, eager);
+    // Eagerly built entries serve lazy loads too
+    assertSame(eager, SchemaLoader.builder(MAPPER.readTree(json)).interner(interner).lazy(true)
+        .build().load());
+  }
+
+  // --- Keyword scan ---
+
+  @Test
+  public void testKeywordScanClassifiesFieldsInOnePass() throws Exception {
+    KeywordScan scan = KeywordScan.of(MAPPER.readTree(
+        "{\"x-b\":1,\"type\":[\"string\",\"null\"],\"maxLength\":3,\"x-a\":2,\"enum\":[\"q\"]}"));
+    assertTrue(scan.has(Keyword.TYPE) && scan.has(Keyword.ENUM));
+    assertEquals(3, scan.get(Keyword.MAX_LENGTH).asInt());
+    assertEquals(List.of("x-b", "x-a"), List.copyOf(scan.unprocessed().keySet()));
+
+    KeywordScan variant = scan.with(Keyword.TYPE, MAPPER.readTree("\"string\""))
+        .without(Keyword.bits(Keyword.ENUM, Keyword.CONST));
+    assertEquals("string", variant.text(Keyword.TYPE));
+    assertTrue(!variant.has(Keyword.ENUM) && variant.get(Keyword.ENUM) == null);
+    assertTrue(scan.get(Keyword.TYPE).isArray());
+    KeywordScan enumPart = scan.only(Keyword.bits(Keyword.ENUM, Keyword.CONST));
+    assertTrue(enumPart.unprocessed() == null && !enumPart.has(Keyword.MAX_LENGTH));
+  }
+
+  @Test
+  public void testUnprocessedKeywordsSurviveTypeArraySplit() {
+    CombinedSchema schema = (CombinedSchema) SchemaLoader.load(
+        "{\"type\":[\"string\",\"integer\"],\"maxLength\":2,\"connect.type\":\"int8\"}");
+    for (Schema sub : schema.getSubschemas()) {
+      assertEquals("int8", sub.getUnprocessedProperties().get("connect.type").asText());
+    }
+    assertEquals("int8", schema.getUnprocessedProperties().get("connect.type").asText());
+  }
+
+  // --- Property tables ---
+
+  private static String wideObject(int size, int requiredStep) {
+    StringBuilder json = new StringBuilder("{\"type\":\"object\",\"properties\":{");
+    for (int i = 0; i < size; i++) {
+      json.append(i == 0 ? "" : ",").append("\"p").append(i).append("\":{\"type\":\"string\"}");
+    }
+    json.append("},\"required\":[\"ghost\"");
+    for (int i = 0; i < size; i += requiredStep) {
+      json.append(",\"p").append(i).append('"');
+    }
+    return json.append("]}").toString();
+  }
+
+  @Test
+  public void testWideObjectStoresPropertiesInNameOrder() {
+    ObjectSchema original = (ObjectSchema) SchemaLoader.load(wideObject(3000, 3));
+    ObjectSchema update = (ObjectSchema) SchemaLoader.load(wideObject(3000, 2));
+    PropertyTable table = original.getPropertyTable();
+
+    assertEquals(3000, table.size());
+    assertEquals("p42", table.name(42));
+    assertEquals(42, update.getPropertyTable().indexOfName(table.name(42)));
+    assertEquals(-1, table.indexOfName("p3000"));
+    assertEquals(1001, original.getRequiredProperties().size());
+    assertTrue(original.getRequiredProperties().contains("ghost"));
+    assertTrue(original.getRequiredProperties().contains("p3"));
+    assertTrue(!original.getRequiredProperties().contains("p2"));
+    assertEquals("p0", original.getRequiredProperties().iterator().next());
+    assertEquals(StringSchema.class, original.getPropertySchemas().get("p2999").getClass());
+
+    List<Difference> diffs = SchemaDiff.compare(original, update);
+    // p2, p4, p8, ... became required; p3, p9, p15, ... no longer are
+    assertEquals(1000, diffs.stream()
+        .filter(d -> d.getType() == Difference.Type.REQUIRED_ATTRIBUTE_ADDED).count());
+    assertEquals(500, diffs.stream()
+        .filter(d -> d.getType() == Difference.Type.REQUIRED_ATTRIBUTE_REMOVED).count());
+    assertEquals("#/required/p2", diffs.get(0).getJsonPath());
+  }
+
+
+  @Test
+  public void testPatternsCompileOnceThroughSharedCache() {
+    String json = "{\"type\":\"string\",\"pattern\":\"^shared-[0-9]+$\"}";
+    long misses = PatternCache.getMissCount();
+    StringSchema first = (StringSchema) SchemaLoader.load(json);
+    StringSchema second = (StringSchema) SchemaLoader.load(json);
+    assertEquals(misses + 1, PatternCache.getMissCount());
+    assertEquals("^shared-[0-9]+$", first.getPatternString());
+    assertSame(first.getPattern(), second.getPattern());
+    assertEquals(misses + 1, PatternCache.getMissCount());
+  }
+
+  @Test
+  public void testMalformedPatternsAreRejectedAtLoad() {
+    String[] invalid = {
+        "{\"type\":\"string\",\"pattern\":\"[\"}",
+        "{\"type\":\"object\",\"patternProperties\":{\"(\":{\"type\":\"string\"}}}"
+    };
+    for (String json : invalid) {
+      try {
+        SchemaLoader.load(json);
+        fail("Expected an invalid pattern to be rejected: " + json);
+      } catch (IllegalArgumentException e) {
+        assertEquals("Invalid JSON schema", e.getMessage());
+        assertTrue(e.getCause() instanceof PatternSyntaxException);
+      }
+    }
+  }
+
+  // --- Lazy loading ---
+
+  private static Schema loadLazy(JsonNode node) {
+    return SchemaLoader.builder(node).lazy(true).build().load();
+  }
+
+  @Test
+  public void testLazyLoadMatchesEagerLoad() throws Exception {
+    for (String file : new String[] {
+        "diff-schema-examples.json", "diff-combined-schema-examples.json"}) {
+      JsonNode testCases = MAPPER.readTree(
+          Objects.requireNonNull(SchemaDiffTest.readFile(file)));
+      for (JsonNode testCase : testCases) {
+        JsonNode original = testCase.get("original_schema");
+        JsonNode update = testCase.get("update_schema");
+        assertEquals(testCase.get("description").asText(),
+            SchemaDiff.compare(SchemaLoader.load(original), SchemaLoader.load(update)),
+            SchemaDiff.compare(loadLazy(original), loadLazy(update)));
+      }
+    }
+  }
+
+  @Test
+  public void testLazyChildrenAreBuiltOnFirstAccess() throws Exception {
+    ObjectNode source = (ObjectNode) MAPPER.readTree(
+        "{\"type\":\"object\",\"properties\":{\"a\":{\"type\":\"string\"}}}");
+    ObjectSchema schema = (ObjectSchema) loadLazy(source);
+    ((ObjectNode) source.at("/properties/a")).put("maxLength", 3);
+
+    StringSchema a = (StringSchema) schema.getPropertySchemas().get("a");
+    assertEquals(Integer.valueOf(3), a.getMaxLength());
+    assertSame(a, schema.getPropertySchemas().get("a"));
+  }
+
+  @Test
+  public void testLazyChildrenAreMemoizedAcrossThreads() throws Exception {
+    ObjectSchema root = (ObjectSchema) loadLazy(MAPPER.readTree(TREE_NODE));
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Schema>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        Callable<Schema> task = () -> ((ArraySchema) root.getPropertySchemas().get("children"))
+            .getAllItemSchema();
+        results.add(pool.submit(task));
+      }
+      for (Future<Schema> result : results) {
+        assertSame(root, result.get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testLazyCyclesHashAndCompare() throws Exception {
+    // A lazily loaded recursive $ref is the schema it is in, not a ReferenceSchema
+    ObjectSchema first = (ObjectSchema) loadLazy(MAPPER.readTree(TREE_NODE));
+    ObjectSchema second = (ObjectSchema) loadLazy(MAPPER.readTree(TREE_NODE));
+    assertSame(first,
+        ((ArraySchema) first.getPropertySchemas().get("children")).getAllItemSchema());
+
+    assertTrue(first.hasReferences());
+    assertEquals(first.getStructuralHash(), second.getStructuralHash());
+    assertNotEquals(first, second);
+    assertEquals(first.getPropertySchemas().get("name"), second.getPropertySchemas().get("name"));
+    assertTrue(SchemaDiff.compare(first, second).isEmpty());
+
+    // A combined schema that recurses through one of its own subschemas
+    String json = "{\"definitions\":{\"V\":{\"anyOf\":[{\"type\":\"string\"},"
+        + "{\"type\":\"array\",\"items\":{\"$ref\":\"#/definitions/V\"}}]}},"
+        + "\"properties\":{\"v\":{\"$ref\":\"#/definitions/V\"}}}";
+    Schema recursive = loadLazy(MAPPER.readTree(json));
+    Schema string = SchemaLoader.load("{\"properties\":{\"v\":{\"type\":\"string\"}}}");
+    assertEquals(SchemaDiff.compare(SchemaLoader.load(json), string),
+        SchemaDiff.compare(recursive, string));
+    assertEquals(2, ((CombinedSchema) ((ObjectSchema) recursive).getPropertySchemas().get("v"))
+        .getSubschemas().size());
+  }
+
+  // --- Parallel definitions ---
+
+  private static Schema loadParallel(JsonNode node, ForkJoinPool pool) {
+    return SchemaLoader.builder(node).parallelDefinitions(pool).build().load();
+  }
+
+  private static String generatedDefinitions(int count) {
+    StringBuilder json = new StringBuilder("{\"type\":\"object\",\"properties\":{");
+    for (int i = 0; i < count; i += 7) {
+      json.append("\"p").append(i).append("\":{\"$ref\":\"#/definitions/d").append(i).append("\"},");
+    }
+    json.append("\"cyclic\":{\"$ref\":\"#/definitions/a\"},"
+        + "\"nested\":{\"$ref\":\"#/definitions/n\"}},\"definitions\":{"
+        + "\"a\":{\"properties\":{\"b\":{\"$ref\":\"#/definitions/b\"}}},"
+        + "\"b\":{\"properties\":{\"a\":{\"$ref\":\"#/definitions/a\"},"
+        + "\"d3\":{\"$ref\":\"#/definitions/d3\"}}},"
+        + "\"n\":{\"properties\":{\"x\":{\"$ref\":\"#/definitions/d1/properties/v\"}}}");
+    for (int i = 0; i < count; i++) {
+      json.append(",\"d").append(i).append("\":{\"type\":\"object\",\"properties\":{")
+          .append("\"v\":{\"type\":\"string\",\"maxLength\":").append(i).append("}");
+      if (i > 0) {
+        json.append(",\"prev\":{\"$ref\":\"#/definitions/d").append(i - 1).append("\"}");
+      }
+      if (i > 1) {
+        json.append(",\"prev2\":{\"$ref\":\"#/definitions/d").append(i - 2).append("\"}");
+      }
+      json.append("}}");
+    }
+    return json.append("}}").toString();
+  }
+
+  @Test
+  public void testParallelDefinitionsBuildSameTreeAsSequential() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      JsonNode node = MAPPER.readTree(generatedDefinitions(200));
+      assertArrayEquals(SchemaCodec.encode(SchemaLoader.load(node)),
+          SchemaCodec.encode(loadParallel(node, pool)));
+
+      for (String json : new String[] {SHARED_ADDRESS, TREE_NODE}) {
+        node = MAPPER.readTree(json);
+        assertArrayEquals(SchemaCodec.encode(SchemaLoader.load(node)),
+            SchemaCodec.encode(loadParallel(node, pool)));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelDefinitionsRejectLazyMode() {
+    SchemaLoader.builder(MAPPER.createObjectNode())
+        .lazy(true)
+        .parallelDefinitions(ForkJoinPool.commonPool())
+        .build();
+  }
+
+  // --- Detached mode ---
+
+  @Test
+  public void testDetachedSchemaDoesNotRetainSourceTree() throws Exception {
+    JsonNode source = MAPPER.readTree(TREE_NODE.replace("{\"type\":\"object\",",
+        "{\"type\":\"object\",\"x-examples\":[{\"name\":\"root\"}],"));
+    WeakReference<JsonNode> ref = new WeakReference<>(source);
+    Schema schema = SchemaLoader.builder(source).detached(true).build().load();
+    JsonNode examples = schema.getUnprocessedProperties().get("x-examples");
+    assertEquals(source.get("x-examples"), examples);
+    source = null;
+
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(ref.get());
+    assertEquals("root", examples.get(0).get("name").asText());
+    try {
+      ((ObjectNode) examples.get(0)).put("name", "changed");
+      fail("Expected detached values to be immutable");
+    } catch (UnsupportedOperationException expected) {
+      // detached
+    }
+    assertTrue(SchemaDiff.compare(schema, SchemaLoader.load(TREE_NODE)).isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDetachedModeRejectsLazyMode() {
+    SchemaLoader.builder(MAPPER.createObjectNode()).lazy(true).detached(true).build();
+  }
+
+  // --- Node footprint ---
+
+  private static long usedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * The retained heap per node built by {@code factory}, plus its slot in the holding array.
+   */
+  private static long bytesPerNode(IntFunction<Schema> factory) throws InterruptedException {
+    Schema[] nodes = new Schema[200_000];
+    long before = usedHeap();
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = factory.apply(i);
+    }
+    long after = usedHeap();
+    assertTrue(nodes[nodes.length - 1] != null);
+    return (after - before) / nodes.length;
+  }
+
+  @Test
+  public void testLeafLimitsAddNoPerNodeFootprint() throws Exception {
+    long bareString = bytesPerNode(i -> StringSchema.builder().build());
+    long limitedString = bytesPerNode(i -> StringSchema.builder()
+        .maxLength(1_000 + i).minLength(500 + i).build());
+    long bareArray = bytesPerNode(i -> ArraySchema.builder().build());
+    long limitedArray = bytesPerNode(i -> ArraySchema.builder()
+        .maxItems(1_000 + i).minItems(500 + i).needsUniqueItems(true).build());
+    long bareNumber = bytesPerNode(i -> NumberSchema.builder().build());
+    long limitedNumber = bytesPerNode(i -> NumberSchema.builder()
+        .maximum(1_000.5 + i).minimum(500L + i).build());
+
+    // Two boxed limits would add 32 bytes per node; primitive fields add nothing
+    assertTrue(limitedString + " vs " + bareString, limitedString - bareString < 16);
+    assertTrue(limitedArray + " vs " + bareArray, limitedArray - bareArray < 16);
+    assertTrue(limitedNumber + " vs " + bareNumber, limitedNumber - bareNumber < 16);
+  }
+
+  @Test
+  public void testNumberLimitsKeepTheirType() {
+    NumberSchema schema = NumberSchema.builder()
+        .maximum(10)
+        .minimum(-3_000_000_000L)
+        .exclusiveMaximumLimit(9.5)
+        .exclusiveMinimumLimit(new BigDecimal("0.10"))
+        .multipleOf(2)
+        .requiresInteger(true)
+        .build();
+    assertEquals(Integer.valueOf(10), schema.getMaximum());
+    assertEquals(Long.valueOf(-3_000_000_000L), schema.getMinimum());
+    assertEquals(Double.valueOf(9.5), schema.getExclusiveMaximumLimit());
+    assertEquals(new BigDecimal("0.10"), schema.getExclusiveMinimumLimit());
+    assertEquals(Integer.valueOf(2), schema.getMultipleOf());
+    assertTrue(schema.requiresInteger());
+
+    NumberSchema packed = NumberSchema.builder()
+        .maximum(10).minimum(-3_000_000_000L).exclusiveMaximumLimit(9.5).multipleOf(2).build();
+    assertTrue(packed.isLongLimit(NumberSchema.Limit.MINIMUM));
+    assertEquals(-3_000_000_000L, packed.getLongLimit(NumberSchema.Limit.MINIMUM));
+    assertTrue(packed.isDoubleLimit(NumberSchema.Limit.EXCLUSIVE_MAXIMUM));
+    assertEquals(9.5, packed.getDoubleLimit(NumberSchema.Limit.EXCLUSIVE_MAXIMUM), 0);
+    assertEquals(Integer.valueOf(2), packed.getMultipleOf());
+    assertNull(packed.getExclusiveMinimumLimit());
+    assertTrue(!packed.requiresInteger());
+  }
+
+  // --- Byte input ---
+
+  @Test
+  public void testLoadsFromBytesBuffersAndStreams() throws Exception {
+    Schema expected = SchemaLoader.load(TREE_NODE);
+    byte[] json = TREE_NODE.getBytes(StandardCharsets.UTF_8);
+    byte[] padded = new byte[json.length + 8];
+    System.arraycopy(json, 0, padded, 4, json.length);
+
+    assertTrue(SchemaDiff.compare(expected, SchemaLoader.load(json)).isEmpty());
+    assertTrue(SchemaDiff.compare(
+        expected, SchemaLoader.load(padded, 4, json.length)).isEmpty());
+
+    ByteBuffer heap = ByteBuffer.wrap(padded, 4, json.length);
+    assertTrue(SchemaDiff.compare(expected, SchemaLoader.load(heap)).isEmpty());
+    assertEquals(4, heap.position());
+    ByteBuffer direct = ByteBuffer.allocateDirect(json.length).put(json).flip();
+    assertTrue(SchemaDiff.compare(expected, SchemaLoader.load(direct)).isEmpty());
+    assertEquals(0, direct.position());
+
+    AtomicBoolean closed = new AtomicBoolean();
+    InputStream in = new ByteArrayInputStream(json) {
+      @Override
+      public void close() {
+        closed.set(true);
+      }
+    };
+    assertTrue(SchemaDiff.compare(expected, SchemaLoader.load(in)).isEmpty());
+    assertTrue(!closed.get());
+
+    assertTrue(SchemaDiff.compare(json, json.clone()).isEmpty());
+  }
+
+  @Test
+  public void testLoadsSmallAndMappedFiles() throws Exception {
+    Path small = folder.newFile("small.json").toPath();
+    Files.write(small, TREE_NODE.getBytes(StandardCharsets.UTF_8));
+    assertTrue(Files.size(small) < SchemaLoader.MAP_THRESHOLD);
+
+    // Pad the description so the file is memory-mapped
+    StringBuilder description = new StringBuilder();
+    while (description.length() < SchemaLoader.MAP_THRESHOLD) {
+      description.append("0123456789abcdef");
+    }
+    Path large = folder.newFile("large.json").toPath();
+    Files.write(large, TREE_NODE.replace("{\"type\":\"object\",",
+        "{\"type\":\"object\",\"description\":\"" + description + "\",")
+        .getBytes(StandardCharsets.UTF_8));
+    assertTrue(Files.size(large) >= SchemaLoader.MAP_THRESHOLD);
+
+    Schema mapped = SchemaLoader.load(large);
+    assertEquals(description.toString(), mapped.getDescription());
+    assertEquals(Collections.singletonList(Difference.Type.DESCRIPTION_CHANGED),
+        SchemaDiff.compare(small, large).stream()
+            .map(Difference::getType)
+            .collect(Collectors.toList()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMalformedFileIsInvalidSchema() throws Exception {
+    Path file = folder.newFile("broken.json").toPath();
+    Files.write(file, "{\"type\":".getBytes(StandardCharsets.UTF_8));
+    SchemaLoader.load(file);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLoadsFromMapAndListTrees() throws Exception {
+    String json = "{\"type\":\"object\",\"x-owner\":{\"team\":\"core\"},"
+        + "\"properties\":{"
+        + "\"n\":{\"type\":\"number\",\"maximum\":10,\"multipleOf\":0.5},"
+        + "\"e\":{\"enum\":[\"a\",1,2.5,true,null]},"
+        + "\"tree\":{\"$ref\":\"#/definitions/tree\"}},"
+        + "\"definitions\":{\"tree\":{\"type\":\"array\","
+        + "\"items\":{\"$ref\":\"#/definitions/tree\"},\"maxItems\":3}}}";
+    Map<String, Object> tree = MAPPER.readValue(json, Map.class);
+    Schema expected = SchemaLoader.load(json);
+    Schema loaded = SchemaLoader.loadSource(SchemaSource.of(tree));
+    assertTrue(SchemaDiff.compare(expected, loaded).isEmpty());
+    assertEquals(expected.getUnprocessedProperties(), loaded.getUnprocessedProperties());
+    // Trees of inferred type still resolve to load(JsonNode)
+    assertTrue(SchemaDiff.compare(expected, SchemaLoader.load(MAPPER.valueToTree(tree))).isEmpty());
+    assertTrue(SchemaDiff.compare(expected,
+        SchemaLoader.load(MAPPER.readTree(json).deepCopy())).isEmpty());
+
+    // Sources are read with the same loader options as trees
+    SchemaInterner interner = new SchemaInterner();
+    Schema first = SchemaLoader.builderFor(SchemaSource.of(tree)).interner(interner).build().load();
+    Schema second = SchemaLoader.builder(MAPPER.readTree(json)).interner(interner).build().load();
+    assertSame(((ObjectSchema) first).getPropertySchemas().get("n"),
+        ((ObjectSchema) second).getPropertySchemas().get("n"));
+
+    Map<String, Object> limits = new LinkedHashMap<>();
+    limits.put("type", "number");
+    limits.put("maximum", new BigDecimal("1e400"));
+    limits.put("minimum", (short) -3);
+    NumberSchema number = (NumberSchema) SchemaLoader.loadSource(SchemaSource.of(limits));
+    assertEquals(new BigDecimal("1e400"), number.getMaximum());
+    assertEquals(-3L, number.getLongLimit(NumberSchema.Limit.MINIMUM));
+    assertTrue(SchemaDiff.compare(SchemaLoader.loadSource(SchemaSource.of(List.of(1, 2))),
+        SchemaLoader.load("[1,2]")).isEmpty());
+  }
+
+  @Test
+  public void testLoadsFromParserSource() throws Exception {
+    String json = "{\"type\":\"object\",\"properties\":{\"a\":{\"type\":\"string\"}}}";
+    try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+      assertTrue(SchemaDiff.compare(SchemaLoader.load(json),
+          SchemaLoader.loadSource(SchemaSource.of(parser))).isEmpty());
+    }
+    try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+      SchemaSource source = SchemaSource.of(parser);
+      assertEquals(SchemaSource.Kind.OBJECT, source.kind());
+      assertTrue(SchemaDiff.compare(SchemaLoader.load(json),
+          SchemaLoader.loadSource(source)).isEmpty());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedSourceValueIsRejected() {
+    SchemaLoader.loadSource(SchemaSource.of(Map.of("type", new Object())));
+  }
+
+  private static Schema loadLimited(String json, LoaderLimits limits, boolean lazy)
+      throws Exception {
+    return SchemaLoader.builder(MAPPER.readTree(json)).limits(limits).lazy(lazy).build().load();
+  }
+
+  private static String nested(int depth) {
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      json.append("{\"type\":\"object\",\"properties\":{\"a\":");
+    }
+    json.append("{\"type\":\"string\"}");
+    for (int i = 0; i < depth; i++) {
+      json.append("}}");
+    }
+    return json.toString();
+  }
+
+  private static LoaderLimits.Limit limitCrossed(String json, LoaderLimits limits, boolean lazy)
+      throws Exception {
+    try {
+      Schema schema = loadLimited(json, limits, lazy);
+      // Lazy children cross their limit when they are built
+      assertTrue(SchemaDiff.compare(schema, schema).isEmpty());
+      schema.toString();
+    } catch (SchemaLimitExceededException e) {
+      assertEquals(limits.get(e.getLimit()), e.getMaximum());
+      return e.getLimit();
+    }
+    return null;
+  }
+
+  @Test
+  public void testLoaderLimitsFailFast() throws Exception {
+    LoaderLimits depth = LoaderLimits.builder().maxDepth(20).build();
+    assertEquals(LoaderLimits.Limit.DEPTH, limitCrossed(nested(20), depth, false));
+    assertNull(limitCrossed(nested(19), depth, false));
+
+    // Each level's type array builds the subtree below it twice
+    StringBuilder typeArrays = new StringBuilder();
+    for (int i = 0; i < 30; i++) {
+      typeArrays.append("{\"type\":[\"object\",\"object\"],\"properties\":{\"a\":");
+    }
+    typeArrays.append("{}");
+    for (int i = 0; i < 30; i++) {
+      typeArrays.append("}}");
+    }
+    assertEquals(LoaderLimits.Limit.NODES, limitCrossed(typeArrays.toString(),
+        LoaderLimits.builder().maxNodes(10_000).build(), false));
+
+    String refs = "{\"properties\":{\"a\":{\"$ref\":\"#/definitions/a\"},"
+        + "\"b\":{\"$ref\":\"#/definitions/b\"},\"c\":{\"$ref\":\"#/definitions/a\"}},"
+        + "\"definitions\":{\"a\":{\"type\":\"string\"},\"b\":{\"type\":\"number\"}}}";
+    assertNull(limitCrossed(refs, LoaderLimits.builder().maxRefExpansions(2).build(), false));
+    assertEquals(LoaderLimits.Limit.REF_EXPANSIONS,
+        limitCrossed(refs, LoaderLimits.builder().maxRefExpansions(1).build(), false));
+
+    LoaderLimits pattern = LoaderLimits.builder().maxPatternLength(8).build();
+    assertEquals(LoaderLimits.Limit.PATTERN_LENGTH, limitCrossed(
+        "{\"type\":\"string\",\"pattern\":\"^(a+)+b$$$\"}", pattern, false));
+    assertEquals(LoaderLimits.Limit.PATTERN_LENGTH, limitCrossed(
+        "{\"patternProperties\":{\"^(a|aa)+$$$\":{}}}", pattern, false));
+    assertNull(limitCrossed("{\"type\":\"string\",\"pattern\":\"^a+$\"}", pattern, false));
+  }
+
+  @Test
+  public void testInternedSubtreesCountAgainstLimits() throws Exception {
+    String deep = "{\"properties\":{\"deep\":" + nested(60) + ","
+        + "\"p\":{\"type\":\"string\",\"pattern\":\"^(a+)+b$$$\"}}}";
+    SchemaInterner interner = new SchemaInterner();
+    SchemaLoader.builder(MAPPER.readTree(deep)).interner(interner).build().load();
+    List<LoaderLimits> limits = new ArrayList<>();
+    for (int bound = 60; bound <= 64; bound++) {
+      limits.add(LoaderLimits.builder().maxDepth(bound).build());
+      limits.add(LoaderLimits.builder().maxNodes(bound).build());
+    }
+    limits.add(LoaderLimits.builder().maxPatternLength(10).build());
+    limits.add(LoaderLimits.builder().maxPatternLength(11).build());
+    // Reused at the root and one level down, the subtree crosses the same bounds
+    for (String json : List.of(deep, "{\"properties\":{\"x\":" + deep + "}}")) {
+      for (LoaderLimits limit : limits) {
+        LoaderLimits.Limit expected = limitCrossed(json, limit, false);
+        LoaderLimits.Limit crossed = null;
+        try {
+          SchemaLoader.builder(MAPPER.readTree(json)).interner(interner).limits(limit)
+              .build().load();
+        } catch (SchemaLimitExceededException e) {
+          crossed = e.getLimit();
+        }
+        assertEquals(expected, crossed);
+      }
+    }
+  }
+
+  @Test
+  public void testStreamedLoadsApplyLimits() throws Exception {
+    LoaderLimits depth = LoaderLimits.builder().maxDepth(20).build();
+    for (int levels : new int[] {19, 20}) {
+      LoaderLimits.Limit crossed = null;
+      try (JsonParser parser = MAPPER.getFactory().createParser(nested(levels))) {
+        SchemaLoader.load(parser, null, depth);
+      } catch (SchemaLimitExceededException e) {
+        crossed = e.getLimit();
+      }
+      assertEquals(limitCrossed(nested(levels), depth, false), crossed);
+    }
+    try (JsonParser parser = MAPPER.getFactory().createParser(
+        "{\"properties\":{\"a\":{\"type\":\"string\",\"pattern\":\"^(a+)+b$$$\"}}}")) {
+      SchemaLoader.load(parser, null, LoaderLimits.builder().maxPatternLength(8).build());
+      fail();
+    } catch (SchemaLimitExceededException e) {
+      assertEquals(LoaderLimits.Limit.PATTERN_LENGTH, e.getLimit());
+    }
+  }
+
+  @Test
+  public void testLazyChildrenKeepTheirDepth() throws Exception {
+    LoaderLimits limits = LoaderLimits.builder().maxDepth(20).build();
+    assertEquals(LoaderLimits.Limit.DEPTH, limitCrossed(nested(20), limits, true));
+    assertNull(limitCrossed(nested(19), limits, true));
+  }
+
+  @Test
+  public void testDefaultLoadsAreUnlimited() throws Exception {
+    assertTrue(SchemaLoader.load(nested(400)) instanceof ObjectSchema);
+    try {
+      LoaderLimits.builder().maxDepth(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("depth"));
+    }
+  }
+
+  @Test
+  public void testDeepSchemasLoadOnASmallStack() throws Exception {
+    // Alternating properties and allOf levels, far deeper than a JSON parser accepts
+    int levels = 20_000;
+    ObjectNode root = MAPPER.createObjectNode();
+    ObjectNode node = root;
+    for (int i = 0; i < levels; i++) {
+      ObjectNode child = MAPPER.createObjectNode();
+      if (i % 2 == 0) {
+        node.put("type", "object").putObject("properties").set("a", child);
+      } else {
+        node.putArray("allOf").add(child).addObject().put("minLength", 1);
+      }
+      node = child;
+    }
+    node.put("type", "string");
+
+    List<Schema> loaded = new ArrayList<>();
+    List<Throwable> failures = new ArrayList<>();
+    Thread thread = new Thread(null, () -> {
+      try {
+        loaded.add(SchemaLoader.load(root));
+        loaded.add(SchemaLoader.builder(root).interner(new SchemaInterner()).build().load());
+      } catch (Throwable t) {
+        failures.add(t);
+      }
+    }, "small-stack", 256 * 1024);
+    thread.start();
+    thread.join();
+    assertEquals(Collections.emptyList(), failures);
+
+    for (Schema schema : loaded) {
+      for (int i = 0; i < levels; i++) {
+        schema = i % 2 == 0
+            ? ((ObjectSchema) schema).getPropertySchemas().get("a")
+            : ((CombinedSchema) schema).getSubschemas().iterator().next();
+      }
+      assertTrue(schema instanceof StringSchema);
+    }
+  }
+
+  @Test
+  public void testResolvesAnchorsIdsAndEscapedPointers() throws Exception {
+    String json = "{\"$schema\":\"https://json-schema.org/draft/2020-12/schema\","
+        + "\"$id\":\"https://example.com/root.json\",\"type\":\"object\",\"properties\":{"
+        + "\"slash\":{\"$ref\":\"#/$defs/a~1b\"},"
+        + "\"tilde\":{\"$ref\":\"#/$defs/c~0d\"},"
+        + "\"space\":{\"$ref\":\"#/$defs/sp%20ace\"},"
+        + "\"anchor\":{\"$ref\":\"#name\"},"
+        + "\"pointer\":{\"$ref\":\"#/$defs/named\"},"
+        + "\"relative\":{\"$ref\":\"item.json\"},"
+        + "\"absolute\":{\"$ref\":\"https://example.com/item.json#/$defs/id\"},"
+        + "\"external\":{\"$ref\":\"https://example.org/other.json\"}},"
+        + "\"$defs\":{\"a/b\":{\"type\":\"string\"},\"c~d\":{\"type\":\"integer\"},"
+        + "\"sp ace\":{\"type\":\"boolean\"},"
+        + "\"named\":{\"$anchor\":\"name\",\"type\":\"string\",\"maxLength\":3},"
+        + "\"item\":{\"$id\":\"item.json\",\"type\":\"object\","
+        // Relative to item.json, not to the document root
+        + "\"properties\":{\"id\":{\"$ref\":\"#/$defs/id\"}},"
+        + "\"$defs\":{\"id\":{\"type\":\"number\"}}}}}";
+
+    for (Schema loaded : new Schema[] {SchemaLoader.load(json), loadStreaming(json)}) {
+      Map<String, Schema> properties = ((ObjectSchema) loaded).getPropertySchemas();
+      assertTrue(properties.get("slash") instanceof StringSchema);
+      assertTrue(properties.get("tilde") instanceof NumberSchema);
+      assertTrue(properties.get("space") instanceof EmptySchema);
+      assertEquals(3, ((StringSchema) properties.get("anchor")).getMaxLengthAsInt());
+      // Different spellings of one target share its schema
+      assertSame(properties.get("anchor"), properties.get("pointer"));
+      ObjectSchema item = (ObjectSchema) properties.get("relative");
+      assertSame(item.getPropertySchemas().get("id"), properties.get("absolute"));
+      assertTrue(properties.get("absolute") instanceof NumberSchema);
+      // Unresolvable references load as the referencing node itself
+      assertTrue(properties.get("external") instanceof EmptySchema);
+    }
+  }
+
+  @Test
+  public void testResolvesLegacyAnchorsAndDynamicReferences() throws Exception {
+    String legacy = "{\"properties\":{\"a\":{\"$ref\":\"#address\"}},"
+        + "\"definitions\":{\"address\":{\"$id\":\"#address\",\"type\":\"string\"}}}";
+    ObjectSchema schema = (ObjectSchema) SchemaLoader.load(legacy);
+    assertTrue(schema.getPropertySchemas().get("a") instanceof StringSchema);
+    String draft4 = legacy.replace("$id", "id");
+    schema = (ObjectSchema) SchemaLoader.load(draft4, JsonSchemaVersion.DRAFT_4);
+    assertTrue(schema.getPropertySchemas().get("a") instanceof StringSchema);
+
+    // The extending root's $dynamicAnchor takes over the tree's own
+    String dynamic = "{\"$schema\":\"https://json-schema.org/draft/2020-12/schema\","
+        + "\"$id\":\"https://example.com/strict-tree\",\"$dynamicAnchor\":\"node\","
+        + "\"type\":\"object\",\"properties\":{\"tree\":{\"$ref\":\"tree\"}},"
+        + "\"$defs\":{\"tree\":{\"$id\":\"tree\",\"$dynamicAnchor\":\"node\","
+        + "\"type\":\"object\",\"properties\":{"
+        + "\"children\":{\"type\":\"array\",\"items\":{\"$dynamicRef\":\"#node\"}}}}}}";
+    ObjectSchema root = (ObjectSchema) SchemaLoader.load(dynamic);
+    ObjectSchema tree = (ObjectSchema) root.getPropertySchemas().get("tree");
+    ArraySchema children = (ArraySchema) tree.getPropertySchemas().get("children");
+    ReferenceSchema item = (ReferenceSchema) children.getAllItemSchema();
+    assertSame(root, item.getReferredSchema());
+    assertTrue(SchemaDiff.compare(root, loadStreaming(dynamic)).isEmpty());
+  }
+}
@@ -0,0 +1,117 @@
+package com.github.jsonschemadiff.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jsonschemadiff.diff.SchemaDiff;
+import com.github.jsonschemadiff.diff.SchemaDiffTest;
+
+import java.io.ByteArrayInputStream;
+import java.util.Objects;
+
+import org.junit.Test;
+
+public class SchemaWriterTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static Schema roundTrip(Schema schema, SchemaFormat format, JsonSchemaVersion version) {
+    byte[] bytes = SchemaWriter.toBytes(schema, format, version);
+    assertEquals(format, SchemaFormat.detect(bytes, 0, bytes.length));
+    return SchemaLoader.load(bytes);
+  }
+
+  @Test
+  public void testRoundTripPreservesDiffsInEveryFormat() throws Exception {
+    for (String file : new String[] {
+        "diff-schema-examples.json", "diff-combined-schema-examples.json"}) {
+      JsonNode testCases = MAPPER.readTree(
+          Objects.requireNonNull(SchemaDiffTest.readFile(file)));
+      for (JsonNode testCase : testCases) {
+        Schema original = SchemaLoader.load(testCase.get("original_schema"));
+        Schema update = SchemaLoader.load(testCase.get("update_schema"));
+        for (SchemaFormat format : SchemaFormat.values()) {
+          assertEquals(testCase.get("description").asText() + " as " + format,
+              SchemaDiff.compare(original, update),
+              SchemaDiff.compare(
+                  roundTrip(original, format, JsonSchemaVersion.DRAFT_7),
+                  roundTrip(update, format, JsonSchemaVersion.DRAFT_7)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDraftSpecificKeywordsRoundTrip() {
+    String json = "{\"type\":\"object\",\"title\":\"t\",\"connect.type\":\"bytes\","
+        + "\"properties\":{"
+        + "\"n\":{\"type\":\"integer\",\"maximum\":10,\"exclusiveMaximum\":10,\"default\":2},"
+        + "\"t\":{\"type\":\"array\",\"items\":[{\"type\":\"string\"}],"
+        + "\"additionalItems\":{\"type\":\"number\"},\"uniqueItems\":true},"
+        + "\"e\":{\"enum\":[\"a\",1,2.5,true,null]}},"
+        + "\"dependencies\":{\"a\":[\"b\"],\"c\":{\"required\":[\"d\"]}},"
+        + "\"required\":[\"n\"],\"additionalProperties\":false}";
+    Schema original = SchemaLoader.load(json, JsonSchemaVersion.DRAFT_7);
+    for (JsonSchemaVersion version : JsonSchemaVersion.values()) {
+      for (SchemaFormat format : SchemaFormat.values()) {
+        assertTrue(version + " as " + format,
+            SchemaDiff.compare(original, roundTrip(original, format, version)).isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void testRecursiveReferencePointsIntoOutput() throws Exception {
+    // The recursive target is reached through a property first, not at its definition
+    String json = "{\"type\":\"object\",\"properties\":{"
+        + "\"root\":{\"$ref\":\"#/definitions/node\"}},"
+        + "\"definitions\":{\"node\":{\"type\":\"object\",\"properties\":{"
+        + "\"next\":{\"$ref\":\"#/definitions/node\"}}}}}";
+    Schema original = SchemaLoader.load(json);
+    byte[] bytes = SchemaWriter.toBytes(original, SchemaFormat.JSON);
+    assertEquals("#/properties/root", MAPPER.readTree(bytes)
+        .at("/properties/root/properties/next/$ref").asText());
+
+    // The inline node is loaded once more as the $ref target, which then refers to itself
+    ObjectSchema reloaded = (ObjectSchema) SchemaLoader.load(bytes);
+    ObjectSchema node = (ObjectSchema) reloaded.getPropertySchemas().get("root");
+    ObjectSchema target = (ObjectSchema) node.getPropertySchemas().get("next");
+    ReferenceSchema next = (ReferenceSchema) target.getPropertySchemas().get("next");
+    assertSame(target, next.getReferredSchema());
+    assertTrue(SchemaDiff.compare(original, reloaded).isEmpty());
+  }
+
+  @Test
+  public void testMutuallyRecursiveDefinitionsRoundTrip() {
+    // B is built inside A and then written on its own, where it reaches A and then itself
+    String definition = "{\"properties\":{\"p\":{\"$ref\":\"#/definitions/A\"},"
+        + "\"q\":{\"$ref\":\"#/definitions/B\"}}}";
+    String json = "{\"definitions\":{\"A\":" + definition + ",\"B\":" + definition + "},"
+        + "\"properties\":{\"x\":{\"$ref\":\"#/definitions/A\"},"
+        + "\"y\":{\"$ref\":\"#/definitions/B\"}}}";
+    Schema original = SchemaLoader.load(json);
+    for (SchemaFormat format : SchemaFormat.values()) {
+      assertTrue(format.toString(), SchemaDiff.compare(original,
+          roundTrip(original, format, JsonSchemaVersion.DRAFT_7)).isEmpty());
+    }
+  }
+
+  @Test
+  public void testLoadsBinaryDocumentsWithoutText() throws Exception {
+    String json = "{\"type\":\"object\",\"properties\":{\"name\":{\"type\":\"string\"}}}";
+    JsonNode tree = MAPPER.readTree(json);
+    byte[] smile = SchemaFormat.SMILE.mapper().writeValueAsBytes(tree);
+    byte[] cbor = SchemaFormat.CBOR.mapper().writeValueAsBytes(tree);
+    assertEquals(SchemaFormat.SMILE, SchemaFormat.detect(smile, 0, smile.length));
+    assertEquals(SchemaFormat.CBOR, SchemaFormat.detect(cbor, 0, cbor.length));
+
+    Schema expected = SchemaLoader.load(json);
+    assertTrue(SchemaDiff.compare(expected, SchemaLoader.load(smile)).isEmpty());
+    assertTrue(SchemaDiff.compare(expected,
+        SchemaLoader.load(new ByteArrayInputStream(cbor))).isEmpty());
+    assertTrue(SchemaDiff.compare(smile, cbor).isEmpty());
+  }
+}